@@ -0,0 +1,145 @@
+package com.emsi.expensetracker.benchmark;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emsi.expensetracker.api.HeadlessServer;
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.CategoryDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.service.implementation.AuthService;
+import com.emsi.expensetracker.service.implementation.CategoryService;
+import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.session.Session;
+import com.emsi.expensetracker.service.session.SessionRegistry;
+import com.emsi.expensetracker.util.TestDatabase;
+
+/**
+ * Load on the headless API from {@value #CLIENTS} concurrent clients, each
+ * with its own session, looping over a mix of totals, categories, search, a
+ * one-month expense list and one write in ten. Sample mode reports the
+ * p50/p99 latency next to requests per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(ApiLoadBenchmark.CLIENTS)
+public class ApiLoadBenchmark {
+
+    static final int CLIENTS = 32;
+
+    private static final String[] PATHS = {
+            "totals", "totals?from=2024-01-01&to=2024-03-31", "categories",
+            "expenses/search?q=coffee&limit=20", "expenses?from=2024-02-01&to=2024-02-29",
+            "totals", "categories", "expenses/search?q=taxi&limit=20", "totals?from=2024-06-01"
+    };
+    private static final String NEW_EXPENSE =
+            "{\"description\":\"Coffee\",\"amount\":3.2,\"categoryId\":1,\"date\":\"2024-05-01\"}";
+    // Hands each benchmark thread its own session
+    private static final AtomicInteger NEXT_CLIENT = new AtomicInteger();
+
+    @Param({"2000"})
+    public int expensesPerUser;
+
+    private TestDatabase database;
+    private ExecutorService pool;
+    private HeadlessServer server;
+    private HttpClient client;
+    private String base;
+    private final List<String> tokens = new ArrayList<>();
+
+    @State(Scope.Thread)
+    public static class Client {
+
+        String token;
+        int count;
+
+        @Setup(Level.Trial)
+        public void setUp(ApiLoadBenchmark benchmark) {
+            token = benchmark.tokens.get(NEXT_CLIENT.getAndIncrement() % CLIENTS);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = TestDatabase.open("jmh-api-load", "auth.pbkdf2.iterations=1000");
+        pool = Executors.newVirtualThreadPerTaskExecutor();
+        AuthService authService = new AuthService(new AuthDAO(database.getConnection()),
+                new SessionRegistry(Duration.ofMinutes(30)));
+        CategoryService categoryService = new CategoryService(new CategoryDAO(database.getConnection()));
+        ExpenseService expenseService = new ExpenseService(new ExpenseDAO(database.getConnection()), categoryService);
+        String[] descriptions = {"Coffee", "Taxi home", "Groceries", "Cinema", "Electricity bill", "Lunch"};
+        for (int c = 0; c < CLIENTS; c++) {
+            authService.register("load-user-" + c, BenchmarkDatabase.PASSWORD, null);
+            Session session = authService.login("load-user-" + c, BenchmarkDatabase.PASSWORD);
+            tokens.add(session.getToken());
+            List<Expense> expenses = new ArrayList<>(expensesPerUser);
+            for (int i = 0; i < expensesPerUser; i++) {
+                expenses.add(new Expense(descriptions[i % descriptions.length] + " " + i, 100 + i * 37 % 9_900,
+                        1 + i % 6, LocalDate.of(2024, 1, 1).plusDays(i % 366), session.getUserId()));
+            }
+            expenseService.createExpenses(expenses);
+        }
+
+        server = new HeadlessServer(authService, expenseService, categoryService,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/";
+        client = HttpClient.newBuilder().executor(pool).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        server.stop();
+        pool.shutdown();
+        database.close();
+    }
+
+    @Benchmark
+    public byte[] request(Client caller) throws IOException, InterruptedException {
+        int n = caller.count++;
+        HttpRequest.Builder request = HttpRequest.newBuilder().header("Authorization", "Bearer " + caller.token);
+        if (n % 10 == 9) {
+            request.uri(URI.create(base + "expenses")).POST(HttpRequest.BodyPublishers.ofString(NEW_EXPENSE));
+        } else {
+            request.uri(URI.create(base + PATHS[n % PATHS.length])).GET();
+        }
+        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 400) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " for " + response.uri());
+        }
+        return response.body();
+    }
+}
@@ -0,0 +1,128 @@
+package com.emsi.expensetracker.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.util.DatabaseConnection;
+
+/**
+ * Temp-file SQLite database for the JMH suites, seeded with {@code rows}
+ * expenses spread evenly over {@link #USERS} users, the six default
+ * categories and five years of dates, oldest first. Seeding 10M rows takes
+ * minutes, so each size is built once into a template under
+ * {@code java.io.tmpdir/expense-tracker-jmh} and every trial works on its
+ * own copy; delete the directory to reseed.
+ */
+final class BenchmarkDatabase {
+
+    static final int USERS = 100;
+    static final String PASSWORD = "secret";
+
+    private static final Path TEMPLATES = Path.of(System.getProperty("java.io.tmpdir"), "expense-tracker-jmh");
+    private static final String[] DESCRIPTIONS = {
+            "Groceries", "Bus ticket", "Cinema", "Shoes", "Electricity bill", "Coffee", "Taxi", "Dinner out"
+    };
+
+    private final File file;
+    private final DatabaseConnection db;
+
+    private BenchmarkDatabase(File file, DatabaseConnection db) {
+        this.file = file;
+        this.db = db;
+    }
+
+    /**
+     * Opens a private copy of the template seeded with the given number of
+     * expenses, creating the template first if needed.
+     *
+     * @param rows Number of expenses in the database
+     * @return The opened database
+     * @throws IOException if the template cannot be created or copied
+     */
+    static BenchmarkDatabase open(int rows) throws IOException {
+        Path template = TEMPLATES.resolve("expenses-" + rows + ".db");
+        if (!Files.exists(template)) {
+            seed(template, rows);
+        }
+        File file = File.createTempFile("jmh-expenses", ".db");
+        Files.copy(template, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        DatabaseConnection db = new DatabaseConnection(properties(file, "balanced"));
+        db.initialize();
+        return new BenchmarkDatabase(file, db);
+    }
+
+    DatabaseConnection connection() {
+        return db;
+    }
+
+    /**
+     * Shuts the pools down and deletes the copy.
+     */
+    void close() {
+        db.shutdown();
+        file.delete();
+    }
+
+    private static void seed(Path template, int rows) throws IOException {
+        Files.createDirectories(TEMPLATES);
+        // Built beside the template and moved into place, so an interrupted run leaves no half-seeded file
+        File partial = File.createTempFile("seeding-", ".db", TEMPLATES.toFile());
+        DatabaseConnection db = new DatabaseConnection(properties(partial, "bulk-load"));
+        try {
+            db.initialize();
+            AuthDAO users = new AuthDAO(db);
+            for (int u = 0; u < USERS; u++) {
+                users.save(new User("bench-user-" + u, "bench@example.com", PASSWORD));
+            }
+            ExpenseDAO dao = new ExpenseDAO(db);
+            LocalDate start = LocalDate.of(2020, 1, 1);
+            List<Expense> batch = new ArrayList<>(50_000);
+            for (int i = 0; i < rows; i++) {
+                int userId = 1 + i % USERS;
+                int n = i / USERS;
+                batch.add(new Expense(DESCRIPTIONS[n % DESCRIPTIONS.length] + " " + n, 100 + (long) n * 7919 % 50_000,
+                        1 + n % 6, start.plusDays(i * 1826L / rows), userId));
+                if (batch.size() == 50_000 || i == rows - 1) {
+                    if (dao.saveAll(batch).size() != batch.size()) {
+                        throw new IOException("Could not seed " + template);
+                    }
+                    batch.clear();
+                }
+            }
+            // Fold the WAL into the file, so the template is one self-contained file
+            try (Connection conn = db.getWriteConnection(); Statement stmt = conn.createStatement()) {
+                stmt.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+            }
+        } catch (SQLException e) {
+            throw new IOException("Could not seed " + template, e);
+        } finally {
+            db.shutdown();
+        }
+        Files.deleteIfExists(Path.of(partial + "-wal"));
+        Files.deleteIfExists(Path.of(partial + "-shm"));
+        Files.move(partial.toPath(), template, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Properties properties(File file, String profile) {
+        Properties props = new Properties();
+        props.setProperty("db.url", "jdbc:sqlite:" + file.getAbsolutePath());
+        props.setProperty("db.profile", profile);
+        // Seeded passwords only need to verify, not resist guessing
+        props.setProperty("auth.pbkdf2.iterations", "1000");
+        return props;
+    }
+}
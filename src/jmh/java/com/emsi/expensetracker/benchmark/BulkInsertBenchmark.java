@@ -0,0 +1,90 @@
+package com.emsi.expensetracker.benchmark;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.util.TestDatabase;
+
+/**
+ * Rows per second through the per-row ExpenseDAO.save path and the batched
+ * saveAll path at each chunk size. Every iteration starts on an empty
+ * database, so the table does not grow across iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    private static final int ROWS = 10_000;
+
+    @Param({"100", "1000", "10000"})
+    public int chunkSize;
+
+    private List<Expense> expenses;
+    private TestDatabase database;
+    private ExpenseDAO dao;
+
+    @Setup(Level.Trial)
+    public void createExpenses() {
+        expenses = new ArrayList<>(ROWS);
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < ROWS; i++) {
+            expenses.add(new Expense("Expense " + i, 100 + (i % 500) * 10, 1 + i % 6, start.plusDays(i % 1500), 1));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        database = TestDatabase.open("jmh-bulk-insert", "db.pool.read.size=2");
+        new AuthDAO(database.getConnection()).save(new User("bench-user", "bench@example.com", BenchmarkDatabase.PASSWORD));
+        dao = new ExpenseDAO(database.getConnection());
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int perRowSave() {
+        int saved = 0;
+        for (Expense expense : expenses) {
+            if (dao.save(expense)) {
+                saved++;
+            }
+        }
+        return saved;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Expense> batchedSave() {
+        return dao.saveAll(expenses, chunkSize);
+    }
+}
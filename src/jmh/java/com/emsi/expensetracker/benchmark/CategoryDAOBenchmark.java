@@ -0,0 +1,65 @@
+package com.emsi.expensetracker.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emsi.expensetracker.dao.implementation.CategoryDAO;
+import com.emsi.expensetracker.model.Category;
+import com.emsi.expensetracker.service.implementation.CategoryService;
+
+/**
+ * A category lookup by primary key, straight from CategoryDAO and through
+ * the CategoryService cache the controllers use for every row they label.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryDAOBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private CategoryDAO dao;
+    private CategoryService service;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = BenchmarkDatabase.open(rows);
+        dao = new CategoryDAO(database.connection());
+        service = new CategoryService(dao);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Category findById() {
+        return dao.findById(1 + next++ % 6);
+    }
+
+    @Benchmark
+    public Category cachedGetCategoryById() {
+        return service.getCategoryById(1 + next++ % 6);
+    }
+}
@@ -0,0 +1,85 @@
+package com.emsi.expensetracker.benchmark;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.util.TestDatabase;
+
+/**
+ * ExpenseDAO.save throughput with {@value #THREADS} concurrent callers, one
+ * user each, for several writer group-commit sizes. A max batch of 1 commits
+ * every write on its own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(ConcurrentWriteBenchmark.THREADS)
+public class ConcurrentWriteBenchmark {
+
+    static final int THREADS = 32;
+
+    // Hands each benchmark thread its own user
+    private static final AtomicInteger NEXT_USER = new AtomicInteger();
+
+    @Param({"1", "16", "256"})
+    public int maxBatch;
+
+    private TestDatabase database;
+    private ExpenseDAO dao;
+
+    @State(Scope.Thread)
+    public static class Caller {
+
+        int userId;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            userId = 1 + NEXT_USER.getAndIncrement() % THREADS;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = TestDatabase.open("jmh-concurrent-write", "db.pool.read.size=2", "db.writer.max.batch=" + maxBatch);
+        AuthDAO authDAO = new AuthDAO(database.getConnection());
+        for (int t = 0; t < THREADS; t++) {
+            authDAO.save(new User("bench-user-" + t, "bench@example.com", BenchmarkDatabase.PASSWORD));
+        }
+        dao = new ExpenseDAO(database.getConnection());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public boolean save(Caller caller) {
+        return dao.save(new Expense("Expense " + caller.next++, 1000, 1, LocalDate.of(2024, 1, 1), caller.userId));
+    }
+}
@@ -0,0 +1,104 @@
+package com.emsi.expensetracker.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.CategoryDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.service.implementation.CategoryService;
+import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.importer.CsvExpenseImporter;
+import com.emsi.expensetracker.service.importer.ImportReport;
+import com.emsi.expensetracker.util.TestDatabase;
+
+/**
+ * One CsvExpenseImporter run over a generated bank statement per iteration,
+ * each into an empty database. Run with {@code -prof gc} for the allocation
+ * rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CsvImportBenchmark {
+
+    private static final String[] CATEGORIES = {"Food", "Transport", "Entertainment", "Shopping", "Bills", "Other"};
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"1", "4"})
+    public int workers;
+
+    private Path csv;
+    private ExecutorService executor;
+    private TestDatabase database;
+    private CsvExpenseImporter importer;
+
+    @Setup(Level.Trial)
+    public void writeStatement() throws IOException {
+        csv = Files.createTempFile("jmh-csv-import", ".csv");
+        try (BufferedWriter out = Files.newBufferedWriter(csv)) {
+            out.write("Date,Description,Amount,Category\n");
+            LocalDate start = LocalDate.of(2020, 1, 1);
+            for (int i = 0; i < rows; i++) {
+                out.write(start.plusDays(i % 1500) + ",\"Card payment " + i + ", ref " + (i * 31 % 1000) + "\","
+                        + (1 + i % 500) + "." + (10 + i % 90) + "," + CATEGORIES[i % CATEGORIES.length] + "\n");
+            }
+        }
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteStatement() throws IOException {
+        executor.shutdown();
+        Files.delete(csv);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        database = TestDatabase.open("jmh-csv-import", "db.pool.read.size=2");
+        new AuthDAO(database.getConnection()).save(new User("bench-user", "bench@example.com", BenchmarkDatabase.PASSWORD));
+        importer = new CsvExpenseImporter(new ExpenseService(new ExpenseDAO(database.getConnection())),
+                new CategoryService(new CategoryDAO(database.getConnection())), executor, workers,
+                CsvExpenseImporter.DEFAULT_CHUNK_RECORDS);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public ImportReport importFile() throws IOException {
+        ImportReport report = importer.importFile(csv, 1, 0);
+        if (report.getImported() != rows) {
+            throw new IllegalStateException("Imported " + report.getImported() + " of " + rows + " rows");
+        }
+        return report;
+    }
+}
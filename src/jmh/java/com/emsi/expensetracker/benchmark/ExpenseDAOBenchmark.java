@@ -0,0 +1,67 @@
+package com.emsi.expensetracker.benchmark;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Expense;
+
+/**
+ * ExpenseDAO.save and findByUserId against a seeded database. With
+ * {@link BenchmarkDatabase#USERS} users, findByUserId returns rows / 100
+ * expenses, so its time grows with the table while save should not.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseDAOBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private ExpenseDAO dao;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = BenchmarkDatabase.open(rows);
+        dao = new ExpenseDAO(database.connection());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public boolean save() {
+        int n = next++;
+        return dao.save(new Expense("Coffee " + n, 350 + n % 100, 1 + n % 6,
+                LocalDate.of(2024, 1, 1).plusDays(n % 365), 1 + n % BenchmarkDatabase.USERS));
+    }
+
+    @Benchmark
+    public List<Expense> findByUserId() {
+        return dao.findByUserId(1 + next++ % BenchmarkDatabase.USERS);
+    }
+}
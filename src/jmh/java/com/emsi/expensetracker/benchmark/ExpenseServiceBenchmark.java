@@ -0,0 +1,112 @@
+package com.emsi.expensetracker.benchmark;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.CategoryDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.CategoryTotal;
+import com.emsi.expensetracker.model.Money;
+import com.emsi.expensetracker.service.implementation.AuthService;
+import com.emsi.expensetracker.service.implementation.CategoryService;
+import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.session.Session;
+import com.emsi.expensetracker.service.session.SessionRegistry;
+
+/**
+ * ExpenseService totals and the dashboard pie chart for one user of a seeded
+ * database. The dashboard benchmarks repeat what
+ * {@code MainController.loadExpensePieChart} does for the "Last Year" filter,
+ * category totals then one labelled slice per category, without JavaFX:
+ * served from the session cache, from the in-memory day index after the
+ * cache is cleared, and from the SQL monthly rollup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpenseServiceBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private SessionRegistry sessions;
+    private ExpenseService expenseService;
+    private Session session;
+    private LocalDate from;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = BenchmarkDatabase.open(rows);
+        sessions = new SessionRegistry();
+        CategoryService categoryService = new CategoryService(new CategoryDAO(database.connection()));
+        expenseService = new ExpenseService(new ExpenseDAO(database.connection()), categoryService);
+        session = new AuthService(new AuthDAO(database.connection()), sessions)
+                .login("bench-user-0", BenchmarkDatabase.PASSWORD);
+        // Seeded dates run from 2020 to 2024
+        from = LocalDate.of(2024, 12, 31).minusYears(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessions.shutdown();
+        database.close();
+    }
+
+    @Benchmark
+    public long getTotalExpensesByUser() {
+        return expenseService.getTotalExpensesByUser(session.getUserId());
+    }
+
+    @Benchmark
+    public long totalBetween() {
+        return expenseService.totalBetween(session.getUserId(), from, null);
+    }
+
+    @Benchmark
+    public List<String> dashboardCached() {
+        return slices(expenseService.totalsByCategoryBetween(session, from, null));
+    }
+
+    @Benchmark
+    public List<String> dashboardDayIndex() {
+        session.clearCache();
+        return slices(expenseService.totalsByCategoryBetween(session, from, null));
+    }
+
+    @Benchmark
+    public List<String> dashboardRollup() {
+        return slices(expenseService.getCategoryTotals(session.getUserId(), from, null));
+    }
+
+    // The labels MainController.showCategoryTotals gives the pie chart slices
+    private List<String> slices(List<CategoryTotal> totals) {
+        List<String> slices = new ArrayList<>(totals.size());
+        for (CategoryTotal total : totals) {
+            String categoryName = total.getCategoryName() != null ? total.getCategoryName() : "Unknown";
+            slices.add(categoryName + " ($" + Money.format(total.getTotalCents()) + ")");
+        }
+        return slices;
+    }
+}
@@ -0,0 +1,131 @@
+package com.emsi.expensetracker.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.Money;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.service.exporter.ExportFormat;
+import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.util.TestDatabase;
+
+/**
+ * ExpenseService.export of one user's expenses as CSV and JSON Lines,
+ * against a naive export that maps every row to an Expense and formats
+ * Strings, and against writing the same number of bytes straight to a file
+ * (the I/O bound). Run with {@code -prof gc} for the bytes allocated per
+ * export.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    private TestDatabase database;
+    private ExpenseDAO dao;
+    private ExpenseService service;
+    private Path out;
+    private long csvBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = TestDatabase.open("jmh-export", "db.pool.read.size=2", "db.profile=bulk-load");
+        new AuthDAO(database.getConnection()).save(new User("bench-user", "bench@example.com", BenchmarkDatabase.PASSWORD));
+        dao = new ExpenseDAO(database.getConnection());
+        service = new ExpenseService(dao);
+
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        List<Expense> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Expense("Card payment " + i + (i % 10 == 0 ? ", \"online\"" : ""), 100 + i % 50_000,
+                    1 + i % 6, start.plusDays(i % 1500), 1));
+            if (batch.size() == 10_000 || i == rows - 1) {
+                dao.saveAll(batch);
+                batch.clear();
+            }
+        }
+        out = Files.createTempFile("jmh-export", ".out");
+        service.export(1, null, null, ExportFormat.CSV, out);
+        csvBytes = Files.size(out);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+        Files.deleteIfExists(out);
+    }
+
+    @Benchmark
+    public long csvExport() throws IOException {
+        return service.export(1, null, null, ExportFormat.CSV, out);
+    }
+
+    @Benchmark
+    public long jsonlExport() throws IOException {
+        return service.export(1, null, null, ExportFormat.JSONL, out);
+    }
+
+    // Row objects and Strings per line, the approach the export replaces
+    @Benchmark
+    public long naiveCsvExport() throws IOException {
+        long count = 0;
+        try (Stream<Expense> expenses = dao.streamByUserId(1); BufferedWriter writer = Files.newBufferedWriter(out)) {
+            writer.write("id,date,description,amount,category\n");
+            for (Expense expense : (Iterable<Expense>) expenses::iterator) {
+                String description = expense.getDescription().replace("\"", "\"\"");
+                writer.write(expense.getId() + "," + expense.getDate() + ",\"" + description + "\","
+                        + Money.format(expense.getAmountCents()) + "," + expense.getCategoryId() + "\n");
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Same number of bytes as the CSV export, with the same buffer size and no query
+    @Benchmark
+    public long rawWrite() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        try (FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long written = 0;
+            while (written < csvBytes) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), csvBytes - written));
+                written += channel.write(buffer);
+            }
+            return written;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.emsi.expensetracker.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.model.utils.UserKey;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.security.PasswordHashing;
+import com.emsi.expensetracker.util.security.Pbkdf2PasswordHasher;
+import com.emsi.expensetracker.util.security.Sha256PasswordHasher;
+
+/**
+ * One AuthDAO.findById login at each PBKDF2 cost, an unknown user (checked
+ * against the decoy hash, so it should cost the same), and the legacy
+ * SHA-256 check on its own. The login table does not grow with the expense
+ * seeds, so it has its own small database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginJmhBenchmark {
+
+    @Param({"310000", "100000"})
+    public int iterations;
+
+    private File file;
+    private DatabaseConnection db;
+    private ExecutorService hashingPool;
+    private AuthDAO dao;
+    private Sha256PasswordHasher sha256;
+    private String legacyHash;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = File.createTempFile("jmh-login", ".db");
+        Properties props = new Properties();
+        props.setProperty("db.url", "jdbc:sqlite:" + file.getAbsolutePath());
+        db = new DatabaseConnection(props);
+        db.initialize();
+        hashingPool = PasswordHashing.newHashingPool(Runtime.getRuntime().availableProcessors());
+        dao = new AuthDAO(db, new PasswordHashing(new Pbkdf2PasswordHasher(iterations),
+                List.of(new Sha256PasswordHasher()), hashingPool));
+        dao.save(new User("bench-user", "bench@example.com", BenchmarkDatabase.PASSWORD));
+        sha256 = new Sha256PasswordHasher();
+        legacyHash = sha256.hash(BenchmarkDatabase.PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hashingPool.shutdown();
+        db.shutdown();
+        file.delete();
+    }
+
+    @Benchmark
+    public User login() {
+        return dao.findById(new UserKey("bench-user", BenchmarkDatabase.PASSWORD));
+    }
+
+    @Benchmark
+    public User unknownUser() {
+        return dao.findById(new UserKey("nobody", BenchmarkDatabase.PASSWORD));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public boolean sha256Matches() {
+        return sha256.matches(BenchmarkDatabase.PASSWORD, legacyHash);
+    }
+}
@@ -0,0 +1,84 @@
+package com.emsi.expensetracker.benchmark;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Expense;
+
+/**
+ * Reads the whole expense table through the positional RowMapper used by
+ * ExpenseDAO.findAll and through the previous label-based mapping of
+ * SELECT * rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private BenchmarkDatabase database;
+    private ExpenseDAO dao;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = BenchmarkDatabase.open(rows);
+        dao = new ExpenseDAO(database.connection());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Expense> positional() {
+        return dao.findAll();
+    }
+
+    // The mapping ExpenseDAO used before the RowMapper layer
+    @Benchmark
+    public List<Expense> byLabel() throws SQLException {
+        List<Expense> expenses = new ArrayList<>();
+        try (Connection conn = database.connection().getReadConnection(); Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT * FROM expenses")) {
+            while (rs.next()) {
+                expenses.add(new Expense(
+                        rs.getInt("id"),
+                        rs.getString("description"),
+                        rs.getLong("amount_cents"),
+                        rs.getInt("category_id"),
+                        LocalDate.ofEpochDay(rs.getLong("epoch_day")),
+                        rs.getInt("user_id")
+                ));
+            }
+        }
+        return expenses;
+    }
+}
@@ -1,7 +1,16 @@
 package com.emsi.expensetracker;
 
 import java.io.IOException;
-
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.emsi.expensetracker.api.HeadlessServer;
 import com.emsi.expensetracker.controller.CategoryController;
 import com.emsi.expensetracker.controller.ExpenseListActionController;
 import com.emsi.expensetracker.controller.LoginController;
@@ -13,9 +22,13 @@ import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
 import com.emsi.expensetracker.service.implementation.AuthService;
 import com.emsi.expensetracker.service.implementation.CategoryService;
 import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.importer.CsvExpenseImporter;
+import com.emsi.expensetracker.service.session.Session;
+import com.emsi.expensetracker.service.session.SessionRegistry;
 import com.emsi.expensetracker.util.DatabaseConnection;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
@@ -24,17 +37,28 @@ import javafx.stage.Stage;
 public class MainApp extends Application {
 
     private final DatabaseConnection dbConnection = new DatabaseConnection();
+    // Service calls block on JDBC, so each runs on its own virtual thread
+    private final ExecutorService serviceExecutor = Executors.newVirtualThreadPerTaskExecutor();
     private final AuthDAO authDAO = new AuthDAO(dbConnection);
     private final ExpenseDAO expenseDAO = new ExpenseDAO(dbConnection);
     private final CategoryDAO categoryDAO = new CategoryDAO(dbConnection);
 
-    private final AuthService authService = new AuthService(authDAO);
-    private final ExpenseService expenseService = new ExpenseService(expenseDAO);
-    private final CategoryService categoryService = new CategoryService(categoryDAO);
+    private final SessionRegistry sessions = new SessionRegistry(
+            Duration.ofMinutes(Long.parseLong(dbConnection.getProperty("auth.session.idle.minutes", "30"))));
+
+    private final AuthService authService = new AuthService(authDAO, sessions, serviceExecutor);
+    private final CategoryService categoryService = new CategoryService(categoryDAO, serviceExecutor);
+    private final ExpenseService expenseService = new ExpenseService(expenseDAO, categoryService, serviceExecutor);
+    private final CsvExpenseImporter expenseImporter = new CsvExpenseImporter(expenseService, categoryService, serviceExecutor);
+
+    // Token of this window's session; resolving it on every use keeps the session from idling out
+    private volatile String sessionToken;
 
     @Override
     public void init() {
         dbConnection.initialize();
+        sessions.addLogoutListener(expenseService::forgetUser);
+        categoryService.addDeleteListener(expenseService::categoryDeleted);
     }
 
     @Override
@@ -61,27 +85,126 @@ public class MainApp extends Application {
         return new ExpenseListActionController(this, authService, expenseService, categoryService);
     }
 
-   
-
     public CategoryController createCategoryController() {
         return new CategoryController(this, categoryService, authService);
     }
 
     public MainController createMainController() {
-        return new MainController(this, authService, expenseService, categoryService);
+        return new MainController(this, authService, expenseService, categoryService, expenseImporter);
+    }
+
+    // The logged-in session, or null before login and once it expired
+    public Session getSession() {
+        return authService.getSession(sessionToken);
     }
 
+    public void setSession(Session session) {
+        sessionToken = session != null ? session.getToken() : null;
+    }
+
+    // Hand the result of an async service call to the FX thread
+    public <T> CompletableFuture<Void> onFxThread(CompletableFuture<T> call, Consumer<? super T> action) {
+        return call.thenAcceptAsync(action, Platform::runLater)
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    return null;
+                });
+    }
 
+    // Same, but a failed call runs onFailure on the FX thread so the view can recover
+    public <T> CompletableFuture<Void> onFxThread(CompletableFuture<T> call, Consumer<? super T> action,
+            Consumer<? super Throwable> onFailure) {
+        return call.<Void>handleAsync((result, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                onFailure.accept(error);
+            } else {
+                action.accept(result);
+            }
+            return null;
+        }, Platform::runLater).exceptionally(e -> {
+            e.printStackTrace();
+            return null;
+        });
+    }
 
     @Override
     public void stop() {
+        serviceExecutor.shutdown();
+        try {
+            serviceExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sessions.shutdown();
         dbConnection.shutdown();
     }
 
     public static void main(String[] args) {
+        if (List.of(args).contains("--rebuild-rollups")) {
+            rebuildRollups();
+            return;
+        }
+        if (List.of(args).contains("--headless")) {
+            runHeadless(args);
+            return;
+        }
         launch(args);
     }
 
+    // Serve the JSON API instead of the UI until the process is stopped; --port overrides api.port
+    private static void runHeadless(String[] args) {
+        DatabaseConnection db = new DatabaseConnection();
+        db.initialize();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        SessionRegistry sessions = new SessionRegistry(
+                Duration.ofMinutes(Long.parseLong(db.getProperty("auth.session.idle.minutes", "30"))));
+        AuthService auth = new AuthService(new AuthDAO(db), sessions, executor);
+        CategoryService categories = new CategoryService(new CategoryDAO(db), executor);
+        ExpenseService expenses = new ExpenseService(new ExpenseDAO(db), categories, executor);
+        sessions.addLogoutListener(expenses::forgetUser);
+        categories.addDeleteListener(expenses::categoryDeleted);
+
+        int port = Integer.parseInt(db.getProperty("api.port", String.valueOf(HeadlessServer.DEFAULT_PORT)));
+        int portArg = List.of(args).indexOf("--port");
+        if (portArg >= 0 && portArg + 1 < args.length) {
+            port = Integer.parseInt(args[portArg + 1]);
+        }
+        HeadlessServer server;
+        try {
+            server = new HeadlessServer(auth, expenses, categories,
+                    new InetSocketAddress(db.getProperty("api.host", "127.0.0.1"), port));
+        } catch (IOException e) {
+            System.err.println("Could not start the API on port " + port + ": " + e.getMessage());
+            db.shutdown();
+            return;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            executor.shutdown();
+            sessions.shutdown();
+            db.shutdown();
+        }));
+        server.start();
+        InetSocketAddress address = server.getAddress();
+        System.out.println("API listening on http://" + address.getHostString() + ":" + address.getPort() + "/api/");
+    }
+
+    // Repair the monthly totals rollup and the search index without starting the UI
+    private static void rebuildRollups() {
+        DatabaseConnection db = new DatabaseConnection();
+        try {
+            db.initialize();
+            ExpenseService service = new ExpenseService(new ExpenseDAO(db));
+            boolean rebuilt = service.rebuildMonthlyTotals();
+            System.out.println(rebuilt ? "Monthly totals rebuilt" : "Failed to rebuild monthly totals");
+            rebuilt = service.rebuildSearchIndex();
+            System.out.println(rebuilt ? "Search index rebuilt" : "Failed to rebuild search index");
+        } finally {
+            db.shutdown();
+        }
+    }
+
     public Scene loadScene(String fxmlFile, Object controller) {
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlFile));
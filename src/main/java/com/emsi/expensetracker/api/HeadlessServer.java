@@ -0,0 +1,417 @@
+package com.emsi.expensetracker.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.emsi.expensetracker.model.Category;
+import com.emsi.expensetracker.model.CategoryTotal;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.ExpenseView;
+import com.emsi.expensetracker.model.Money;
+import com.emsi.expensetracker.service.exporter.ExportFormat;
+import com.emsi.expensetracker.service.implementation.AuthService;
+import com.emsi.expensetracker.service.implementation.CategoryService;
+import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.session.Session;
+import com.emsi.expensetracker.service.session.SessionClosedException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * JSON over HTTP for scripts and other local tools, backed by the same
+ * services as the JavaFX front end. Every request runs on its own virtual
+ * thread, so blocking service calls never hold up other requests.
+ *
+ * Clients log in with {@code POST /api/auth/login} and send the returned
+ * token as {@code Authorization: Bearer <token>}; every other call acts
+ * within that session. Routes:
+ *
+ * <pre>
+ * POST   /api/auth/register        {"username", "password", "email"}
+ * POST   /api/auth/login           {"username", "password"} -> {"token"}
+ * POST   /api/auth/logout
+ * GET    /api/expenses             ?from=&amp;to=&amp;format=json|jsonl|csv, streamed
+ * POST   /api/expenses             {"description", "amount", "categoryId", "date"} -> {"id"}
+ * GET    /api/expenses/search      ?q=&amp;limit=
+ * GET    /api/expenses/{id}
+ * PUT    /api/expenses/{id}        same body as POST
+ * DELETE /api/expenses/{id}
+ * GET    /api/categories
+ * POST   /api/categories           {"name", "description"}
+ * DELETE /api/categories/{id}
+ * GET    /api/totals               ?from=&amp;to= -> {"total", "categories": [...]}
+ * </pre>
+ *
+ * Amounts are decimal numbers in major units and dates are ISO
+ * {@code yyyy-MM-dd}. An expense's {@code categoryId} must name a default
+ * category or one of the caller's own. Errors are answered as
+ * {@code {"error": "..."}}.
+ */
+public class HeadlessServer {
+
+    public static final int DEFAULT_PORT = 8080;
+
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int DEFAULT_SEARCH_LIMIT = 50;
+
+    static {
+        // The JDK server writes headers and body separately; with Nagle's
+        // algorithm on, every response waits ~40 ms for the client's delayed ACK.
+        // Read once when the first server is created, so set it before that.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final AuthService authService;
+    private final ExpenseService expenseService;
+    private final CategoryService categoryService;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+
+    /**
+     * Binds the server; it accepts requests once {@link #start()} is called.
+     *
+     * @param address Address to listen on, port 0 for any free port
+     * @throws IOException if the address cannot be bound
+     */
+    public HeadlessServer(AuthService authService, ExpenseService expenseService, CategoryService categoryService,
+            InetSocketAddress address) throws IOException {
+        this.authService = authService;
+        this.expenseService = expenseService;
+        this.categoryService = categoryService;
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        server.createContext("/api/", this::handle);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits up to a few seconds for running ones.
+     */
+    public void stop() {
+        server.stop(2);
+        executor.shutdown();
+    }
+
+    /**
+     * @return The bound address, with the actual port when 0 was requested
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private void handle(HttpExchange exchange) {
+        try {
+            route(exchange, exchange.getRequestMethod(), exchange.getRequestURI().getPath().substring("/api/".length()));
+        } catch (ApiException e) {
+            sendError(exchange, e.getStatus(), e.getMessage());
+        } catch (SessionClosedException e) {
+            // Logged out or expired after the token was resolved
+            sendError(exchange, 401, e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IOException e) {
+            // The client went away; nothing left to answer
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange, String method, String path) throws IOException {
+        String[] parts = path.split("/");
+        String resource = parts[0];
+        String item = parts.length > 1 ? parts[1] : null;
+        if (parts.length > 2) {
+            throw new ApiException(404, "Not found");
+        }
+        switch (resource) {
+            case "auth" -> auth(exchange, method, item);
+            case "expenses" -> {
+                Session session = session(exchange);
+                if (item == null) {
+                    expenses(exchange, method, session);
+                } else if (item.equals("search")) {
+                    requireMethod(method, "GET");
+                    search(exchange, session);
+                } else {
+                    expense(exchange, method, session, id(item));
+                }
+            }
+            case "categories" -> categories(exchange, method, session(exchange), item == null ? null : id(item));
+            case "totals" -> {
+                requireMethod(method, "GET");
+                totals(exchange, session(exchange));
+            }
+            default -> throw new ApiException(404, "Not found");
+        }
+    }
+
+    private void auth(HttpExchange exchange, String method, String action) throws IOException {
+        requireMethod(method, "POST");
+        if ("logout".equals(action)) {
+            authService.logout(authService.getSession(token(exchange)));
+            sendEmpty(exchange, 204);
+            return;
+        }
+        Map<String, String> body = body(exchange);
+        String username = required(body, "username");
+        String password = required(body, "password");
+        if ("register".equals(action)) {
+            if (!authService.register(username, password, body.get("email"))) {
+                throw new ApiException(409, "Username already exists");
+            }
+            sendJson(exchange, 201, "{}");
+        } else if ("login".equals(action)) {
+            Session session = authService.login(username, password);
+            if (session == null) {
+                throw new ApiException(401, "Invalid username or password");
+            }
+            sendJson(exchange, 200, Json.quote(new StringBuilder("{\"token\":"), session.getToken()).append('}').toString());
+        } else {
+            throw new ApiException(404, "Not found");
+        }
+    }
+
+    private void expenses(HttpExchange exchange, String method, Session session) throws IOException {
+        if (method.equals("POST")) {
+            Expense expense = expense(body(exchange), session);
+            if (!expenseService.createExpense(session, expense)) {
+                throw new ApiException(500, "Expense could not be saved");
+            }
+            sendJson(exchange, 201, "{\"id\":" + expense.getId() + "}");
+            return;
+        }
+        requireMethod(method, "GET");
+        Map<String, String> query = query(exchange);
+        ExportFormat format = switch (query.getOrDefault("format", "json")) {
+            case "json" -> ExportFormat.JSON;
+            case "jsonl" -> ExportFormat.JSONL;
+            case "csv" -> ExportFormat.CSV;
+            default -> throw new ApiException(400, "Unknown format: " + query.get("format"));
+        };
+        LocalDate from = date(query.get("from"));
+        LocalDate to = date(query.get("to"));
+        exchange.getResponseHeaders().set("Content-Type", switch (format) {
+            case JSON -> "application/json; charset=utf-8";
+            case JSONL -> "application/x-ndjson; charset=utf-8";
+            case CSV -> "text/csv; charset=utf-8";
+        });
+        // Chunked: rows go from the database cursor to the socket without being collected
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            expenseService.export(session, from, to, format, out);
+        }
+    }
+
+    private void search(HttpExchange exchange, Session session) throws IOException {
+        Map<String, String> query = query(exchange);
+        int limit = query.containsKey("limit") ? Integer.parseInt(query.get("limit")) : DEFAULT_SEARCH_LIMIT;
+        List<ExpenseView> results = expenseService.searchExpenses(session, query.getOrDefault("q", ""), limit);
+        StringBuilder json = new StringBuilder("[");
+        for (ExpenseView view : results) {
+            appendExpense(json.length() > 1 ? json.append(",\n") : json, view, view.getCategoryName());
+        }
+        sendJson(exchange, 200, json.append(']').toString());
+    }
+
+    private void expense(HttpExchange exchange, String method, Session session, int id) throws IOException {
+        switch (method) {
+            case "GET" -> {
+                Expense expense = expenseService.getExpense(session, id);
+                if (expense == null) {
+                    throw new ApiException(404, "Expense not found");
+                }
+                Category category = categoryService.getCategoryById(expense.getCategoryId());
+                sendJson(exchange, 200, appendExpense(new StringBuilder(), expense,
+                        category != null ? category.getName() : null).toString());
+            }
+            case "PUT" -> {
+                Expense expense = expense(body(exchange), session);
+                expense.setId(id);
+                if (!expenseService.updateExpense(session, expense)) {
+                    throw new ApiException(404, "Expense not found");
+                }
+                sendEmpty(exchange, 204);
+            }
+            case "DELETE" -> {
+                if (!expenseService.deleteExpense(session, id)) {
+                    throw new ApiException(404, "Expense not found");
+                }
+                sendEmpty(exchange, 204);
+            }
+            default -> throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    private void categories(HttpExchange exchange, String method, Session session, Integer id) throws IOException {
+        if (id != null) {
+            requireMethod(method, "DELETE");
+            if (!categoryService.deleteCategory(session, id)) {
+                throw new ApiException(404, "Category not found");
+            }
+            sendEmpty(exchange, 204);
+        } else if (method.equals("POST")) {
+            Map<String, String> body = body(exchange);
+            if (!categoryService.createCategory(session, required(body, "name"), body.get("description"))) {
+                throw new ApiException(409, "Category already exists");
+            }
+            sendJson(exchange, 201, "{}");
+        } else {
+            requireMethod(method, "GET");
+            StringBuilder json = new StringBuilder("[");
+            for (Category category : categoryService.getAvailableCategories(session)) {
+                if (json.length() > 1) {
+                    json.append(",\n");
+                }
+                json.append("{\"id\":").append(category.getId()).append(",\"name\":");
+                Json.quote(json, category.getName()).append(",\"description\":");
+                Json.quote(json, category.getDescription()).append(",\"default\":").append(category.getUserId() == 0)
+                        .append('}');
+            }
+            sendJson(exchange, 200, json.append(']').toString());
+        }
+    }
+
+    private void totals(HttpExchange exchange, Session session) throws IOException {
+        Map<String, String> query = query(exchange);
+        List<CategoryTotal> totals = expenseService.totalsByCategoryBetween(session, date(query.get("from")),
+                date(query.get("to")));
+        long total = 0;
+        StringBuilder categories = new StringBuilder("[");
+        for (CategoryTotal categoryTotal : totals) {
+            total += categoryTotal.getTotalCents();
+            if (categories.length() > 1) {
+                categories.append(",\n");
+            }
+            categories.append("{\"categoryId\":").append(categoryTotal.getCategoryId()).append(",\"category\":");
+            Json.quote(categories, categoryTotal.getCategoryName())
+                    .append(",\"total\":").append(Money.format(categoryTotal.getTotalCents())).append('}');
+        }
+        sendJson(exchange, 200, "{\"total\":" + Money.format(total) + ",\"categories\":" + categories + "]}");
+    }
+
+    private static StringBuilder appendExpense(StringBuilder json, Expense expense, String categoryName) {
+        json.append("{\"id\":").append(expense.getId())
+                .append(",\"date\":\"").append(expense.getDate()).append("\",\"description\":");
+        Json.quote(json, expense.getDescription())
+                .append(",\"amount\":").append(Money.format(expense.getAmountCents()))
+                .append(",\"categoryId\":").append(expense.getCategoryId())
+                .append(",\"category\":");
+        return Json.quote(json, categoryName).append('}');
+    }
+
+    // The category must be one the session's user can see: a default or one of their own
+    private Expense expense(Map<String, String> body, Session session) {
+        Expense expense = new Expense(required(body, "description"), Money.parse(required(body, "amount")),
+                Integer.parseInt(required(body, "categoryId")), LocalDate.parse(required(body, "date")), 0);
+        int categoryId = expense.getCategoryId();
+        if (categoryService.getAvailableCategories(session).stream().noneMatch(category -> category.getId() == categoryId)) {
+            throw new ApiException(400, "Unknown category: " + categoryId);
+        }
+        return expense;
+    }
+
+    private Session session(HttpExchange exchange) {
+        Session session = authService.getSession(token(exchange));
+        if (session == null) {
+            throw new ApiException(401, "Missing or expired session token");
+        }
+        return session;
+    }
+
+    private static String token(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring("Bearer ".length()).trim() : null;
+    }
+
+    private static Map<String, String> body(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "Request body too large");
+            }
+            return Json.parseObject(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static String required(Map<String, String> body, String name) {
+        String value = body.get(name);
+        if (value == null || value.isBlank()) {
+            throw new ApiException(400, "Missing field: " + name);
+        }
+        return value;
+    }
+
+    private static LocalDate date(String text) {
+        return text == null || text.isEmpty() ? null : LocalDate.parse(text);
+    }
+
+    private static int id(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "Not found");
+        }
+    }
+
+    private static void requireMethod(String method, String expected) {
+        if (!method.equals(expected)) {
+            throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sendEmpty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        try {
+            sendJson(exchange, status, Json.quote(new StringBuilder("{\"error\":"), message).append('}').toString());
+        } catch (IOException | IllegalStateException e) {
+            // Headers were already sent, e.g. a stream that failed half way
+        }
+    }
+}
@@ -1,10 +1,8 @@
 package com.emsi.expensetracker.controller;
 
-import java.util.List;
-
 import com.emsi.expensetracker.MainApp;
 import com.emsi.expensetracker.model.Category;
-import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.service.session.Session;
 import com.emsi.expensetracker.service.implementation.CategoryService;
 import com.emsi.expensetracker.service.implementation.AuthService;
 
@@ -14,6 +12,7 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.ListView;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.stage.Stage;
 
 public class CategoryController {
@@ -39,59 +38,71 @@ public class CategoryController {
 
     @FXML
     void initialize() {
-        User currentUser = authService.getCurrentUser();
-        if (currentUser != null) {
-            List<Category> categories = categoryService.getAvailableCategories(currentUser.getId());
-            categoryListView.getItems().setAll(categories);
+        Session session = app.getSession();
+        if (session != null) {
+            categoryListView.setPlaceholder(new ProgressIndicator());
+            loadCategories(session);
         } else {
             errorLabel.setText("No user logged in.");
             errorLabel.setVisible(true);
         }
     }
 
+    private void loadCategories(Session session) {
+        app.onFxThread(categoryService.getAvailableCategoriesAsync(session), categories -> {
+            categoryListView.getItems().setAll(categories);
+            categoryListView.setPlaceholder(new Label("No categories yet"));
+        }, error -> categoryListView.setPlaceholder(new Label("Could not load categories")));
+    }
+
     @FXML
     private void handleAddCategory() {
         String name = categoryNameField.getText().trim();
         String description = categoryDescriptionField.getText().trim();
-        User currentUser = authService.getCurrentUser();
+        Session session = app.getSession();
 
         if (name.isEmpty()) {
             showError("Category name is required.");
             return;
         }
-        if (currentUser == null) {
+        if (session == null) {
             showError("No user logged in.");
             return;
         }
 
-        Category category = new Category(name, description, currentUser.getId());
-        boolean result = categoryService.createCategory(name, description, currentUser.getId());
-
-        if (result) {
-            showSuccess("Category added.");
-            categoryListView.getItems().add(category);
-            categoryNameField.clear();
-            categoryDescriptionField.clear();
-        } else {
-            showError("Failed to add category.");
-        }
+        app.onFxThread(categoryService.createCategoryAsync(session, name, description), result -> {
+            if (result) {
+                showSuccess("Category added.");
+                // Reloaded rather than added locally, so the new category carries its generated ID
+                loadCategories(session);
+                categoryNameField.clear();
+                categoryDescriptionField.clear();
+            } else {
+                showError("Failed to add category.");
+            }
+        }, error -> showError("Failed to add category."));
     }
 
     @FXML
     private void handleDeleteCategory() {
-        User currentUser = authService.getCurrentUser();
+        Session session = app.getSession();
         Category selected = categoryListView.getSelectionModel().getSelectedItem();
         if (selected == null) {
             showError("Select a category to delete.");
             return;
         }
-        boolean result = categoryService.deleteCategory(selected.getId(), currentUser.getId());
-        if (result) {
-            showSuccess("Category deleted.");
-            categoryListView.getItems().remove(selected);
-        } else {
-            showError("Failed to delete category.");
+        if (session == null) {
+            showError("No user logged in.");
+            return;
         }
+        app.onFxThread(categoryService.deleteCategoryAsync(session, selected.getId()), result -> {
+            if (result) {
+                showSuccess("Category deleted.");
+                categoryListView.getItems().remove(selected);
+            } else {
+                showError("Failed to delete category.");
+            }
+        }, error -> showError("Failed to delete category."));
     }
 
     private void showError(String message) {
@@ -1,28 +1,43 @@
 package com.emsi.expensetracker.controller;
 
+import java.io.File;
+import java.nio.file.Path;
 import java.time.LocalDate;
-import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import com.emsi.expensetracker.MainApp;
-import com.emsi.expensetracker.model.Category;
-import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.ExpenseView;
+import com.emsi.expensetracker.model.Money;
 import com.emsi.expensetracker.service.implementation.AuthService;
 import com.emsi.expensetracker.service.implementation.CategoryService;
+import com.emsi.expensetracker.service.exporter.ExportFormat;
 import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.session.Session;
 
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.ScrollBar;
 import javafx.scene.control.TableCell;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 public class ExpenseListActionController {
 
@@ -31,18 +46,33 @@ public class ExpenseListActionController {
     private final ExpenseService expenseService;
     private final CategoryService categoryService;
 
+    // Rows fetched per page while scrolling
+    private static final int PAGE_SIZE = 100;
+    // Search results shown at once
+    private static final int SEARCH_LIMIT = 200;
+
+    private final ObservableList<ExpenseView> expenses = FXCollections.observableArrayList();
+    private boolean allLoaded;
+    private boolean loading;
+    // Bumped on reload so pages requested before it are dropped
+    private int generation;
+
+    @FXML
+    private TextField searchField;
     @FXML
-    private TableView<Expense> expenseTable;
+    private Button exportButton;
     @FXML
-    private TableColumn<Expense, String> expenseColumn;
+    private TableView<ExpenseView> expenseTable;
     @FXML
-    private TableColumn<Expense, Double> amountColumn;
+    private TableColumn<ExpenseView, String> expenseColumn;
     @FXML
-    private TableColumn<Expense, String> categoryColumn;
+    private TableColumn<ExpenseView, Double> amountColumn;
     @FXML
-    private TableColumn<Expense, LocalDate> dateColumn;
+    private TableColumn<ExpenseView, String> categoryColumn;
     @FXML
-    private TableColumn<Expense, Void> actionsColumn;
+    private TableColumn<ExpenseView, LocalDate> dateColumn;
+    @FXML
+    private TableColumn<ExpenseView, Void> actionsColumn;
 
     public ExpenseListActionController(MainApp app, AuthService authService, ExpenseService expenseService, CategoryService categoryService) {
         this.app = app;
@@ -57,10 +87,8 @@ public class ExpenseListActionController {
         expenseColumn.setCellValueFactory(new PropertyValueFactory<>("description"));
         amountColumn.setCellValueFactory(new PropertyValueFactory<>("amount"));
         categoryColumn.setCellValueFactory(cellData -> {
-            Expense expense = cellData.getValue();
-            Category category = categoryService.getCategoryById(expense.getCategoryId());
-            String categoryName = category != null ? category.getName() : "Unknown";
-            return new javafx.beans.property.SimpleStringProperty(categoryName);
+            String categoryName = cellData.getValue().getCategoryName();
+            return new javafx.beans.property.SimpleStringProperty(categoryName != null ? categoryName : "Unknown");
         });
 
         dateColumn.setCellValueFactory(new PropertyValueFactory<>("date"));
@@ -89,18 +117,100 @@ public class ExpenseListActionController {
             }
         });
 
+        // Fetch further pages once the skin (and its scroll bar) exists
+        expenseTable.setItems(expenses);
+        expenseTable.skinProperty().addListener((obs, oldSkin, newSkin) -> Platform.runLater(this::installScrollPaging));
+
+        // Search once typing pauses; an empty box goes back to paging
+        PauseTransition searchDelay = new PauseTransition(Duration.millis(200));
+        searchDelay.setOnFinished(event -> refresh());
+        searchField.textProperty().addListener((obs, oldText, newText) -> searchDelay.playFromStart());
+
         // Load expense data
         loadExpenses();
     }
 
+    private void refresh() {
+        String query = searchField.getText();
+        if (query == null || query.isBlank()) {
+            loadExpenses();
+        } else {
+            search(query);
+        }
+    }
+
+    private void search(String query) {
+        Session session = app.getSession();
+        if (session == null) {
+            return;
+        }
+        generation++;
+        int requested = generation;
+        // Search results are not paged
+        allLoaded = true;
+        loading = false;
+        expenses.clear();
+        expenseTable.setPlaceholder(new ProgressIndicator());
+        app.onFxThread(expenseService.searchExpensesAsync(session, query, SEARCH_LIMIT), results -> {
+            if (requested != generation) {
+                return;
+            }
+            expenses.setAll(results);
+            expenseTable.setPlaceholder(new Label("No matching expenses"));
+        }, error -> {
+            if (requested == generation) {
+                expenseTable.setPlaceholder(new Label("Search failed"));
+            }
+        });
+    }
+
     private void loadExpenses() {
-        if (authService.getCurrentUser() != null) {
-            List<Expense> expenses = expenseService.getExpensesByUserId(authService.getCurrentUser().getId());
-            expenseTable.setItems(FXCollections.observableArrayList(expenses));
+        generation++;
+        expenses.clear();
+        allLoaded = false;
+        loading = false;
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        Session session = app.getSession();
+        if (allLoaded || loading || session == null) {
+            return;
+        }
+        loading = true;
+        expenseTable.setPlaceholder(new ProgressIndicator());
+        int requested = generation;
+        ExpenseView last = expenses.isEmpty() ? null : expenses.get(expenses.size() - 1);
+        app.onFxThread(expenseService.getExpensesPageAsync(session, last, PAGE_SIZE), page -> {
+            if (requested != generation) {
+                return;
+            }
+            loading = false;
+            allLoaded = page.size() < PAGE_SIZE;
+            expenses.addAll(page);
+            expenseTable.setPlaceholder(new Label("No expenses yet"));
+        }, error -> {
+            // Let the next scroll retry the page
+            if (requested == generation) {
+                loading = false;
+                expenseTable.setPlaceholder(new Label("Could not load expenses"));
+            }
+        });
+    }
+
+    private void installScrollPaging() {
+        for (Node node : expenseTable.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                bar.valueProperty().addListener((obs, oldValue, newValue) -> {
+                    if (newValue.doubleValue() >= bar.getMax() * 0.9) {
+                        loadNextPage();
+                    }
+                });
+            }
         }
     }
 
-    private void handleEdit(Expense expense) {
+    private void handleEdit(ExpenseView expense) {
         if (expense == null) {
             return;
         }
@@ -112,7 +222,7 @@ public class ExpenseListActionController {
 
     }
 
-    private void handleDelete(Expense expense) {
+    private void handleDelete(ExpenseView expense) {
         if (expense == null) {
             return;
         }
@@ -124,25 +234,29 @@ public class ExpenseListActionController {
         alert.setContentText("Are you sure you want to delete this expense? This action cannot be undone.");
 
         Optional<ButtonType> result = alert.showAndWait();
+        Session session = app.getSession();
+        if (session == null) {
+            showError("Session expired. Please log in again.");
+            return;
+        }
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            boolean deleted = expenseService.deleteExpense(expense.getId());
-            if (deleted) {
-                loadExpenses(); // Refresh table
-                showInfo("Expense deleted successfully!");
-            } else {
-                showError("Failed to delete expense.");
-            }
+            app.onFxThread(expenseService.deleteExpenseAsync(session, expense.getId()), deleted -> {
+                if (deleted) {
+                    refresh(); // Refresh table
+                    showInfo("Expense deleted successfully!");
+                } else {
+                    showError("Failed to delete expense.");
+                }
+            }, error -> showError("Failed to delete expense."));
         }
     }
 
-    private void handleView(Expense expense) {
+    private void handleView(ExpenseView expense) {
         if (expense == null) {
             return;
         }
 
-        // Get category name
-        Category category = categoryService.getCategoryById(expense.getCategoryId());
-        String categoryName = category != null ? category.getName() : "Unknown";
+        String categoryName = expense.getCategoryName() != null ? expense.getCategoryName() : "Unknown";
 
         // Show expense details
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
@@ -150,13 +264,50 @@ public class ExpenseListActionController {
         alert.setHeaderText("Expense Information");
         alert.setContentText(
                 "Description: " + expense.getDescription() + "\n"
-                + "Amount: $" + String.format("%.2f", expense.getAmount()) + "\n"
+                + "Amount: $" + Money.format(expense.getAmountCents()) + "\n"
                 + "Category: " + categoryName + "\n"
                 + "Date: " + expense.getDate()
         );
         alert.showAndWait();
     }
 
+    @FXML
+    private void handleExport() {
+        Session session = app.getSession();
+        if (session == null) {
+            return;
+        }
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Export Expenses");
+        chooser.setInitialFileName("expenses.csv");
+        for (ExportFormat format : ExportFormat.values()) {
+            chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter(
+                    format.name() + " files", "*." + format.getExtension()));
+        }
+        File file = chooser.showSaveDialog(expenseTable.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        // The export streams every expense of the user, so it runs off the FX thread
+        exportButton.setDisable(true);
+        Path path = file.toPath();
+        CompletableFuture<Long> call = expenseService.exportAsync(session, null, null,
+                ExportFormat.forFile(path), path)
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    return -1L;
+                });
+        app.onFxThread(call, rows -> {
+            exportButton.setDisable(false);
+            if (rows >= 0) {
+                showInfo("Exported " + rows + " expenses to " + file.getName());
+            } else {
+                showError("Failed to export expenses.");
+            }
+        });
+    }
+
     @FXML
     private void handleBack() {
         MainController controller = app.createMainController();
@@ -17,6 +17,10 @@ public class LoginController {
     private PasswordField passwordField;
     @FXML
     private Label errorLabel;
+    @FXML
+    private ProgressIndicator loginProgress;
+    @FXML
+    private Button loginButton;
 
     public LoginController(MainApp app, AuthService authService) {
         this.authService = authService;
@@ -33,11 +37,19 @@ public class LoginController {
             return;
         }
 
-        if (authService.login(username, password)) {
-            loadMainView();
-        } else {
-            showError("Invalid username or password");
-        }
+        setBusy(true);
+        app.onFxThread(authService.loginAsync(username, password), session -> {
+            setBusy(false);
+            if (session != null) {
+                app.setSession(session);
+                loadMainView();
+            } else {
+                showError("Invalid username or password");
+            }
+        }, error -> {
+            setBusy(false);
+            showError("Login failed. Please try again.");
+        });
     }
 
     @FXML
@@ -57,6 +69,14 @@ public class LoginController {
         stage.setScene(scene);
     }
 
+    private void setBusy(boolean busy) {
+        loginProgress.setVisible(busy);
+        loginButton.setDisable(busy);
+        if (busy) {
+            errorLabel.setVisible(false);
+        }
+    }
+
     private void showError(String message) {
         errorLabel.setText(message);
         errorLabel.setVisible(true);
@@ -1,19 +1,23 @@
 package com.emsi.expensetracker.controller;
 
+import java.io.File;
 import java.net.URL;
 import java.time.LocalDate;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 
 import com.emsi.expensetracker.MainApp;
 import com.emsi.expensetracker.model.Category;
-import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.CategoryTotal;
+import com.emsi.expensetracker.model.Money;
 import com.emsi.expensetracker.service.implementation.AuthService;
 import com.emsi.expensetracker.service.implementation.CategoryService;
 import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.importer.CsvExpenseImporter;
+import com.emsi.expensetracker.service.importer.ImportError;
+import com.emsi.expensetracker.service.importer.ImportReport;
+import com.emsi.expensetracker.service.session.Session;
 
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
@@ -22,21 +26,31 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.Scene;
 import javafx.scene.chart.PieChart;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 public class MainController implements Initializable {
 
+    private static final String IMPORT_FALLBACK_CATEGORY = "Other";
+    private static final int IMPORT_ERRORS_SHOWN = 10;
+
     AuthService authService;
     ExpenseService expenseService;
     CategoryService categoryService;
+    CsvExpenseImporter expenseImporter;
     MainApp app;
 
-    public MainController(MainApp app, AuthService authService, ExpenseService expenseService, CategoryService categoryService) {
+    public MainController(MainApp app, AuthService authService, ExpenseService expenseService, CategoryService categoryService,
+            CsvExpenseImporter expenseImporter) {
         this.authService = authService;
         this.expenseService = expenseService;
         this.categoryService = categoryService;
+        this.expenseImporter = expenseImporter;
         this.app = app;
     }
 
@@ -49,10 +63,18 @@ public class MainController implements Initializable {
     @FXML
     private ComboBox<String> dateFilterComboBox;
 
+    @FXML
+    private ProgressIndicator chartProgress;
+
+    @FXML
+    private Button importButton;
+
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        if (authService.getCurrentUser() != null) {
-            userLabel.setText("Welcome, " + authService.getCurrentUser().getUsername() + "!");
+        Session session = app.getSession();
+        if (session != null) {
+            userLabel.setText("Welcome, " + session.getUser().getUsername() + "!");
+            categoryService.warmCacheAsync(session.getUserId());
 
             // Initialize date filter options
             ObservableList<String> filterOptions = FXCollections.observableArrayList(
@@ -92,32 +114,33 @@ public class MainController implements Initializable {
     }
 
     private void loadExpensePieChart() {
-        // Clear existing data first
-        expensePieChart.getData().clear();
-
-        int userId = authService.getCurrentUser().getId();
-        List<Expense> expenses = expenseService.getExpensesByUserId(userId);
-
-        // Apply date filter
-        LocalDate filterStartDate = getFilterStartDate();
-        if (filterStartDate != null) {
-            expenses = expenses.stream()
-                .filter(expense -> expense.getDate() != null && !expense.getDate().isBefore(filterStartDate))
-                .collect(Collectors.toList());
+        Session session = app.getSession();
+        if (session == null) {
+            return;
         }
+        String filterText = dateFilterComboBox.getValue();
+        chartProgress.setVisible(true);
+        // Totals come from the in-memory day index and are cached in the session per filter
+        app.onFxThread(expenseService.totalsByCategoryBetweenAsync(session, getFilterStartDate(), null), categoryTotals -> {
+            // Ignore results for a filter that is no longer selected
+            if (filterText.equals(dateFilterComboBox.getValue())) {
+                showCategoryTotals(categoryTotals);
+            }
+        }, error -> {
+            chartProgress.setVisible(false);
+            expensePieChart.getData().setAll(new PieChart.Data("Could not load expenses", 1));
+        });
+    }
 
-        // Group expenses by category
-        Map<Integer, Double> categoryTotals = new HashMap<>();
-        for (Expense expense : expenses) {
-            int categoryId = expense.getCategoryId();
-            categoryTotals.merge(categoryId, expense.getAmount(), Double::sum);
-        }
+    private void showCategoryTotals(List<CategoryTotal> categoryTotals) {
+        chartProgress.setVisible(false);
+        // Clear existing data first
+        expensePieChart.getData().clear();
 
         // Create pie chart data
-        for (Map.Entry<Integer, Double> entry : categoryTotals.entrySet()) {
-            Category category = categoryService.getCategoryById(entry.getKey());
-            String categoryName = category != null ? category.getName() : "Unknown";
-            expensePieChart.getData().add(new PieChart.Data(categoryName + " ($" + String.format("%.2f", entry.getValue()) + ")", entry.getValue()));
+        for (CategoryTotal total : categoryTotals) {
+            String categoryName = total.getCategoryName() != null ? total.getCategoryName() : "Unknown";
+            expensePieChart.getData().add(new PieChart.Data(categoryName + " ($" + Money.format(total.getTotalCents()) + ")", Money.toDouble(total.getTotalCents())));
         }
 
         if (expensePieChart.getData().isEmpty()) {
@@ -147,6 +170,62 @@ public class MainController implements Initializable {
 
 
 
+    @FXML
+    private void handleImport() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Import Bank Statement");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = chooser.showOpenDialog(userLabel.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        Session session = app.getSession();
+        if (session == null) {
+            return;
+        }
+        int userId = session.getUserId();
+        importButton.setDisable(true);
+        chartProgress.setVisible(true);
+        // Lines without a known category go to "Other" when the user has it
+        CompletableFuture<ImportReport> call = categoryService.getAvailableCategoriesAsync(session)
+                .thenCompose(categories -> expenseImporter.importFileAsync(file.toPath(), userId, categories.stream()
+                        .filter(category -> category.getName().equalsIgnoreCase(IMPORT_FALLBACK_CATEGORY))
+                        .mapToInt(Category::getId)
+                        .findFirst()
+                        .orElse(0)))
+                .handle((report, e) -> {
+                    if (e != null) {
+                        e.printStackTrace();
+                    }
+                    return report;
+                });
+        app.onFxThread(call, this::showImportReport);
+    }
+
+    private void showImportReport(ImportReport report) {
+        importButton.setDisable(false);
+        loadExpensePieChart();
+
+        Alert alert = new Alert(report != null ? Alert.AlertType.INFORMATION : Alert.AlertType.ERROR);
+        alert.setTitle("Import Bank Statement");
+        if (report == null) {
+            alert.setContentText("The file could not be imported.");
+        } else {
+            StringBuilder content = new StringBuilder(report.toString());
+            List<ImportError> errors = report.getErrors();
+            for (int i = 0; i < Math.min(errors.size(), IMPORT_ERRORS_SHOWN); i++) {
+                content.append('\n').append(errors.get(i));
+            }
+            if (report.getRejected() > IMPORT_ERRORS_SHOWN) {
+                content.append("\n...");
+            }
+            alert.setHeaderText(report.getRejected() == 0 ? "Import complete" : "Import complete with rejected lines");
+            alert.setContentText(content.toString());
+        }
+        alert.showAndWait();
+    }
+
     @FXML
     private void handleViewCategories() {
         CategoryController controller = app.createCategoryController();
@@ -161,7 +240,8 @@ public class MainController implements Initializable {
         Scene scene = app.loadScene("/fxml/LoginView.fxml", controller);
         Stage stage = (Stage) userLabel.getScene().getWindow();
         stage.setScene(scene);
-        authService.logout();
+        authService.logout(app.getSession());
+        app.setSession(null);
     }
 
 }
@@ -1,15 +1,15 @@
 package com.emsi.expensetracker.controller;
 
 import java.time.LocalDate;
-import java.util.List;
 
 import com.emsi.expensetracker.MainApp;
 import com.emsi.expensetracker.model.Category;
 import com.emsi.expensetracker.model.Expense;
-import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.model.Money;
 import com.emsi.expensetracker.service.implementation.AuthService;
 import com.emsi.expensetracker.service.implementation.CategoryService;
 import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.session.Session;
 
 import javafx.fxml.FXML;
 import javafx.scene.Scene;
@@ -52,17 +52,27 @@ public class ModifyExpenseController {
 
     @FXML
     void initialize() {
-        User currentUser = authService.getCurrentUser();
-        if (currentUser == null) {
+        Session session = app.getSession();
+        if (session == null) {
             System.err.println("Error: No user logged in!");
             errorLabel.setText("Error: No user logged in. Please log in again.");
             errorLabel.setVisible(true);
             return;
         }
-        List<Category> categories = categoryService.getAvailableCategories(currentUser.getId());
-        categoryChoice.getItems().addAll(categories);
-        categoryChoice.setValue(categoryService.getCategoryById(expense.getCategoryId()));
-        amountField.setText(String.valueOf(expense.getAmount()));
+        // Categories load in the background; the choice stays disabled until then
+        categoryChoice.setDisable(true);
+        app.onFxThread(categoryService.getAvailableCategoriesAsync(session), categories -> {
+            categoryChoice.getItems().addAll(categories);
+            // Select the expense's category from the list already loaded
+            for (Category category : categories) {
+                if (category.getId() == expense.getCategoryId()) {
+                    categoryChoice.setValue(category);
+                    break;
+                }
+            }
+            categoryChoice.setDisable(false);
+        }, error -> showError("Could not load categories."));
+        amountField.setText(Money.format(expense.getAmountCents()));
         descriptionField.setText(expense.getDescription());
         dateField.setValue(expense.getDate());
     }
@@ -90,10 +100,10 @@ public class ModifyExpenseController {
             return;
         }
 
-        double amount;
+        long amountCents;
         try {
-            amount = Double.parseDouble(amountText);
-            if (amount <= 0) {
+            amountCents = Money.parse(amountText);
+            if (amountCents <= 0) {
                 showError("Amount must be greater than zero");
                 return;
             }
@@ -102,28 +112,34 @@ public class ModifyExpenseController {
             return;
         }
 
-        User currentUser = authService.getCurrentUser();
-        if (currentUser == null) {
+        Session session = app.getSession();
+        if (session == null) {
             showError("Session expired. Please log in again.");
             return;
         }
 
         this.expense.setDescription(description);
-        this.expense.setAmount(amount);
+        this.expense.setAmountCents(amountCents);
         this.expense.setCategoryId(category.getId());
         this.expense.setDate(date);
 
-        boolean result = expenseService.updateExpense(this.expense);
-
-        if (result) {
-            showSuccess("Expense updated successfully!");
-            // Navigate back after a short delay so user can see the success message
-            javafx.animation.PauseTransition pause = new javafx.animation.PauseTransition(javafx.util.Duration.seconds(1.5));
-            pause.setOnFinished(event -> navigateToExpenseListView());
-            pause.play();
-        } else {
+        // The update runs off the FX thread; the button stays disabled until it is done
+        confirmationButton.setDisable(true);
+        app.onFxThread(expenseService.updateExpenseAsync(session, this.expense), result -> {
+            confirmationButton.setDisable(false);
+            if (result) {
+                showSuccess("Expense updated successfully!");
+                // Navigate back after a short delay so user can see the success message
+                javafx.animation.PauseTransition pause = new javafx.animation.PauseTransition(javafx.util.Duration.seconds(1.5));
+                pause.setOnFinished(event -> navigateToExpenseListView());
+                pause.play();
+            } else {
+                showError("Failed to save expense. Please try again.");
+            }
+        }, error -> {
+            confirmationButton.setDisable(false);
             showError("Failed to save expense. Please try again.");
-        }
+        });
     }
 
     private void navigateToExpenseListView() {
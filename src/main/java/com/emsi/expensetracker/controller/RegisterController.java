@@ -54,19 +54,22 @@ public class RegisterController {
             return;
         }
 
-        if (authService.register(username, password, email)) {
-            showSuccess("Account created! Redirecting to login...");
-            new Thread(() -> {
-                try {
-                    Thread.sleep(1500);
-                    javafx.application.Platform.runLater(this::handleBackToLogin);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }).start();
-        } else {
-            showError("Username already exists");
-        }
+        // Password hashing is deliberately slow, so it runs off the FX thread
+        app.onFxThread(authService.registerAsync(username, password, email), registered -> {
+            if (registered) {
+                showSuccess("Account created! Redirecting to login...");
+                new Thread(() -> {
+                    try {
+                        Thread.sleep(1500);
+                        javafx.application.Platform.runLater(this::handleBackToLogin);
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                }).start();
+            } else {
+                showError("Username already exists");
+            }
+        }, error -> showError("Registration failed. Please try again."));
     }
 
     @FXML
@@ -1,15 +1,15 @@
 package com.emsi.expensetracker.controller;
 
 import java.time.LocalDate;
-import java.util.List;
 
 import com.emsi.expensetracker.MainApp;
 import com.emsi.expensetracker.model.Category;
 import com.emsi.expensetracker.model.Expense;
-import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.model.Money;
 import com.emsi.expensetracker.service.implementation.AuthService;
 import com.emsi.expensetracker.service.implementation.CategoryService;
 import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.session.Session;
 
 import javafx.fxml.FXML;
 import javafx.scene.Scene;
@@ -51,15 +51,19 @@ public class SaveExpenseController {
 
     @FXML
     void initialize() {
-        User currentUser = authService.getCurrentUser();
-        if (currentUser == null) {
+        Session session = app.getSession();
+        if (session == null) {
             System.err.println("Error: No user logged in!");
             errorLabel.setText("Error: No user logged in. Please log in again.");
             errorLabel.setVisible(true);
             return;
         }
-        List<Category> categories = categoryService.getAvailableCategories(currentUser.getId());
-        categoryChoice.getItems().addAll(categories);
+        // Categories load in the background; the choice stays disabled until then
+        categoryChoice.setDisable(true);
+        app.onFxThread(categoryService.getAvailableCategoriesAsync(session), categories -> {
+            categoryChoice.getItems().addAll(categories);
+            categoryChoice.setDisable(false);
+        }, error -> showError("Could not load categories."));
 
         // Restrict DatePicker to only allow current and past dates
         dateField.setDayCellFactory(picker -> new DateCell() {
@@ -99,10 +103,10 @@ public class SaveExpenseController {
             return;
         }
 
-        double amount;
+        long amountCents;
         try {
-            amount = Double.parseDouble(amountText);
-            if (amount <= 0) {
+            amountCents = Money.parse(amountText);
+            if (amountCents <= 0) {
                 showError("Amount must be greater than zero");
                 return;
             }
@@ -111,30 +115,36 @@ public class SaveExpenseController {
             return;
         }
 
-        User currentUser = authService.getCurrentUser();
-        if (currentUser == null) {
+        Session session = app.getSession();
+        if (session == null) {
             showError("Session expired. Please log in again.");
             return;
         }
 
-        Expense expense = new Expense(description, amount, category.getId(), date, currentUser.getId());
-        boolean result = expenseService.createExpense(expense);
-
-        if (result) {
-            showSuccess("Expense saved successfully!");
-            clearForm();
-            // Optional: Navigate back to expense list or main view after a delay
-            new Thread(() -> {
-                try {
-                    Thread.sleep(1500);
-                    javafx.application.Platform.runLater(this::navigateToMainView);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-            }).start();
-        } else {
+        Expense expense = new Expense(description, amountCents, category.getId(), date, session.getUserId());
+        // The insert runs off the FX thread; the button stays disabled until it is done
+        confirmationButton.setDisable(true);
+        app.onFxThread(expenseService.createExpenseAsync(session, expense), result -> {
+            confirmationButton.setDisable(false);
+            if (result) {
+                showSuccess("Expense saved successfully!");
+                clearForm();
+                // Optional: Navigate back to expense list or main view after a delay
+                new Thread(() -> {
+                    try {
+                        Thread.sleep(1500);
+                        javafx.application.Platform.runLater(this::navigateToMainView);
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                }).start();
+            } else {
+                showError("Failed to save expense. Please try again.");
+            }
+        }, error -> {
+            confirmationButton.setDisable(false);
             showError("Failed to save expense. Please try again.");
-        }
+        });
     }
 
     private void clearForm() {
@@ -1,5 +1,17 @@
 package com.emsi.expensetracker.dao.base;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 import com.emsi.expensetracker.util.DatabaseConnection;
 
 /**
@@ -27,4 +39,144 @@ public abstract class BaseDAOClass<T, ID> implements BaseDAOInterface<T, ID> {
         this.dbConnection = dbConnection;
     }
 
+    /**
+     * Runs a query on a read connection and maps every row.
+     *
+     * @param sql The query, selecting the columns the mapper expects in order
+     * @param binder Sets the query parameters
+     * @param mapper Maps each row
+     * @return The mapped rows, empty list if none found or the query failed
+     */
+    protected <R> List<R> queryList(String sql, StatementBinder binder, RowMapper<R> mapper) {
+        List<R> results = new ArrayList<>();
+        try (Connection conn = dbConnection.getReadConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    results.add(mapper.map(rs));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return results;
+    }
+
+    /**
+     * Runs a query on a read connection and maps its first row.
+     *
+     * @param sql The query, selecting the columns the mapper expects in order
+     * @param binder Sets the query parameters
+     * @param mapper Maps the row
+     * @return The mapped row, null if none found or the query failed
+     */
+    protected <R> R queryOne(String sql, StatementBinder binder, RowMapper<R> mapper) {
+        try (Connection conn = dbConnection.getReadConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            binder.bind(stmt);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return mapper.map(rs);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Runs a query on a read connection and maps rows lazily as the returned
+     * stream is consumed. The connection, statement and result set stay open
+     * until the stream is fully consumed or closed, so callers should close
+     * it with try-with-resources, especially when they stop early. Unchecked
+     * exceptions thrown by the binder release the connection and propagate to
+     * the caller.
+     *
+     * @param sql The query, selecting the columns the mapper expects in order
+     * @param binder Sets the query parameters
+     * @param mapper Maps each row
+     * @return A lazily fetched stream of rows, empty if the query failed
+     */
+    protected <R> Stream<R> queryStream(String sql, StatementBinder binder, RowMapper<R> mapper) {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = dbConnection.getReadConnection();
+            stmt = conn.prepareStatement(sql);
+            stmt.setFetchSize(dbConnection.getFetchSize());
+            binder.bind(stmt);
+            ResultSet rs = stmt.executeQuery();
+            ResultSetSpliterator<R> cursor = new ResultSetSpliterator<>(conn, stmt, rs, mapper);
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException e) {
+            ResultSetSpliterator.closeQuietly(stmt);
+            ResultSetSpliterator.closeQuietly(conn);
+            e.printStackTrace();
+            return Stream.empty();
+        } catch (RuntimeException e) {
+            // No stream was returned, so nothing else would give the connection back
+            ResultSetSpliterator.closeQuietly(stmt);
+            ResultSetSpliterator.closeQuietly(conn);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a query on a read connection and hands every row to a handler as
+     * it is fetched, without collecting anything. Unchecked exceptions thrown
+     * by the handler stop the query and propagate to the caller.
+     *
+     * @param sql The query, selecting the columns the handler expects in order
+     * @param binder Sets the query parameters
+     * @param handler Handles each row
+     * @return The number of rows handled, -1 if the query failed
+     */
+    protected long queryEach(String sql, StatementBinder binder, RowHandler handler) {
+        try (Connection conn = dbConnection.getReadConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setFetchSize(dbConnection.getFetchSize());
+            binder.bind(stmt);
+            long rows = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                    rows++;
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return -1;
+        }
+    }
+
+    /**
+     * Waits for a write queued on the database writer. Failures are reported
+     * like the other DAO methods: the error is printed and false is returned.
+     *
+     * @param write The pending write
+     * @return The write's result, false if it failed
+     */
+    protected boolean awaitWrite(CompletableFuture<Boolean> write) {
+        try {
+            return write.join();
+        } catch (CompletionException e) {
+            e.getCause().printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Reads the rowid generated by the last insert on a connection.
+     *
+     * @param conn The connection the insert ran on
+     * @return The generated ID
+     * @throws SQLException if the query fails
+     */
+    protected int lastInsertId(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT last_insert_rowid()")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
 }
@@ -0,0 +1,22 @@
+package com.emsi.expensetracker.dao.base;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Consumes the current row of a result set without producing an object, for
+ * callers that copy rows straight to another destination. Like a
+ * {@link RowMapper}, a handler reads columns by position and must be paired
+ * with a query selecting the columns in the order it expects.
+ */
+@FunctionalInterface
+public interface RowHandler {
+
+    /**
+     * Handles the row the result set is positioned on.
+     *
+     * @param rs The result set, already advanced to a row
+     * @throws SQLException if a column cannot be read
+     */
+    void handle(ResultSet rs) throws SQLException;
+}
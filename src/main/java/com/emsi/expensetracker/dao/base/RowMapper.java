@@ -0,0 +1,25 @@
+package com.emsi.expensetracker.dao.base;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set to an object. Mappers read columns by
+ * position, so they must be paired with a query that selects an explicit
+ * column list in the order the mapper expects. A mapper is stateless and is
+ * shared by every query that selects the same columns.
+ *
+ * @param <T> The type produced for each row
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Maps the row the result set is positioned on.
+     *
+     * @param rs The result set, already advanced to a row
+     * @return The mapped object
+     * @throws SQLException if a column cannot be read
+     */
+    T map(ResultSet rs) throws SQLException;
+}
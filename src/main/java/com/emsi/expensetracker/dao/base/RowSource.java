@@ -0,0 +1,25 @@
+package com.emsi.expensetracker.dao.base;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Supplies rows for a bulk insert without producing an object per row, the
+ * write-side counterpart of {@link RowHandler}. A source binds parameters by
+ * position and must be paired with an insert naming the columns in the order
+ * it expects. Inserts may hold several rows per statement, so each row is
+ * bound from the parameter index it is given.
+ */
+@FunctionalInterface
+public interface RowSource {
+
+    /**
+     * Binds the parameters of the next row.
+     *
+     * @param stmt The insert statement to bind
+     * @param firstIndex Parameter index of the row's first column
+     * @return true if a row was bound, false once the source is exhausted
+     * @throws SQLException if a parameter cannot be bound
+     */
+    boolean next(PreparedStatement stmt, int firstIndex) throws SQLException;
+}
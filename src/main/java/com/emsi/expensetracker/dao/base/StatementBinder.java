@@ -0,0 +1,25 @@
+package com.emsi.expensetracker.dao.base;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Sets the parameters of a prepared statement before it is executed.
+ */
+@FunctionalInterface
+public interface StatementBinder {
+
+    /**
+     * A binder for statements without parameters.
+     */
+    StatementBinder NONE = stmt -> {
+    };
+
+    /**
+     * Binds the statement's parameters.
+     *
+     * @param stmt The statement to bind
+     * @throws SQLException if a parameter cannot be set
+     */
+    void bind(PreparedStatement stmt) throws SQLException;
+}
@@ -1,6 +1,5 @@
 package com.emsi.expensetracker.dao.implementation;
 
-import java.security.MessageDigest;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -11,45 +10,63 @@ import com.emsi.expensetracker.dao.base.BaseDAOClass;
 import com.emsi.expensetracker.model.User;
 import com.emsi.expensetracker.model.utils.UserKey;
 import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.security.PasswordHashing;
 
 /**
  * Data Access Object (DAO) for authentication-related database operations.
  * Handles user authentication, registration, and password hashing. Uses a
- * composite key (username and password) for user identification.
+ * composite key (username and password) for user identification: the user is
+ * looked up by its unique username and the password verified against the
+ * stored hash in constant time.
  */
 public class AuthDAO extends BaseDAOClass<User, UserKey> {
 
+    static final String FIND_BY_USERNAME = "SELECT id, username, email, password FROM users WHERE username = ?";
+
+    private final PasswordHashing passwordHashing;
+
     /**
-     * Constructs a new AuthDAO with the specified database connection.
+     * Constructs a new AuthDAO with the specified database connection, hashing
+     * passwords as configured by {@code auth.pbkdf2.iterations}.
      *
      * @param dbConnection The database connection to use for operations
      */
     public AuthDAO(DatabaseConnection dbConnection) {
+        this(dbConnection, PasswordHashing.fromConfig(dbConnection));
+    }
+
+    /**
+     * Constructs a new AuthDAO with the specified password hashing.
+     *
+     * @param dbConnection The database connection to use for operations
+     * @param passwordHashing Hashes new passwords and verifies stored ones
+     */
+    public AuthDAO(DatabaseConnection dbConnection, PasswordHashing passwordHashing) {
         super(dbConnection);
+        this.passwordHashing = passwordHashing;
     }
 
     /**
      * Saves a new user to the database with a hashed password. The password is
-     * automatically hashed using SHA-256 before storage.
+     * hashed with the current scheme (salted PBKDF2) before storage.
      *
      * @param user The user to save (password will be hashed)
      * @return true if the user was saved successfully, false otherwise
      */
     @Override
     public boolean save(User user) {
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(
-                "INSERT INTO users (username, password, email) VALUES (?, ?, ?)"
-        )) {
-            String hashedPassword = hashPassword(user.getPassword());
-            stmt.setString(1, user.getUsername());
-            stmt.setString(2, hashedPassword);
-            stmt.setString(3, user.getEmail());
-            stmt.executeUpdate();
-            return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
+        String hashedPassword = passwordHashing.hash(user.getPassword());
+        return awaitWrite(dbConnection.submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO users (username, password, email) VALUES (?, ?, ?)"
+            )) {
+                stmt.setString(1, user.getUsername());
+                stmt.setString(2, hashedPassword);
+                stmt.setString(3, user.getEmail());
+                stmt.executeUpdate();
+                return true;
+            }
+        }));
     }
 
     /**
@@ -77,20 +94,39 @@ public class AuthDAO extends BaseDAOClass<User, UserKey> {
     }
 
     /**
-     * Finds a user by their username and password credentials. The password is
-     * hashed and compared against the stored hash.
+     * Finds a user by their username and password credentials. The user is
+     * fetched by username and the password compared against the stored hash
+     * in constant time; unknown usernames take as long as wrong passwords. A
+     * hash in a legacy format or with fewer iterations than configured is
+     * replaced once the password has been verified.
      *
      * @param key The composite key containing username and password
      * @return The user if found with matching credentials, null otherwise
      */
     @Override
     public User findById(UserKey key) {
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(
-                "SELECT id, username, email FROM users WHERE username = ? AND password = ?"
-        )) {
-            String hashedPassword = hashPassword(key.getPassword());
-            stmt.setString(1, key.getUsername());
-            stmt.setString(2, hashedPassword);
+        User user = findByUsername(key.getUsername());
+        if (!passwordHashing.verify(key.getPassword(), user != null ? user.getPassword() : null)) {
+            return null;
+        }
+        if (passwordHashing.needsRehash(user.getPassword())) {
+            String upgraded = passwordHashing.hash(key.getPassword());
+            if (updatePassword(user.getId(), upgraded)) {
+                return new User(user.getId(), user.getUsername(), user.getEmail(), upgraded);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Finds a user by username alone, without checking a password.
+     *
+     * @param username The unique username
+     * @return The user with its stored password hash, or null if not found
+     */
+    public User findByUsername(String username) {
+        try (Connection conn = dbConnection.getReadConnection(); PreparedStatement stmt = conn.prepareStatement(FIND_BY_USERNAME)) {
+            stmt.setString(1, username);
 
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
@@ -98,7 +134,7 @@ public class AuthDAO extends BaseDAOClass<User, UserKey> {
                             rs.getInt("id"),
                             rs.getString("username"),
                             rs.getString("email"),
-                            hashedPassword
+                            rs.getString("password")
                     );
                 }
             }
@@ -109,6 +145,23 @@ public class AuthDAO extends BaseDAOClass<User, UserKey> {
         return null;
     }
 
+    /**
+     * Replaces a user's stored password hash.
+     *
+     * @param userId The user's ID
+     * @param hashedPassword The new hash, as produced by {@link PasswordHashing}
+     * @return true if the user was updated
+     */
+    public boolean updatePassword(int userId, String hashedPassword) {
+        return awaitWrite(dbConnection.submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement("UPDATE users SET password = ? WHERE id = ?")) {
+                stmt.setString(1, hashedPassword);
+                stmt.setInt(2, userId);
+                return stmt.executeUpdate() == 1;
+            }
+        }));
+    }
+
     /**
      * Retrieves all users from the database. Currently not implemented.
      *
@@ -119,26 +172,4 @@ public class AuthDAO extends BaseDAOClass<User, UserKey> {
         // Implementation here if needed
         return null;
     }
-
-    /**
-     * Hashes a password using SHA-256 algorithm. This method is private and
-     * used internally to secure passwords.
-     *
-     * @param password The plain text password to hash
-     * @return The hashed password as a hexadecimal string
-     * @throws RuntimeException if the SHA-256 algorithm is not available
-     */
-    private String hashPassword(String password) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(password.getBytes());
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hash) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
 }
@@ -1,16 +1,12 @@
 package com.emsi.expensetracker.dao.implementation;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.List;
 
 import com.emsi.expensetracker.dao.base.BaseDAOClass;
+import com.emsi.expensetracker.dao.base.RowMapper;
+import com.emsi.expensetracker.dao.base.StatementBinder;
 import com.emsi.expensetracker.model.Category;
-import com.emsi.expensetracker.service.implementation.CategoryService;
 import com.emsi.expensetracker.util.DatabaseConnection;
 
 /**
@@ -30,10 +26,32 @@ public class CategoryDAO extends BaseDAOClass<Category, Integer> {
 
     }
 
-    private DatabaseConnection databaseConnection;
+    /**
+     * Columns read by {@link #CATEGORY_MAPPER}, in mapping order.
+     */
+    static final String CATEGORY_COLUMNS = "id, name, description, user_id";
+
+    /**
+     * Maps a row selected with {@link #CATEGORY_COLUMNS}.
+     */
+    static final RowMapper<Category> CATEGORY_MAPPER = rs -> new Category(
+            rs.getInt(1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getInt(4)
+    );
 
+    // Read queries, package-private so QueryPlanTest checks the plans of the statements actually run
 
+    static final String FIND_BY_ID = "SELECT " + CATEGORY_COLUMNS + " FROM categories WHERE id = ?";
 
+    static final String FIND_BY_USER_ID = "SELECT " + CATEGORY_COLUMNS + " FROM categories WHERE user_id = ?";
+
+    static final String FIND_BY_NAME_AND_USER_ID = "SELECT " + CATEGORY_COLUMNS
+            + " FROM categories WHERE name = ? AND user_id = ?";
+
+    static final String FIND_DEFAULTS = "SELECT " + CATEGORY_COLUMNS
+            + " FROM categories WHERE user_id = 0 OR user_id IS NULL";
 
     /**
      * Finds a category by its unique identifier.
@@ -43,23 +61,7 @@ public class CategoryDAO extends BaseDAOClass<Category, Integer> {
      */
     @Override
     public Category findById(Integer id) {
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(
-                "SELECT * FROM categories WHERE id = ?")) {
-            stmt.setInt(1, id);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return new Category(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getInt("user_id")
-                    );
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        return queryOne(FIND_BY_ID, stmt -> stmt.setInt(1, id), CATEGORY_MAPPER);
     }
 
     /**
@@ -69,22 +71,7 @@ public class CategoryDAO extends BaseDAOClass<Category, Integer> {
      */
     @Override
     public List<Category> findAll() {
-        List<Category> categories = new ArrayList<>();
-        try (Connection conn = dbConnection.getConnection(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM categories")) {
-
-            while (rs.next()) {
-                Category category = new Category(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("description"),
-                        rs.getInt("user_id")
-                );
-                categories.add(category);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return categories;
+        return queryList("SELECT " + CATEGORY_COLUMNS + " FROM categories", StatementBinder.NONE, CATEGORY_MAPPER);
     }
 
     /**
@@ -95,17 +82,17 @@ public class CategoryDAO extends BaseDAOClass<Category, Integer> {
      */
     @Override
     public boolean save(Category category) {
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(
-                "INSERT INTO categories (name, description, user_id) VALUES (?, ?, ?)")) {
-            stmt.setString(1, category.getName());
-            stmt.setString(2, category.getDescription());
-            stmt.setInt(3, category.getUserId());
-            stmt.executeUpdate();
+        return awaitWrite(dbConnection.submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO categories (name, description, user_id) VALUES (?, ?, ?)")) {
+                stmt.setString(1, category.getName());
+                stmt.setString(2, category.getDescription());
+                stmt.setInt(3, category.getUserId());
+                stmt.executeUpdate();
+            }
+            category.setId(lastInsertId(conn));
             return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
-        }
+        }));
     }
 
     /**
@@ -116,18 +103,17 @@ public class CategoryDAO extends BaseDAOClass<Category, Integer> {
      */
     @Override
     public boolean update(Category category) {
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(
-                "UPDATE categories SET name = ?, description = ?, user_id = ? WHERE id = ?")) {
-            stmt.setString(1, category.getName());
-            stmt.setString(2, category.getDescription());
-            stmt.setInt(3, category.getUserId());
-            stmt.setInt(4, category.getId());
-            stmt.executeUpdate();
-            return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
+        return awaitWrite(dbConnection.submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE categories SET name = ?, description = ?, user_id = ? WHERE id = ?")) {
+                stmt.setString(1, category.getName());
+                stmt.setString(2, category.getDescription());
+                stmt.setInt(3, category.getUserId());
+                stmt.setInt(4, category.getId());
+                stmt.executeUpdate();
+                return true;
+            }
+        }));
     }
 
     /**
@@ -138,15 +124,14 @@ public class CategoryDAO extends BaseDAOClass<Category, Integer> {
      */
     @Override
     public boolean delete(Integer id) {
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(
-                "DELETE FROM categories WHERE id = ?")) {
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
-            return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
+        return awaitWrite(dbConnection.submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM categories WHERE id = ?")) {
+                stmt.setInt(1, id);
+                stmt.executeUpdate();
+                return true;
+            }
+        }));
     }
 
     /**
@@ -156,25 +141,7 @@ public class CategoryDAO extends BaseDAOClass<Category, Integer> {
      * @return List of categories belonging to the user
      */
     public List<Category> findByUserId(int userId) {
-        List<Category> categories = new ArrayList<>();
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(
-                "SELECT * FROM categories WHERE user_id = ?")) {
-            stmt.setInt(1, userId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Category category = new Category(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getInt("user_id")
-                    );
-                    categories.add(category);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return categories;
+        return queryList(FIND_BY_USER_ID, stmt -> stmt.setInt(1, userId), CATEGORY_MAPPER);
     }
 
     /**
@@ -185,24 +152,11 @@ public class CategoryDAO extends BaseDAOClass<Category, Integer> {
      * @return Category if found, null otherwise
      */
     public Category findByNameAndUserId(String name, int userId) {
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(
-                "SELECT * FROM categories WHERE name = ? AND user_id = ?")) {
-            stmt.setString(1, name);
-            stmt.setInt(2, userId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                if (rs.next()) {
-                    return new Category(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getInt("user_id")
-                    );
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        return queryOne(FIND_BY_NAME_AND_USER_ID,
+                stmt -> {
+                    stmt.setString(1, name);
+                    stmt.setInt(2, userId);
+                }, CATEGORY_MAPPER);
     }
 
     /**
@@ -211,23 +165,6 @@ public class CategoryDAO extends BaseDAOClass<Category, Integer> {
      * @return List of default categories
      */
     public List<Category> findDefaultCategories() {
-        List<Category> categories = new ArrayList<>();
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(
-                "SELECT * FROM categories WHERE user_id = 0 OR user_id IS NULL")) {
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Category category = new Category(
-                            rs.getInt("id"),
-                            rs.getString("name"),
-                            rs.getString("description"),
-                            rs.getInt("user_id")
-                    );
-                    categories.add(category);
-                }
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return categories;
+        return queryList(FIND_DEFAULTS, StatementBinder.NONE, CATEGORY_MAPPER);
     }
 }
@@ -1,15 +1,24 @@
 package com.emsi.expensetracker.dao.implementation;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import com.emsi.expensetracker.dao.base.BaseDAOClass;
+import com.emsi.expensetracker.dao.base.RowHandler;
+import com.emsi.expensetracker.dao.base.RowMapper;
+import com.emsi.expensetracker.dao.base.RowSource;
+import com.emsi.expensetracker.dao.base.StatementBinder;
+import com.emsi.expensetracker.model.CategoryTotal;
 import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.ExpenseView;
 import com.emsi.expensetracker.util.DatabaseConnection;
 
 /**
@@ -19,6 +28,116 @@ import com.emsi.expensetracker.util.DatabaseConnection;
  */
 public class ExpenseDAO extends BaseDAOClass<Expense, Integer> {
 
+    /**
+     * Columns read by {@link #EXPENSE_MAPPER}, in mapping order.
+     */
+    static final String EXPENSE_COLUMNS = "id, description, amount_cents, epoch_day, category_id, user_id";
+
+    /**
+     * Maps a row selected with {@link #EXPENSE_COLUMNS}.
+     */
+    static final RowMapper<Expense> EXPENSE_MAPPER = rs -> new Expense(
+            rs.getInt(1),
+            rs.getString(2),
+            rs.getLong(3),
+            rs.getInt(5),
+            LocalDate.ofEpochDay(rs.getLong(4)),
+            rs.getInt(6)
+    );
+
+    /**
+     * Expense columns followed by the category name, read by
+     * {@link #EXPENSE_VIEW_MAPPER} from {@link #EXPENSE_VIEW_FROM}.
+     */
+    static final String EXPENSE_VIEW_COLUMNS = "e.id, e.description, e.amount_cents, e.epoch_day, e.category_id, e.user_id, c.name";
+
+    /**
+     * Expenses joined to their category. A left join keeps expenses whose
+     * category was deleted.
+     */
+    static final String EXPENSE_VIEW_FROM = " FROM expenses e LEFT JOIN categories c ON c.id = e.category_id";
+
+
+    /**
+     * Maps a row selected with {@link #EXPENSE_VIEW_COLUMNS}.
+     */
+    static final RowMapper<ExpenseView> EXPENSE_VIEW_MAPPER = rs -> new ExpenseView(
+            rs.getInt(1),
+            rs.getString(2),
+            rs.getLong(3),
+            rs.getInt(5),
+            LocalDate.ofEpochDay(rs.getLong(4)),
+            rs.getInt(6),
+            rs.getString(7)
+    );
+
+    /**
+     * SQLite expression for {@link #monthIndex(LocalDate)} of {@code epoch_day}.
+     */
+    private static final String MONTH_OF_EPOCH_DAY = "CAST(strftime('%Y', epoch_day * 86400, 'unixepoch') AS INTEGER) * 12"
+            + " + CAST(strftime('%m', epoch_day * 86400, 'unixepoch') AS INTEGER) - 1";
+
+    /**
+     * Rollup rows of a user for a month range: user, first and last month.
+     */
+    static final String ROLLUP_TOTALS = "SELECT category_id, total_cents FROM monthly_totals"
+            + " WHERE user_id = ? AND month BETWEEN ? AND ?";
+
+    /**
+     * Expense rows of a user for a day range: user, first and last day.
+     */
+    static final String RAW_TOTALS = "SELECT COALESCE(category_id, 0) AS category_id, amount_cents AS total_cents"
+            + " FROM expenses WHERE user_id = ? AND epoch_day BETWEEN ? AND ?";
+
+    /**
+     * Rows per statement in {@link #insertRows(RowSource, int)}.
+     */
+    static final int ROWS_PER_INSERT = 500;
+
+    /**
+     * Inserts {@link #ROWS_PER_INSERT} rows of description, amount_cents,
+     * epoch_day, category_id and user_id, skipping rows with a null
+     * description, so a partly bound statement can still be executed.
+     */
+    private static final String MULTI_ROW_INSERT =
+            "INSERT INTO expenses (description, amount_cents, epoch_day, category_id, user_id) "
+            + "SELECT column1, column2, column3, column4, column5 FROM (VALUES "
+            + String.join(", ", Collections.nCopies(ROWS_PER_INSERT, "(?, ?, ?, ?, ?)"))
+            + ") WHERE column1 IS NOT NULL";
+
+    // Read queries, package-private so QueryPlanTest checks the plans of the statements actually run
+
+    static final String FIND_BY_ID = "SELECT " + EXPENSE_COLUMNS + " FROM expenses WHERE id = ?";
+
+    static final String FIND_VIEW_BY_ID = "SELECT " + EXPENSE_VIEW_COLUMNS + EXPENSE_VIEW_FROM + " WHERE e.id = ?";
+
+    static final String FIND_BY_USER_ID = "SELECT " + EXPENSE_COLUMNS + " FROM expenses WHERE user_id = ?";
+
+    static final String STREAM_BY_USER_ID = FIND_BY_USER_ID + " ORDER BY epoch_day, id";
+
+    static final String FIND_BY_USER_ID_BETWEEN = FIND_BY_USER_ID + " AND epoch_day BETWEEN ? AND ? ORDER BY epoch_day, id";
+
+    static final String FOR_EACH_BETWEEN = "SELECT e.id, e.epoch_day, e.description, e.amount_cents, e.category_id, c.name"
+            + EXPENSE_VIEW_FROM + " WHERE e.user_id = ? AND e.epoch_day BETWEEN ? AND ? ORDER BY e.epoch_day, e.id";
+
+    static final String FIRST_PAGE = "SELECT " + EXPENSE_VIEW_COLUMNS + EXPENSE_VIEW_FROM + " WHERE e.user_id = ?"
+            + " ORDER BY e.epoch_day DESC, e.id DESC LIMIT ?";
+
+    static final String NEXT_PAGE = "SELECT " + EXPENSE_VIEW_COLUMNS + EXPENSE_VIEW_FROM + " WHERE e.user_id = ?"
+            + " AND (e.epoch_day, e.id) < (?, ?) ORDER BY e.epoch_day DESC, e.id DESC LIMIT ?";
+
+    static final String SEARCH = "SELECT " + EXPENSE_VIEW_COLUMNS + " FROM expenses_fts f"
+            + " JOIN expenses e ON e.id = f.rowid LEFT JOIN categories c ON c.id = e.category_id"
+            + " WHERE expenses_fts MATCH ? ORDER BY f.rank LIMIT ?";
+
+    static final String SUM_BY_USER_ID = "SELECT COALESCE(SUM(total_cents), 0) FROM monthly_totals WHERE user_id = ?";
+
+    private static final RowMapper<CategoryTotal> CATEGORY_TOTAL_MAPPER = rs -> new CategoryTotal(
+            rs.getInt(1),
+            rs.getString(2),
+            rs.getLong(3)
+    );
+
     /**
      * Constructs a new ExpenseDAO with the specified database connection.
      *
@@ -36,23 +155,17 @@ public class ExpenseDAO extends BaseDAOClass<Expense, Integer> {
      */
     @Override
     public Expense findById(Integer id) {
-        try (Connection conn = dbConnection.getConnection(); var stmt = conn.prepareStatement("Select * from expenses where id=?")) {
-            stmt.setInt(1, id);
-            var rs = stmt.executeQuery();
-            if (rs.next()) {
-                return new Expense(
-                        rs.getInt("id"),
-                        rs.getString("description"),
-                        rs.getDouble("amount"),
-                        rs.getInt("category_id"),
-                        java.time.LocalDate.parse(rs.getString("date")),
-                        rs.getInt("user_id")
-                );
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return null;
+        return queryOne(FIND_BY_ID, stmt -> stmt.setInt(1, id), EXPENSE_MAPPER);
+    }
+
+    /**
+     * Finds an expense together with its category name in one query.
+     *
+     * @param id The expense ID to search for
+     * @return The expense view if found, null otherwise
+     */
+    public ExpenseView findViewById(int id) {
+        return queryOne(FIND_VIEW_BY_ID, stmt -> stmt.setInt(1, id), EXPENSE_VIEW_MAPPER);
     }
 
     /**
@@ -62,49 +175,180 @@ public class ExpenseDAO extends BaseDAOClass<Expense, Integer> {
      */
     @Override
     public List<Expense> findAll() {
-        List<Expense> expenses = new ArrayList<>();
-        try (Connection conn = dbConnection.getConnection(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM expenses")) {
-
-            while (rs.next()) {
-                Expense expense = new Expense(
-                        rs.getInt("id"),
-                        rs.getString("description"),
-                        rs.getDouble("amount"),
-                        rs.getInt("category_id"),
-                        java.time.LocalDate.parse(rs.getString("date")),
-                        rs.getInt("user_id")
-                );
-                expenses.add(expense);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return expenses;
+        return queryList("SELECT " + EXPENSE_COLUMNS + " FROM expenses", StatementBinder.NONE, EXPENSE_MAPPER);
     }
 
     /**
-     * Saves a new expense to the database.
+     * Saves a new expense to the database. The expense receives its generated
+     * ID.
      *
      * @param expense The expense to save
      * @return true if saved successfully, false otherwise
      */
     @Override
     public boolean save(Expense expense) {
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(
-                "INSERT INTO expenses (description, amount, date ,category_id, user_id) VALUES (?, ?, ?, ?, ?)"
-        )) {
-            stmt.setString(1, expense.getDescription());
-            stmt.setDouble(2, expense.getAmount());
-            stmt.setString(3, expense.getDate().toString());
-            stmt.setInt(4, expense.getCategoryId());
-            stmt.setInt(5, expense.getUserId());
-            stmt.executeUpdate();
+        return awaitWrite(saveAsync(expense));
+    }
+
+    /**
+     * Queues a new expense on the database writer.
+     *
+     * @param expense The expense to save
+     * @return A future completed with true once the insert has committed
+     */
+    public CompletableFuture<Boolean> saveAsync(Expense expense) {
+        return dbConnection.submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO expenses (description, amount_cents, epoch_day, category_id, user_id) VALUES (?, ?, ?, ?, ?)"
+            )) {
+                stmt.setString(1, expense.getDescription());
+                stmt.setLong(2, expense.getAmountCents());
+                stmt.setLong(3, expense.getDate().toEpochDay());
+                stmt.setInt(4, expense.getCategoryId());
+                stmt.setInt(5, expense.getUserId());
+                stmt.executeUpdate();
+            }
+            expense.setId(lastInsertId(conn));
             return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return false;
+        });
+    }
+
+    /**
+     * Saves a collection of expenses using the configured batch size.
+     *
+     * @param expenses The expenses to save
+     * @return The generated IDs in input order, empty list if the insert failed
+     * @see #saveAll(Collection, int)
+     */
+    public List<Expense> saveAll(Collection<Expense> expenses) {
+        return saveAll(expenses, dbConnection.getBatchSize());
+    }
+
+    /**
+     * Saves a collection of expenses in chunks. Each chunk is one writer task
+     * that reuses a single prepared statement with JDBC batching, so the
+     * database syncs once per group commit instead of once per row. Each
+     * expense receives its generated ID. A failing chunk is rolled back alone;
+     * the other chunks still commit.
+     *
+     * @param expenses The expenses to save
+     * @param chunkSize Number of rows per batched insert
+     * @return The expenses that were committed, in input order; empty if every
+     * chunk failed
+     */
+    public List<Expense> saveAll(Collection<Expense> expenses, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than zero");
         }
+        List<List<Expense>> chunks = new ArrayList<>();
+        List<CompletableFuture<Boolean>> writes = new ArrayList<>();
+        List<Expense> chunk = new ArrayList<>(Math.min(chunkSize, expenses.size()));
+        for (Expense expense : expenses) {
+            chunk.add(expense);
+            if (chunk.size() == chunkSize) {
+                chunks.add(chunk);
+                writes.add(insertChunk(chunk));
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+            writes.add(insertChunk(chunk));
+        }
+
+        // Every chunk is awaited, so the result is final once this returns
+        List<Expense> saved = new ArrayList<>(expenses.size());
+        for (int i = 0; i < writes.size(); i++) {
+            if (awaitWrite(writes.get(i))) {
+                saved.addAll(chunks.get(i));
+            }
+        }
+        return saved;
+    }
 
+    /**
+     * Inserts one chunk with a batched statement and assigns generated IDs.
+     * Rows of one batch receive consecutive AUTOINCREMENT keys because they
+     * are written back to back on the single writer connection, so the IDs
+     * are derived from the last inserted row.
+     */
+    private CompletableFuture<Boolean> insertChunk(List<Expense> chunk) {
+        return dbConnection.submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO expenses (description, amount_cents, epoch_day, category_id, user_id) VALUES (?, ?, ?, ?, ?)"
+            )) {
+                for (Expense expense : chunk) {
+                    stmt.setString(1, expense.getDescription());
+                    stmt.setLong(2, expense.getAmountCents());
+                    stmt.setLong(3, expense.getDate().toEpochDay());
+                    stmt.setInt(4, expense.getCategoryId());
+                    stmt.setInt(5, expense.getUserId());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            }
+            int id = lastInsertId(conn) - chunk.size() + 1;
+            for (Expense expense : chunk) {
+                expense.setId(id++);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Inserts the rows of a {@link RowSource} in chunks, for bulk loads that
+     * have no use for an {@link Expense} or a generated ID per row. Each chunk
+     * is one writer task that pulls its rows from the source on the writer
+     * thread, so the source needs no synchronization. Rows are inserted
+     * {@value #ROWS_PER_INSERT} to a statement, which saves most of the
+     * per-row statement overhead of a JDBC batch.
+     *
+     * @param source Binds description, amount_cents, epoch_day, category_id
+     * and user_id, in that order; rows with a null description are skipped
+     * @param chunkSize Number of rows per writer task
+     * @return The number of rows inserted; chunks committed before a failure
+     * are kept and counted, skipped rows are not
+     */
+    public long insertRows(RowSource source, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be greater than zero");
+        }
+        long inserted = 0;
+        // Rows pulled from the source and rows actually inserted by the last chunk
+        int[] chunkRows = new int[2];
+        do {
+            chunkRows[0] = 0;
+            chunkRows[1] = 0;
+            boolean written = awaitWrite(dbConnection.submitWrite(conn -> {
+                try (PreparedStatement stmt = conn.prepareStatement(MULTI_ROW_INSERT)) {
+                    int rows = 0;
+                    int added = 0;
+                    int slot = 0;
+                    while (rows < chunkSize && source.next(stmt, slot * 5 + 1)) {
+                        rows++;
+                        if (++slot == ROWS_PER_INSERT) {
+                            added += stmt.executeUpdate();
+                            slot = 0;
+                        }
+                    }
+                    if (slot > 0) {
+                        // Unused slots still hold earlier rows; a null description skips them
+                        for (int unused = slot; unused < ROWS_PER_INSERT; unused++) {
+                            stmt.setNull(unused * 5 + 1, Types.VARCHAR);
+                        }
+                        added += stmt.executeUpdate();
+                    }
+                    chunkRows[0] = rows;
+                    chunkRows[1] = added;
+                    return true;
+                }
+            }));
+            if (!written) {
+                break;
+            }
+            inserted += chunkRows[1];
+        } while (chunkRows[0] == chunkSize);
+        return inserted;
     }
 
     /**
@@ -115,21 +359,30 @@ public class ExpenseDAO extends BaseDAOClass<Expense, Integer> {
      */
     @Override
     public boolean update(Expense expense) {
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(
-                "UPDATE expenses SET description = ?, amount = ?, date = ? , category_id = ? WHERE id = ?"
-        )) {
-            stmt.setString(1, expense.getDescription());
-            stmt.setDouble(2, expense.getAmount());
-            stmt.setString(3, expense.getDate().toString());
-            stmt.setInt(4, expense.getCategoryId());
-            stmt.setInt(5, expense.getId());
-
-            stmt.executeUpdate();
-            return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
+        return awaitWrite(updateAsync(expense));
+    }
+
+    /**
+     * Queues an expense update on the database writer.
+     *
+     * @param expense The expense with updated values
+     * @return A future completed with true once the update has committed
+     */
+    public CompletableFuture<Boolean> updateAsync(Expense expense) {
+        return dbConnection.submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "UPDATE expenses SET description = ?, amount_cents = ?, epoch_day = ?, category_id = ? WHERE id = ?"
+            )) {
+                stmt.setString(1, expense.getDescription());
+                stmt.setLong(2, expense.getAmountCents());
+                stmt.setLong(3, expense.getDate().toEpochDay());
+                stmt.setInt(4, expense.getCategoryId());
+                stmt.setInt(5, expense.getId());
+
+                stmt.executeUpdate();
+                return true;
+            }
+        });
     }
 
     /**
@@ -140,16 +393,25 @@ public class ExpenseDAO extends BaseDAOClass<Expense, Integer> {
      */
     @Override
     public boolean delete(Integer id) {
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(
-                "DELETE FROM expenses WHERE id = ?"
-        )) {
-            stmt.setInt(1, id);
-            stmt.executeUpdate();
-            return true;
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        return false;
+        return awaitWrite(deleteAsync(id));
+    }
+
+    /**
+     * Queues an expense deletion on the database writer.
+     *
+     * @param id The expense ID to delete
+     * @return A future completed with true once the delete has committed
+     */
+    public CompletableFuture<Boolean> deleteAsync(int id) {
+        return dbConnection.submitWrite(conn -> {
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "DELETE FROM expenses WHERE id = ?"
+            )) {
+                stmt.setInt(1, id);
+                stmt.executeUpdate();
+                return true;
+            }
+        });
     }
 
     /**
@@ -160,26 +422,258 @@ public class ExpenseDAO extends BaseDAOClass<Expense, Integer> {
      * found
      */
     public List<Expense> findByUserId(int userId) {
-        List<Expense> expenses = new ArrayList<>();
-        try (Connection conn = dbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement("SELECT * FROM expenses WHERE user_id = ?")) {
-            stmt.setInt(1, userId);
-            try (ResultSet rs = stmt.executeQuery()) {
-                while (rs.next()) {
-                    Expense expense = new Expense(
-                            rs.getInt("id"),
-                            rs.getString("description"),
-                            rs.getDouble("amount"),
-                            rs.getInt("category_id"),
-                            java.time.LocalDate.parse(rs.getString("date")),
-                            rs.getInt("user_id")
-                    );
-                    expenses.add(expense);
-                }
-                return expenses;
+        return queryList(FIND_BY_USER_ID, stmt -> stmt.setInt(1, userId), EXPENSE_MAPPER);
+    }
+
+    /**
+     * Streams all expenses, mapping rows as they are consumed. Close the
+     * stream to release its connection if it is not fully consumed.
+     *
+     * @return A lazily fetched stream of all expenses
+     */
+    public Stream<Expense> streamAll() {
+        return queryStream("SELECT " + EXPENSE_COLUMNS + " FROM expenses", StatementBinder.NONE, EXPENSE_MAPPER);
+    }
+
+    /**
+     * Streams a user's expenses ordered by date then ID, mapping rows as they
+     * are consumed, so exports and aggregations run in constant memory. The
+     * order comes from the {@code (user_id, epoch_day)} index. Close the
+     * stream to release its connection if it is not fully consumed.
+     *
+     * @param userId The ID of the user whose expenses to stream
+     * @return A lazily fetched stream of the user's expenses
+     */
+    public Stream<Expense> streamByUserId(int userId) {
+        return queryStream(STREAM_BY_USER_ID, stmt -> stmt.setInt(1, userId), EXPENSE_MAPPER);
+    }
+
+    /**
+     * Retrieves a user's expenses within a date range, oldest first. The
+     * range is an integer range on the {@code (user_id, epoch_day)} index.
+     *
+     * @param userId The ID of the user whose expenses to retrieve
+     * @param from First date included
+     * @param to Last date included
+     * @return The expenses in the range, empty list if none found
+     */
+    public List<Expense> findByUserIdBetween(int userId, LocalDate from, LocalDate to) {
+        return queryList(FIND_BY_USER_ID_BETWEEN,
+                stmt -> {
+                    stmt.setInt(1, userId);
+                    stmt.setLong(2, from.toEpochDay());
+                    stmt.setLong(3, to.toEpochDay());
+                }, EXPENSE_MAPPER);
+    }
+
+    /**
+     * Hands a user's expenses within a date range to a handler, oldest first,
+     * straight from the cursor. Nothing is mapped or collected, so callers
+     * such as exports run in constant memory; reading the text columns with
+     * {@code getBytes} also skips decoding them. The handler reads, by
+     * position: id, epoch day, description, amount in cents, category ID and
+     * category name (null if the category was deleted).
+     *
+     * @param userId The ID of the user whose expenses to read
+     * @param from First date included
+     * @param to Last date included
+     * @param handler Handles each row
+     * @return The number of rows handled, -1 if the query failed
+     */
+    public long forEachBetween(int userId, LocalDate from, LocalDate to, RowHandler handler) {
+        return queryEach(FOR_EACH_BETWEEN,
+                stmt -> {
+                    stmt.setInt(1, userId);
+                    stmt.setLong(2, from.toEpochDay());
+                    stmt.setLong(3, to.toEpochDay());
+                }, handler);
+    }
+
+    /**
+     * Retrieves one page of a user's expenses with their category names,
+     * newest first, using keyset pagination. The next page starts after the
+     * last row of the previous one, so each page costs the same index seek
+     * whatever its position, and the category join spares the caller one
+     * lookup per row.
+     *
+     * @param userId The ID of the user whose expenses to retrieve
+     * @param afterDate Date of the last row already loaded, or null for the
+     * first page
+     * @param afterId ID of the last row already loaded (ignored for the first
+     * page)
+     * @param limit Maximum number of rows to return
+     * @return Up to {@code limit} expenses ordered by date then ID descending
+     */
+    public List<ExpenseView> findByUserIdPage(int userId, LocalDate afterDate, int afterId, int limit) {
+        return queryList(afterDate != null ? NEXT_PAGE : FIRST_PAGE, stmt -> {
+            int index = 1;
+            stmt.setInt(index++, userId);
+            if (afterDate != null) {
+                stmt.setLong(index++, afterDate.toEpochDay());
+                stmt.setInt(index++, afterId);
+            }
+            stmt.setInt(index, limit);
+        }, EXPENSE_VIEW_MAPPER);
+    }
+
+    /**
+     * Searches a user's expense descriptions through the {@code expenses_fts}
+     * full-text index. Every word of the query must match the start of a
+     * word in the description, case and accent insensitively, so "cof sh"
+     * finds "Coffee shop". The user filter is part of the index match, so the
+     * cost depends on the user's matches rather than the table size.
+     *
+     * @param userId The ID of the user whose expenses to search
+     * @param query Words to search for, as typed by the user
+     * @param limit Maximum number of results
+     * @return Matching expenses with their category names, best match first,
+     * empty list if the query has no words
+     */
+    public List<ExpenseView> search(int userId, String query, int limit) {
+        String match = toMatchExpression(userId, query);
+        if (match == null) {
+            return new ArrayList<>();
+        }
+        return queryList(SEARCH,
+                stmt -> {
+                    stmt.setString(1, match);
+                    stmt.setInt(2, limit);
+                }, EXPENSE_VIEW_MAPPER);
+    }
+
+    /**
+     * Turns free text into an FTS5 expression: the user filter, then each
+     * word quoted as a prefix term so the input cannot inject FTS syntax.
+     *
+     * @return The expression, or null if the text has no words
+     */
+    static String toMatchExpression(int userId, String query) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder("user_id : \"").append(userId).append('"');
+        int terms = 0;
+        for (String word : query.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                match.append(" AND description : \"").append(word).append("\"*");
+                terms++;
+            }
+        }
+        return terms == 0 ? null : match.toString();
+    }
+
+    /**
+     * Sums a user's expenses per category within a date range. Whole months
+     * inside the range are read from the {@code monthly_totals} rollup and
+     * only the partial months at either end from the expenses themselves, so
+     * the cost depends on the number of months and categories rather than on
+     * the number of expenses. Expenses without a category, or whose category
+     * no longer exists, are reported with a null category name.
+     *
+     * @param userId The ID of the user whose expenses to sum
+     * @param from First date included, or null for no lower bound
+     * @param to Last date included, or null for no upper bound
+     * @return One total per category, empty list if none found
+     */
+    public List<CategoryTotal> sumByCategory(int userId, LocalDate from, LocalDate to) {
+        // Whole months covered by the range
+        int firstMonth = from == null ? Integer.MIN_VALUE
+                : monthIndex(from) + (from.getDayOfMonth() == 1 ? 0 : 1);
+        int lastMonth = to == null ? Integer.MAX_VALUE
+                : monthIndex(to) - (to.getDayOfMonth() == to.lengthOfMonth() ? 0 : 1);
+
+        List<String> parts = new ArrayList<>();
+        List<long[]> bounds = new ArrayList<>();
+        if (firstMonth > lastMonth) {
+            // Less than one whole month: sum the rows directly
+            parts.add(RAW_TOTALS);
+            bounds.add(new long[]{from.toEpochDay(), to.toEpochDay()});
+        } else {
+            parts.add(ROLLUP_TOTALS);
+            bounds.add(new long[]{firstMonth, lastMonth});
+            if (from != null && from.getDayOfMonth() != 1) {
+                parts.add(RAW_TOTALS);
+                bounds.add(new long[]{from.toEpochDay(), from.withDayOfMonth(from.lengthOfMonth()).toEpochDay()});
+            }
+            if (to != null && to.getDayOfMonth() != to.lengthOfMonth()) {
+                parts.add(RAW_TOTALS);
+                bounds.add(new long[]{to.withDayOfMonth(1).toEpochDay(), to.toEpochDay()});
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
-        return expenses;
+
+        return queryList(sumByCategoryQuery(parts), stmt -> {
+            int index = 1;
+            for (long[] range : bounds) {
+                stmt.setInt(index++, userId);
+                stmt.setLong(index++, range[0]);
+                stmt.setLong(index++, range[1]);
+            }
+        }, CATEGORY_TOTAL_MAPPER);
+    }
+
+    /**
+     * Joins per-category row sets, each {@link #ROLLUP_TOTALS} or
+     * {@link #RAW_TOTALS}, to the category names and sums them per category.
+     */
+    static String sumByCategoryQuery(List<String> parts) {
+        return "SELECT t.category_id, c.name, SUM(t.total_cents) FROM ("
+                + String.join(" UNION ALL ", parts)
+                + ") t LEFT JOIN categories c ON c.id = t.category_id GROUP BY t.category_id";
+    }
+
+    /**
+     * Recomputes the {@code monthly_totals} rollup from the expenses table,
+     * repairing it if it ever drifted (for example after expenses were edited
+     * with the triggers dropped).
+     *
+     * @return true if the rollup was rebuilt, false otherwise
+     */
+    public boolean rebuildMonthlyTotals() {
+        return awaitWrite(dbConnection.submitWrite(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("DELETE FROM monthly_totals");
+                stmt.executeUpdate("INSERT INTO monthly_totals (user_id, month, category_id, total_cents, expense_count) "
+                        + "SELECT COALESCE(user_id, 0), " + MONTH_OF_EPOCH_DAY + ", COALESCE(category_id, 0), "
+                        + "SUM(amount_cents), COUNT(*) FROM expenses GROUP BY 1, 2, 3");
+                return true;
+            }
+        }));
+    }
+
+    /**
+     * Rebuilds the {@code expenses_fts} search index from the expenses table,
+     * repairing it if it ever drifted.
+     *
+     * @return true if the index was rebuilt, false otherwise
+     */
+    public boolean rebuildSearchIndex() {
+        return awaitWrite(dbConnection.submitWrite(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("INSERT INTO expenses_fts (expenses_fts) VALUES ('rebuild')");
+                return true;
+            }
+        }));
+    }
+
+    /**
+     * Month index used by {@code monthly_totals}: {@code year * 12 + month - 1}.
+     *
+     * @param date Any day of the month
+     * @return The month index
+     */
+    public static int monthIndex(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    /**
+     * Sums all of a user's expenses in the database, from the monthly
+     * rollup.
+     *
+     * @param userId The ID of the user whose expenses to sum
+     * @return The total in cents, 0 if the user has no expenses
+     */
+    public long sumByUserId(int userId) {
+        Long total = queryOne(SUM_BY_USER_ID, stmt -> stmt.setInt(1, userId), rs -> rs.getLong(1));
+        return total != null ? total : 0;
     }
 }
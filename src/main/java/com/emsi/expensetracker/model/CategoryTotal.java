@@ -0,0 +1,19 @@
+package com.emsi.expensetracker.model;
+
+// Aggregated spending for one category, as read by ExpenseDAO.sumByCategory
+public class CategoryTotal {
+
+    private final int categoryId;
+    private final String categoryName;
+    private final long totalCents;
+
+    public CategoryTotal(int categoryId, String categoryName, long totalCents) {
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.totalCents = totalCents;
+    }
+
+    public int getCategoryId() { return categoryId; }
+    public String getCategoryName() { return categoryName; }
+    public long getTotalCents() { return totalCents; }
+}
@@ -1,26 +1,26 @@
-
 package com.emsi.expensetracker.model;
 import java.time.LocalDate ;
 
 public class Expense {
     private int id;
     private String description;
-    private double amount;
+    private long amountCents;
     private LocalDate date;
     private int categoryId;
     private int userId;
 
-    public Expense(int id, String description, double amount, int categoryId, LocalDate date, int userId) {
+    public Expense(int id, String description, long amountCents, int categoryId, LocalDate date, int userId) {
         this.id = id;
         this.description = description;
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.categoryId = categoryId;
         this.date = date;
+        this.userId = userId;
     }
     
-    public Expense( String description, double amount, int categoryId, LocalDate date, int userId){
+    public Expense( String description, long amountCents, int categoryId, LocalDate date, int userId){
         this.description = description;
-        this.amount = amount;
+        this.amountCents = amountCents;
         this.categoryId = categoryId;
         this.date = date;
         this.userId = userId;
@@ -28,14 +28,16 @@ public class Expense {
     
     public int getId() { return id; }
     public String getDescription() { return description; }
-    public double getAmount() { return amount; }
+    public long getAmountCents() { return amountCents; }
+    // Amount in major units, for display only
+    public double getAmount() { return Money.toDouble(amountCents); }
     public LocalDate getDate() { return date; }
     public int getCategoryId() { return categoryId; }
     public int getUserId() { return userId; }
     public void setId(int id) { this.id = id; }
     public void setDescription(String description) { this.description = description; }
-    public void setAmount(double amount) { this.amount = amount; }
+    public void setAmountCents(long amountCents) { this.amountCents = amountCents; }
     public void setDate(LocalDate date) { this.date = date; }
     public void setCategoryId(int categoryId) { this.categoryId = categoryId; }
     public void setUserId(int userId) { this.userId = userId; }
-}
\ No newline at end of file
+}
@@ -0,0 +1,15 @@
+package com.emsi.expensetracker.model;
+import java.time.LocalDate;
+
+// Expense joined with its category name, as read by the ExpenseDAO view queries
+public class ExpenseView extends Expense {
+    private final String categoryName;
+
+    public ExpenseView(int id, String description, long amountCents, int categoryId, LocalDate date, int userId, String categoryName) {
+        super(id, description, amountCents, categoryId, date, userId);
+        this.categoryName = categoryName;
+    }
+
+    // Null when the category no longer exists
+    public String getCategoryName() { return categoryName; }
+}
@@ -0,0 +1,54 @@
+package com.emsi.expensetracker.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Money is handled as a primitive {@code long} count of minor units (cents),
+ * both in the model and in the {@code expenses.amount_cents} column. Sums are
+ * exact and never allocate; this class converts at the edges (user input and
+ * display).
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    /**
+     * Parses a decimal amount typed by the user, e.g. {@code "12.5"}.
+     *
+     * @param text The amount in major units
+     * @return The amount in cents
+     * @throws NumberFormatException if the text is not a number or has more
+     * than two decimals
+     */
+    public static long parse(String text) {
+        try {
+            return new BigDecimal(text.trim()).movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount must have at most two decimals: " + text);
+        }
+    }
+
+    /**
+     * Converts cents to major units, for charts and other display code that
+     * needs a double.
+     *
+     * @param cents The amount in cents
+     * @return The amount in major units
+     */
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Formats cents as a plain decimal amount, e.g. {@code 1250 -> "12.50"}.
+     *
+     * @param cents The amount in cents
+     * @return The formatted amount
+     */
+    public static String format(long cents) {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        return (cents < 0 ? "-" : "") + abs / 100 + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -0,0 +1,107 @@
+package com.emsi.expensetracker.service.analytics;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-category Fenwick trees of one user's spending keyed by epoch day, plus
+ * one tree for all categories. Range totals and updates take O(log d), where
+ * d is the number of days covered, so date filters cost the same whatever the
+ * number of expenses. The covered window grows when an expense falls outside
+ * it. Writes patch the trees in place and nothing here is synchronized:
+ * {@code ExpenseAnalytics} guards each user's trees together with the
+ * snapshot they were built from, so readers never see one without the other.
+ */
+final class DayTotals {
+
+    // Days kept free on either side of the loaded range
+    private static final int MARGIN_DAYS = 366;
+
+    private int firstDay;
+    private FenwickTree total;
+    private final Map<Integer, FenwickTree> byCategory = new HashMap<>();
+
+    private DayTotals(int firstDay, int days) {
+        this.firstDay = firstDay;
+        this.total = new FenwickTree(days);
+    }
+
+    /**
+     * Builds the trees from a snapshot of the user's expenses.
+     */
+    static DayTotals build(ExpenseColumns columns) {
+        int[] range = {Integer.MAX_VALUE, Integer.MIN_VALUE};
+        columns.forEach((categoryId, epochDay, cents) -> {
+            range[0] = Math.min(range[0], epochDay);
+            range[1] = Math.max(range[1], epochDay);
+        });
+        int min = columns.size() == 0 ? 0 : range[0];
+        int max = columns.size() == 0 ? 0 : range[1];
+        DayTotals totals = new DayTotals(min - MARGIN_DAYS, max - min + 1 + 2 * MARGIN_DAYS);
+        columns.forEach(totals::add);
+        return totals;
+    }
+
+    /**
+     * Adds an amount, negative to remove one, to a category on a day.
+     */
+    void add(int categoryId, int epochDay, long cents) {
+        ensureCovers(epochDay);
+        int index = epochDay - firstDay;
+        total.add(index, cents);
+        byCategory.computeIfAbsent(categoryId, id -> new FenwickTree(total.size())).add(index, cents);
+    }
+
+    /**
+     * @return Total between two days, both included
+     */
+    long sum(long fromDay, long toDay) {
+        return total.range(startIndex(fromDay), endIndex(toDay));
+    }
+
+    /**
+     * @return Total per category between two days, largest first, without
+     * categories that have nothing in the range
+     */
+    Map<Integer, Long> sumByCategory(long fromDay, long toDay) {
+        int from = startIndex(fromDay);
+        int to = endIndex(toDay);
+        Map<Integer, Long> totals = new HashMap<>();
+        for (Map.Entry<Integer, FenwickTree> entry : byCategory.entrySet()) {
+            long sum = entry.getValue().range(from, to);
+            if (sum != 0) {
+                totals.put(entry.getKey(), sum);
+            }
+        }
+        Map<Integer, Long> sorted = new LinkedHashMap<>();
+        totals.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed())
+                .forEachOrdered(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    // First position on or after the day; past the window if the day is
+    private int startIndex(long day) {
+        return (int) Math.max(0, Math.min(day - firstDay, total.size()));
+    }
+
+    // Last position on or before the day; -1 if the day precedes the window
+    private int endIndex(long day) {
+        return (int) Math.max(-1, Math.min(day - firstDay, total.size() - 1));
+    }
+
+    private void ensureCovers(int epochDay) {
+        int lastDay = firstDay + total.size() - 1;
+        if (epochDay >= firstDay && epochDay <= lastDay) {
+            return;
+        }
+        int newFirst = Math.min(firstDay, epochDay - MARGIN_DAYS);
+        int newLast = Math.max(lastDay, epochDay + MARGIN_DAYS);
+        int shift = firstDay - newFirst;
+        int newSize = newLast - newFirst + 1;
+        total = total.grow(newSize, shift);
+        byCategory.replaceAll((id, tree) -> tree.grow(newSize, shift));
+        firstDay = newFirst;
+    }
+}
@@ -0,0 +1,242 @@
+package com.emsi.expensetracker.service.analytics;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Expense;
+
+/**
+ * In-memory analytics over {@link ExpenseColumns} snapshots, one per user,
+ * with {@link DayTotals} Fenwick trees answering date-range totals in
+ * O(log d). A user's expenses are loaded on first query and then kept in step
+ * by the write notifications {@code ExpenseService} sends after each
+ * successful write. Users that were never queried are not tracked, and a
+ * user's state is dropped again by {@link #evict(int)}, for example when the
+ * user logs out, so memory follows the active users.
+ *
+ * Each user's snapshot and day index sit behind one lock: a write updates
+ * both before either is read again, so totals always describe the published
+ * snapshot. Queries on a snapshot itself need no lock. A user is loaded
+ * outside the map, behind a future that concurrent queries wait on; a write
+ * that arrives while the load is still running drops it, so the next query
+ * loads again instead of missing the write.
+ */
+public class ExpenseAnalytics {
+
+    private final ExpenseDAO dao;
+    private final Map<Integer, CompletableFuture<UserState>> byUser = new ConcurrentHashMap<>();
+
+    public ExpenseAnalytics(ExpenseDAO dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * Returns the user's snapshot, loading it on first use.
+     *
+     * @param userId The user's ID
+     * @return The current snapshot of the user's expenses
+     */
+    public ExpenseColumns columns(int userId) {
+        return state(userId).columns();
+    }
+
+    /**
+     * Sums a user's expenses within a date range from the Fenwick index.
+     *
+     * @param userId The user's ID
+     * @param from First date included, or null for no lower bound
+     * @param to Last date included, or null for no upper bound
+     * @return The total in cents
+     */
+    public long sum(int userId, LocalDate from, LocalDate to) {
+        return state(userId).sum(fromDay(from), toDay(to));
+    }
+
+    /**
+     * Sums a user's expenses within a date range per category from the
+     * Fenwick index.
+     *
+     * @param userId The user's ID
+     * @param from First date included, or null for no lower bound
+     * @param to Last date included, or null for no upper bound
+     * @return Total in cents per category ID, largest total first
+     */
+    public Map<Integer, Long> totalsByCategory(int userId, LocalDate from, LocalDate to) {
+        return state(userId).sumByCategory(fromDay(from), toDay(to));
+    }
+
+    /**
+     * Finds a user's largest expenses within a date range.
+     *
+     * @param userId The user's ID
+     * @param from First date included, or null for no lower bound
+     * @param to Last date included, or null for no upper bound
+     * @param n Maximum number of expenses to return
+     * @return Up to n expenses, largest amount first
+     */
+    public List<Expense> top(int userId, LocalDate from, LocalDate to, int n) {
+        return columns(userId).top(from, to, n);
+    }
+
+    /**
+     * Records a saved or updated expense.
+     *
+     * @param expense The expense as written
+     */
+    public void saved(Expense expense) {
+        UserState state = loaded(expense.getUserId());
+        if (state != null) {
+            state.saved(expense);
+        }
+    }
+
+    /**
+     * Records a batch of saved expenses. The user's snapshot is dropped and
+     * reloaded on the next query, which is cheaper than patching it row by
+     * row.
+     *
+     * @param expenses The expenses written
+     */
+    public void savedAll(Iterable<Expense> expenses) {
+        for (Expense expense : expenses) {
+            byUser.remove(expense.getUserId());
+        }
+    }
+
+    /**
+     * Records a deleted expense.
+     *
+     * @param userId The ID of the user the expense belonged to
+     * @param id The deleted expense's ID
+     */
+    public void deleted(int userId, int id) {
+        UserState state = loaded(userId);
+        if (state != null) {
+            state.removed(id);
+        }
+    }
+
+    /**
+     * Drops a user's snapshot; it is reloaded if the user is queried again.
+     *
+     * @param userId The user's ID
+     */
+    public void evict(int userId) {
+        byUser.remove(userId);
+    }
+
+    /**
+     * Drops every snapshot, for example after expenses were changed outside
+     * the service.
+     */
+    public void clear() {
+        byUser.clear();
+    }
+
+    /**
+     * Returns the user's state, loading it on first use. The query runs
+     * outside the map; other queries for the same user wait on its future.
+     */
+    private UserState state(int userId) {
+        CompletableFuture<UserState> state = byUser.get(userId);
+        if (state == null) {
+            CompletableFuture<UserState> loading = new CompletableFuture<>();
+            state = byUser.putIfAbsent(userId, loading);
+            if (state == null) {
+                state = loading;
+                try (Stream<Expense> expenses = dao.streamByUserId(userId)) {
+                    ExpenseColumns columns = ExpenseColumns.load(userId, expenses.iterator());
+                    loading.complete(new UserState(columns, DayTotals.build(columns)));
+                } catch (RuntimeException e) {
+                    // Let the next query try again
+                    byUser.remove(userId, loading);
+                    loading.completeExceptionally(e);
+                }
+            }
+        }
+        try {
+            return state.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Returns the user's state if it is loaded, for a write to patch. A load
+     * still running may have read the rows before the write, so it is dropped
+     * and the write is left to the next load.
+     */
+    private UserState loaded(int userId) {
+        CompletableFuture<UserState> state = byUser.get(userId);
+        if (state == null) {
+            return null;
+        }
+        if (!state.isDone() || state.isCompletedExceptionally()) {
+            byUser.remove(userId, state);
+            return null;
+        }
+        return state.join();
+    }
+
+    private static long fromDay(LocalDate from) {
+        return from != null ? from.toEpochDay() : Long.MIN_VALUE / 2;
+    }
+
+    private static long toDay(LocalDate to) {
+        return to != null ? to.toEpochDay() : Long.MAX_VALUE / 2;
+    }
+
+    /**
+     * A user's columns and the day index built from them. The index is
+     * patched in place using the previous row from the columns to subtract,
+     * so both change under the state's lock.
+     */
+    private static final class UserState {
+
+        private ExpenseColumns columns;
+        private final DayTotals totals;
+
+        UserState(ExpenseColumns columns, DayTotals totals) {
+            this.columns = columns;
+            this.totals = totals;
+        }
+
+        synchronized ExpenseColumns columns() {
+            return columns;
+        }
+
+        synchronized long sum(long fromDay, long toDay) {
+            return totals.sum(fromDay, toDay);
+        }
+
+        synchronized Map<Integer, Long> sumByCategory(long fromDay, long toDay) {
+            return totals.sumByCategory(fromDay, toDay);
+        }
+
+        synchronized void saved(Expense expense) {
+            subtract(columns.findById(expense.getId()));
+            totals.add(expense.getCategoryId(), (int) expense.getDate().toEpochDay(), expense.getAmountCents());
+            columns = columns.withSaved(expense);
+        }
+
+        synchronized void removed(int id) {
+            Expense old = columns.findById(id);
+            if (old != null) {
+                subtract(old);
+                columns = columns.withRemoved(id);
+            }
+        }
+
+        private void subtract(Expense old) {
+            if (old != null) {
+                totals.add(old.getCategoryId(), (int) old.getDate().toEpochDay(), -old.getAmountCents());
+            }
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package com.emsi.expensetracker.service.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.emsi.expensetracker.model.Expense;
+
+/**
+ * Column-oriented snapshot of one user's expenses. Each expense is a row in
+ * parallel primitive arrays sorted by date then ID, so aggregations are tight
+ * loops over contiguous memory and date ranges are two binary searches.
+ * Descriptions are dictionary encoded and categories are mapped to dense
+ * codes so group-by sums index a small array instead of hashing.
+ *
+ * A snapshot never changes, so readers need no locking. Writes are copy on
+ * write: {@link #withSaved(Expense)} and {@link #withRemoved(int)} return a
+ * new snapshot in O(n) and leave this one as it was; {@code ExpenseAnalytics}
+ * makes them one at a time under the user's lock. Both writes are
+ * idempotent: saving a row that is already present replaces it and removing
+ * an absent row returns the same snapshot.
+ */
+public final class ExpenseColumns {
+
+    private final int userId;
+    private final int[] ids;
+    private final int[] epochDays;
+    private final long[] cents;
+    private final int[] categoryCodes;
+    private final int[] descriptionCodes;
+    // Category ID for each category code
+    private final int[] categoryIds;
+    private final Dictionary descriptions;
+
+    private ExpenseColumns(int userId, int[] ids, int[] epochDays, long[] cents, int[] categoryCodes,
+            int[] descriptionCodes, int[] categoryIds, Dictionary descriptions) {
+        this.userId = userId;
+        this.ids = ids;
+        this.epochDays = epochDays;
+        this.cents = cents;
+        this.categoryCodes = categoryCodes;
+        this.descriptionCodes = descriptionCodes;
+        this.categoryIds = categoryIds;
+        this.descriptions = descriptions;
+    }
+
+    /**
+     * Builds a snapshot from expenses already ordered by date then ID.
+     *
+     * @param userId The user the expenses belong to
+     * @param expenses The user's expenses in date then ID order
+     * @return The snapshot
+     */
+    public static ExpenseColumns load(int userId, Iterator<Expense> expenses) {
+        int capacity = 1024;
+        int[] ids = new int[capacity];
+        int[] epochDays = new int[capacity];
+        long[] cents = new long[capacity];
+        int[] categoryCodes = new int[capacity];
+        int[] descriptionCodes = new int[capacity];
+        int[] categoryIds = new int[0];
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> values = new ArrayList<>();
+
+        int size = 0;
+        while (expenses.hasNext()) {
+            Expense expense = expenses.next();
+            if (size == capacity) {
+                capacity *= 2;
+                ids = Arrays.copyOf(ids, capacity);
+                epochDays = Arrays.copyOf(epochDays, capacity);
+                cents = Arrays.copyOf(cents, capacity);
+                categoryCodes = Arrays.copyOf(categoryCodes, capacity);
+                descriptionCodes = Arrays.copyOf(descriptionCodes, capacity);
+            }
+            int categoryCode = indexOf(categoryIds, expense.getCategoryId());
+            if (categoryCode < 0) {
+                categoryCode = categoryIds.length;
+                categoryIds = Arrays.copyOf(categoryIds, categoryCode + 1);
+                categoryIds[categoryCode] = expense.getCategoryId();
+            }
+            ids[size] = expense.getId();
+            epochDays[size] = (int) expense.getDate().toEpochDay();
+            cents[size] = expense.getAmountCents();
+            categoryCodes[size] = categoryCode;
+            descriptionCodes[size] = codes.computeIfAbsent(key(expense.getDescription()), value -> {
+                values.add(value);
+                return values.size() - 1;
+            });
+            size++;
+        }
+        return new ExpenseColumns(userId, Arrays.copyOf(ids, size), Arrays.copyOf(epochDays, size),
+                Arrays.copyOf(cents, size), Arrays.copyOf(categoryCodes, size), Arrays.copyOf(descriptionCodes, size),
+                categoryIds, new Dictionary(codes, values.toArray(new String[0])));
+    }
+
+    /**
+     * @return Number of expenses in the snapshot
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return Number of distinct descriptions seen, including ones whose rows
+     * were since removed
+     */
+    public int distinctDescriptions() {
+        return descriptions.size();
+    }
+
+    /**
+     * Sums the expenses within a date range.
+     *
+     * @param from First date included, or null for no lower bound
+     * @param to Last date included, or null for no upper bound
+     * @return The total in cents
+     */
+    public long sum(LocalDate from, LocalDate to) {
+        long total = 0;
+        for (int i = start(from), end = end(to); i < end; i++) {
+            total += cents[i];
+        }
+        return total;
+    }
+
+    /**
+     * Counts the expenses within a date range.
+     *
+     * @param from First date included, or null for no lower bound
+     * @param to Last date included, or null for no upper bound
+     * @return The number of expenses
+     */
+    public int count(LocalDate from, LocalDate to) {
+        return Math.max(0, end(to) - start(from));
+    }
+
+    /**
+     * Sums the expenses within a date range per category.
+     *
+     * @param from First date included, or null for no lower bound
+     * @param to Last date included, or null for no upper bound
+     * @return Total in cents per category ID, largest total first
+     */
+    public Map<Integer, Long> totalsByCategory(LocalDate from, LocalDate to) {
+        long[] totals = new long[categoryIds.length];
+        boolean[] seen = new boolean[categoryIds.length];
+        for (int i = start(from), end = end(to); i < end; i++) {
+            totals[categoryCodes[i]] += cents[i];
+            seen[categoryCodes[i]] = true;
+        }
+        Integer[] order = new Integer[categoryIds.length];
+        for (int code = 0; code < order.length; code++) {
+            order[code] = code;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(totals[b], totals[a]));
+        Map<Integer, Long> result = new LinkedHashMap<>();
+        for (int code : order) {
+            if (seen[code]) {
+                result.put(categoryIds[code], totals[code]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the largest expenses within a date range with a bounded min-heap
+     * of rows, so only the returned rows are materialised.
+     *
+     * @param from First date included, or null for no lower bound
+     * @param to Last date included, or null for no upper bound
+     * @param n Maximum number of expenses to return
+     * @return Up to n expenses, largest amount first
+     */
+    public List<Expense> top(LocalDate from, LocalDate to, int n) {
+        int[] heap = new int[Math.max(0, n)];
+        int heapSize = 0;
+        for (int i = start(from), end = end(to); i < end && n > 0; i++) {
+            heapSize = offer(heap, heapSize, i);
+        }
+        List<Expense> result = new ArrayList<>(heapSize);
+        while (heapSize > 0) {
+            result.add(row(heap[0]));
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Returns a snapshot containing the expense, replacing any row with the
+     * same ID.
+     *
+     * @param expense The saved expense
+     * @return The new snapshot
+     */
+    public ExpenseColumns withSaved(Expense expense) {
+        ExpenseColumns base = withRemoved(expense.getId());
+
+        int[] newCategoryIds = base.categoryIds;
+        int categoryCode = indexOf(newCategoryIds, expense.getCategoryId());
+        if (categoryCode < 0) {
+            categoryCode = newCategoryIds.length;
+            newCategoryIds = Arrays.copyOf(newCategoryIds, categoryCode + 1);
+            newCategoryIds[categoryCode] = expense.getCategoryId();
+        }
+        Dictionary newDescriptions = base.descriptions.with(key(expense.getDescription()));
+
+        int epochDay = (int) expense.getDate().toEpochDay();
+        int at = base.insertionPoint(epochDay, expense.getId());
+        return new ExpenseColumns(userId, insert(base.ids, at, expense.getId()), insert(base.epochDays, at, epochDay),
+                insert(base.cents, at, expense.getAmountCents()), insert(base.categoryCodes, at, categoryCode),
+                insert(base.descriptionCodes, at, newDescriptions.code(key(expense.getDescription()))),
+                newCategoryIds, newDescriptions);
+    }
+
+    /**
+     * Returns a snapshot without the expense with the given ID.
+     *
+     * @param id The removed expense's ID
+     * @return The new snapshot, or this one if the ID is absent
+     */
+    public ExpenseColumns withRemoved(int id) {
+        int row = rowOf(id);
+        if (row < 0) {
+            return this;
+        }
+        return new ExpenseColumns(userId, remove(ids, row), remove(epochDays, row), remove(cents, row),
+                remove(categoryCodes, row), remove(descriptionCodes, row), categoryIds, descriptions);
+    }
+
+    /**
+     * Finds an expense by ID with a scan of the ID column.
+     *
+     * @param id The expense ID
+     * @return The expense, or null if it is not in the snapshot
+     */
+    public Expense findById(int id) {
+        int row = rowOf(id);
+        return row < 0 ? null : row(row);
+    }
+
+    /**
+     * Passes every expense's category, day and amount to the visitor, in
+     * date order.
+     */
+    void forEach(RowVisitor visitor) {
+        for (int i = 0; i < ids.length; i++) {
+            visitor.visit(categoryIds[categoryCodes[i]], epochDays[i], cents[i]);
+        }
+    }
+
+    /**
+     * Receives one row from {@link ExpenseColumns#forEach(RowVisitor)}.
+     */
+    @FunctionalInterface
+    interface RowVisitor {
+        void visit(int categoryId, int epochDay, long cents);
+    }
+
+    private int rowOf(int id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // First row that sorts after the day and ID
+    private int insertionPoint(int epochDay, int id) {
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < epochDay || (epochDays[mid] == epochDay && ids[mid] < id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Materialises one row.
+     */
+    private Expense row(int row) {
+        return new Expense(ids[row], descriptions.decode(descriptionCodes[row]), cents[row],
+                categoryIds[categoryCodes[row]], LocalDate.ofEpochDay(epochDays[row]), userId);
+    }
+
+    // First row on or after the date
+    private int start(LocalDate from) {
+        return from == null ? 0 : lowerBound(from.toEpochDay());
+    }
+
+    // Row after the last one on or before the date
+    private int end(LocalDate to) {
+        return to == null ? ids.length : lowerBound(to.toEpochDay() + 1);
+    }
+
+    private int lowerBound(long day) {
+        int low = 0;
+        int high = ids.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDays[mid] < day) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Adds a row to the heap of the largest rows seen, whose capacity is the number wanted
+    private int offer(int[] heap, int heapSize, int row) {
+        if (heapSize < heap.length) {
+            heap[heapSize] = row;
+            siftUp(heap, heapSize);
+            return heapSize + 1;
+        }
+        if (cents[row] > cents[heap[0]]) {
+            heap[0] = row;
+            siftDown(heap, heapSize);
+        }
+        return heapSize;
+    }
+
+    private void siftUp(int[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (cents[heap[parent]] <= cents[heap[i]]) {
+                return;
+            }
+            swap(heap, parent, i);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int heapSize) {
+        int i = 0;
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < heapSize && cents[heap[left]] < cents[heap[smallest]]) {
+                smallest = left;
+            }
+            if (right < heapSize && cents[heap[right]] < cents[heap[smallest]]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(heap, i, smallest);
+            i = smallest;
+        }
+    }
+
+    private static void swap(int[] array, int a, int b) {
+        int tmp = array[a];
+        array[a] = array[b];
+        array[b] = tmp;
+    }
+
+    private static int indexOf(int[] array, int value) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String key(String description) {
+        return description != null ? description : "";
+    }
+
+    private static int[] insert(int[] array, int at, int value) {
+        int[] copy = new int[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, at);
+        copy[at] = value;
+        System.arraycopy(array, at, copy, at + 1, array.length - at);
+        return copy;
+    }
+
+    private static long[] insert(long[] array, int at, long value) {
+        long[] copy = new long[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, at);
+        copy[at] = value;
+        System.arraycopy(array, at, copy, at + 1, array.length - at);
+        return copy;
+    }
+
+    private static int[] remove(int[] array, int at) {
+        int[] copy = new int[array.length - 1];
+        System.arraycopy(array, 0, copy, 0, at);
+        System.arraycopy(array, at + 1, copy, at, copy.length - at);
+        return copy;
+    }
+
+    private static long[] remove(long[] array, int at) {
+        long[] copy = new long[array.length - 1];
+        System.arraycopy(array, 0, copy, 0, at);
+        System.arraycopy(array, at + 1, copy, at, copy.length - at);
+        return copy;
+    }
+
+    /**
+     * Immutable string dictionary. Codes are never reused, so a snapshot
+     * shares the dictionary of the one it was written from until a new
+     * description is added, which copies it.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes;
+        private final String[] values;
+
+        Dictionary(Map<String, Integer> codes, String[] values) {
+            this.codes = codes;
+            this.values = values;
+        }
+
+        Dictionary with(String value) {
+            if (codes.containsKey(value)) {
+                return this;
+            }
+            Map<String, Integer> newCodes = new HashMap<>(codes);
+            newCodes.put(value, values.length);
+            String[] newValues = Arrays.copyOf(values, values.length + 1);
+            newValues[values.length] = value;
+            return new Dictionary(newCodes, newValues);
+        }
+
+        int code(String value) {
+            return codes.get(value);
+        }
+
+        String decode(int code) {
+            return values[code];
+        }
+
+        int size() {
+            return values.length;
+        }
+    }
+}
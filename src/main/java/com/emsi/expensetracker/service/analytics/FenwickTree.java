@@ -0,0 +1,60 @@
+package com.emsi.expensetracker.service.analytics;
+
+/**
+ * Binary indexed tree of long sums over positions {@code 0..size-1}. Point
+ * updates and prefix sums both take O(log n).
+ */
+final class FenwickTree {
+
+    private final long[] tree;
+
+    FenwickTree(int size) {
+        this.tree = new long[size + 1];
+    }
+
+    int size() {
+        return tree.length - 1;
+    }
+
+    /**
+     * Adds a delta to one position.
+     */
+    void add(int index, long delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return Sum of positions {@code 0..index}, 0 if index is negative
+     */
+    long prefix(int index) {
+        long sum = 0;
+        for (int i = Math.min(index + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return Sum of positions {@code from..to}, both included
+     */
+    long range(int from, int to) {
+        return from > to ? 0 : prefix(to) - prefix(from - 1);
+    }
+
+    /**
+     * Copies the tree into a larger one whose position 0 lies {@code shift}
+     * positions before this tree's position 0.
+     */
+    FenwickTree grow(int newSize, int shift) {
+        FenwickTree grown = new FenwickTree(newSize);
+        for (int i = 0; i < size(); i++) {
+            long value = range(i, i);
+            if (value != 0) {
+                grown.add(i + shift, value);
+            }
+        }
+        return grown;
+    }
+}
@@ -1,14 +1,23 @@
 package com.emsi.expensetracker.service.base;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
 import com.emsi.expensetracker.dao.base.BaseDAOClass;
+import com.emsi.expensetracker.service.session.Session;
+import com.emsi.expensetracker.service.session.SessionClosedException;
 
 /**
  * Abstract base class for all service layer implementations. This class
  * provides a common structure for services by maintaining a reference to a Data
  * Access Object (DAO) for database operations. Services implement business
  * logic and act as an intermediary between controllers and data access layers.
+ * The {@code ...Async} variants of service methods run on the service's
+ * executor so callers such as the JavaFX thread never block on the database.
  */
-public abstract class BaseService<D extends BaseDAOClass> {
+public abstract class BaseService<D extends BaseDAOClass<?, ?>> {
 
     /**
      * The Data Access Object used for database operations. Protected to allow
@@ -17,12 +26,53 @@ public abstract class BaseService<D extends BaseDAOClass> {
     protected D dao;
 
     /**
-     * Constructs a new BaseService with the specified DAO.
+     * Executor running the asynchronous service calls.
+     */
+    protected final Executor executor;
+
+    /**
+     * Constructs a new BaseService with the specified DAO. Asynchronous calls
+     * run on the common fork-join pool.
      *
      * @param dao The Data Access Object to use for database operations
      */
     public BaseService(D dao) {
+        this(dao, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new BaseService with the specified DAO and executor.
+     *
+     * @param dao The Data Access Object to use for database operations
+     * @param executor The executor running asynchronous service calls
+     */
+    public BaseService(D dao, Executor executor) {
         this.dao = dao;
+        this.executor = executor;
+    }
+
+    /**
+     * Runs a service call on the executor.
+     *
+     * @param call The blocking call to run
+     * @return A future completed with the call's result
+     */
+    protected <T> CompletableFuture<T> async(Supplier<T> call) {
+        return CompletableFuture.supplyAsync(call, executor);
+    }
+
+    /**
+     * The user a session-scoped call acts for.
+     *
+     * @param session The caller's session
+     * @return The session's user ID
+     * @throws SessionClosedException if the session was closed or expired
+     */
+    protected static int userId(Session session) {
+        if (session == null || !session.isOpen()) {
+            throw new SessionClosedException();
+        }
+        return session.getUserId();
     }
 
 }
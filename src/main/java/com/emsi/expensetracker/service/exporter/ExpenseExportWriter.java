@@ -0,0 +1,298 @@
+package com.emsi.expensetracker.service.exporter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.emsi.expensetracker.dao.base.RowHandler;
+
+/**
+ * Encodes expense rows from a cursor straight into one reusable direct
+ * buffer, which is written to a channel whenever it fills. Text columns are
+ * copied as the UTF-8 bytes SQLite stores, numbers and dates are formatted
+ * digit by digit, and category names are read once per category, so no
+ * {@code Expense} or {@code String} is created per row. Reads the columns of
+ * {@code ExpenseDAO.forEachBetween}.
+ *
+ * Instances are single-use and not thread-safe. Write failures are rethrown
+ * from {@link #handle(ResultSet)} as {@link UncheckedIOException}.
+ */
+public class ExpenseExportWriter implements RowHandler {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte[] CSV_HEADER = ascii("id,date,description,amount,category\n");
+    private static final byte[] JSON_ID = ascii("{\"id\":");
+    private static final byte[] JSON_DATE = ascii(",\"date\":\"");
+    private static final byte[] JSON_DESCRIPTION = ascii("\",\"description\":\"");
+    private static final byte[] JSON_AMOUNT = ascii("\",\"amount\":");
+    private static final byte[] JSON_CATEGORY = ascii(",\"category\":");
+    private static final byte[] JSON_NULL = ascii("null");
+    private static final byte[] JSON_END = ascii("}\n");
+    private static final byte[] JSON_SEPARATOR = ascii(",\n");
+    private static final byte[] JSON_ARRAY_END = ascii("]\n");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+    // Marks a cached category without a name
+    private static final byte[] NO_NAME = new byte[0];
+
+    private final WritableByteChannel channel;
+    private final ExportFormat format;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+    private final Map<Integer, byte[]> categoryNames = new HashMap<>();
+    private long bytesWritten;
+    private long rows;
+
+    /**
+     * @param channel Destination; it is not closed by the writer
+     * @param format The output format
+     */
+    public ExpenseExportWriter(WritableByteChannel channel, ExportFormat format) {
+        this.channel = channel;
+        this.format = format;
+    }
+
+    /**
+     * Writes what precedes the first row: the header row for CSV, the opening
+     * bracket for JSON, nothing for JSON Lines.
+     */
+    public void begin() {
+        if (format == ExportFormat.CSV) {
+            put(CSV_HEADER);
+        } else if (format == ExportFormat.JSON) {
+            put((byte) '[');
+        }
+    }
+
+    @Override
+    public void handle(ResultSet rs) throws SQLException {
+        long id = rs.getLong(1);
+        long epochDay = rs.getLong(2);
+        byte[] description = rs.getBytes(3);
+        long amountCents = rs.getLong(4);
+        byte[] category = categoryName(rs);
+        if (description == null) {
+            description = NO_NAME;
+        }
+
+        if (format == ExportFormat.CSV) {
+            putLong(id);
+            put((byte) ',');
+            putDate(epochDay);
+            put((byte) ',');
+            putCsvText(description);
+            put((byte) ',');
+            putAmount(amountCents);
+            put((byte) ',');
+            if (category != NO_NAME) {
+                putCsvText(category);
+            }
+            put((byte) '\n');
+        } else {
+            // JSON arrays keep one object per line, separated by a comma
+            if (format == ExportFormat.JSON && rows > 0) {
+                put(JSON_SEPARATOR);
+            }
+            put(JSON_ID);
+            putLong(id);
+            put(JSON_DATE);
+            putDate(epochDay);
+            put(JSON_DESCRIPTION);
+            putJsonText(description);
+            put(JSON_AMOUNT);
+            putAmount(amountCents);
+            put(JSON_CATEGORY);
+            if (category == NO_NAME) {
+                put(JSON_NULL);
+            } else {
+                put((byte) '"');
+                putJsonText(category);
+                put((byte) '"');
+            }
+            if (format == ExportFormat.JSON) {
+                put((byte) '}');
+            } else {
+                put(JSON_END);
+            }
+        }
+        rows++;
+    }
+
+    /**
+     * Writes what follows the last row, the closing bracket for JSON, and
+     * whatever is still buffered to the channel.
+     *
+     * @throws IOException if the channel cannot be written
+     */
+    public void finish() throws IOException {
+        if (format == ExportFormat.JSON) {
+            put(JSON_ARRAY_END);
+        }
+        drain();
+    }
+
+    /**
+     * @return Bytes written to the channel so far
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    // Names are read from the row only the first time a category ID is seen
+    private byte[] categoryName(ResultSet rs) throws SQLException {
+        int categoryId = rs.getInt(5);
+        byte[] name = categoryNames.get(categoryId);
+        if (name == null) {
+            name = rs.getBytes(6);
+            name = name != null ? name : NO_NAME;
+            categoryNames.put(categoryId, name);
+        }
+        return name;
+    }
+
+    private void putCsvText(byte[] text) {
+        boolean quote = false;
+        for (byte b : text) {
+            if (b == ',' || b == '"' || b == '\n' || b == '\r') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            put(text);
+            return;
+        }
+        put((byte) '"');
+        for (byte b : text) {
+            if (b == '"') {
+                put((byte) '"');
+            }
+            put(b);
+        }
+        put((byte) '"');
+    }
+
+    // UTF-8 multi-byte sequences never contain bytes below 0x80, so escaping works on bytes
+    private void putJsonText(byte[] text) {
+        int start = 0;
+        for (int i = 0; i < text.length; i++) {
+            int b = text[i];
+            if (b != '"' && b != '\\' && (b < 0 || b >= 0x20)) {
+                continue;
+            }
+            put(text, start, i - start);
+            start = i + 1;
+            put((byte) '\\');
+            switch (b) {
+                case '"', '\\' -> put((byte) b);
+                case '\n' -> put((byte) 'n');
+                case '\r' -> put((byte) 'r');
+                case '\t' -> put((byte) 't');
+                default -> {
+                    put((byte) 'u');
+                    put((byte) '0');
+                    put((byte) '0');
+                    put(HEX[b >> 4]);
+                    put(HEX[b & 0xf]);
+                }
+            }
+        }
+        put(text, start, text.length - start);
+    }
+
+    private void putAmount(long cents) {
+        if (cents < 0) {
+            put((byte) '-');
+            cents = -cents;
+        }
+        putLong(cents / 100);
+        long fraction = cents % 100;
+        put((byte) '.');
+        put((byte) ('0' + fraction / 10));
+        put((byte) ('0' + fraction % 10));
+    }
+
+    // Non-negative values only
+    private void putLong(long value) {
+        int i = digits.length;
+        do {
+            digits[--i] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        put(digits, i, digits.length - i);
+    }
+
+    // ISO yyyy-MM-dd, converting the epoch day with the civil-from-days algorithm
+    private void putDate(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        long month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 1000 || year > 9999) {
+            put(ascii(LocalDate.ofEpochDay(epochDay).toString()));
+            return;
+        }
+        putLong(year);
+        put((byte) '-');
+        put((byte) ('0' + month / 10));
+        put((byte) ('0' + month % 10));
+        put((byte) '-');
+        put((byte) ('0' + day / 10));
+        put((byte) ('0' + day % 10));
+    }
+
+    private void put(byte b) {
+        if (!buffer.hasRemaining()) {
+            drainUnchecked();
+        }
+        buffer.put(b);
+    }
+
+    private void put(byte[] bytes) {
+        put(bytes, 0, bytes.length);
+    }
+
+    private void put(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                drainUnchecked();
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    private void drainUnchecked() {
+        try {
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,50 @@
+package com.emsi.expensetracker.service.exporter;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File formats expenses can be exported to.
+ */
+public enum ExportFormat {
+
+    /**
+     * Comma-separated values with a header row, readable by the CSV importer.
+     */
+    CSV("csv"),
+
+    /**
+     * JSON Lines: one JSON object per expense and line.
+     */
+    JSONL("jsonl"),
+
+    /**
+     * One JSON array of expense objects, as served by the HTTP API.
+     */
+    JSON("json");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Picks the format from a file name, defaulting to CSV.
+     *
+     * @param file The export file
+     * @return JSONL for {@code .jsonl} files, JSON for {@code .json} files,
+     * CSV otherwise
+     */
+    public static ExportFormat forFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".jsonl")) {
+            return JSONL;
+        }
+        return name.endsWith(".json") ? JSON : CSV;
+    }
+}
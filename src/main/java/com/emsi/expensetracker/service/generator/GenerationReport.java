@@ -0,0 +1,37 @@
+package com.emsi.expensetracker.service.generator;
+
+/**
+ * Outcome of one {@link SyntheticDataGenerator} run.
+ */
+public class GenerationReport {
+
+    private final int users;
+    private final int categories;
+    private final long expenses;
+    private final long elapsedNanos;
+
+    public GenerationReport(int users, int categories, long expenses, long elapsedNanos) {
+        this.users = users;
+        this.categories = categories;
+        this.expenses = expenses;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getUsers() { return users; }
+    public int getCategories() { return categories; }
+    public long getExpenses() { return expenses; }
+    public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+
+    /**
+     * @return Expenses written per second of wall-clock time
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : expenses / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return "Generated " + users + " users, " + categories + " categories and " + expenses + " expenses in "
+                + getElapsedMillis() + " ms";
+    }
+}
@@ -0,0 +1,136 @@
+package com.emsi.expensetracker.service.generator;
+
+import java.time.LocalDate;
+
+import com.emsi.expensetracker.model.Money;
+import com.emsi.expensetracker.util.DatabaseConnection;
+
+/**
+ * Shape of a generated dataset, read from the {@code generator.*} keys of
+ * the configuration. Every setting has a default, so an empty configuration
+ * describes 100 users with three years of expenses, about 11k rows each.
+ */
+public class GeneratorSettings {
+
+    private final long seed;
+    private final int users;
+    private final int categoriesPerUser;
+    private final int years;
+    private final LocalDate endDate;
+    private final double expensesPerMonth;
+    private final double seasonality;
+    private final int peakMonth;
+    private final long medianAmountCents;
+    private final double amountSigma;
+    private final double tailShare;
+    private final double tailAlpha;
+    private final int descriptions;
+    private final double zipfExponent;
+    private final String password;
+    private final int chunkRows;
+
+    private GeneratorSettings(DatabaseConnection config) {
+        seed = Long.parseLong(config.getProperty("generator.seed", "42"));
+        users = Integer.parseInt(config.getProperty("generator.users", "100"));
+        categoriesPerUser = Integer.parseInt(config.getProperty("generator.categories", "8"));
+        years = Integer.parseInt(config.getProperty("generator.years", "3"));
+        // A fixed default, not today, so a seed always describes the same dataset
+        endDate = LocalDate.parse(config.getProperty("generator.end.date", "2024-12-31"));
+        expensesPerMonth = Double.parseDouble(config.getProperty("generator.expenses.per.month", "300"));
+        seasonality = Double.parseDouble(config.getProperty("generator.seasonality", "0.3"));
+        peakMonth = Integer.parseInt(config.getProperty("generator.seasonality.peak.month", "12"));
+        medianAmountCents = Money.parse(config.getProperty("generator.amount.median", "12.00"));
+        amountSigma = Double.parseDouble(config.getProperty("generator.amount.sigma", "0.8"));
+        tailShare = Double.parseDouble(config.getProperty("generator.amount.tail.share", "0.02"));
+        tailAlpha = Double.parseDouble(config.getProperty("generator.amount.tail.alpha", "1.5"));
+        descriptions = Integer.parseInt(config.getProperty("generator.descriptions", "2000"));
+        zipfExponent = Double.parseDouble(config.getProperty("generator.descriptions.zipf.exponent", "1.1"));
+        password = config.getProperty("generator.password", "password");
+        chunkRows = Integer.parseInt(config.getProperty("generator.chunk.rows", "20000"));
+        validate();
+    }
+
+    /**
+     * Reads the settings from the configuration.
+     *
+     * @param config The configuration to read {@code generator.*} keys from
+     * @return The settings
+     * @throws IllegalArgumentException if a setting is out of range
+     * @throws NumberFormatException if a number cannot be parsed
+     */
+    public static GeneratorSettings fromConfig(DatabaseConnection config) {
+        return new GeneratorSettings(config);
+    }
+
+    private void validate() {
+        if (users <= 0 || categoriesPerUser <= 0 || years <= 0 || descriptions <= 0 || chunkRows <= 0) {
+            throw new IllegalArgumentException("Users, categories, years, descriptions and chunk rows must be positive");
+        }
+        if (expensesPerMonth < 0) {
+            throw new IllegalArgumentException("Expenses per month must not be negative");
+        }
+        if (seasonality < 0 || seasonality > 1) {
+            throw new IllegalArgumentException("Seasonality must be between 0 and 1");
+        }
+        if (peakMonth < 1 || peakMonth > 12) {
+            throw new IllegalArgumentException("Peak month must be between 1 and 12");
+        }
+        if (medianAmountCents <= 0 || amountSigma < 0 || tailAlpha <= 0) {
+            throw new IllegalArgumentException("Amount median, sigma and tail alpha must be positive");
+        }
+        if (tailShare < 0 || tailShare > 1) {
+            throw new IllegalArgumentException("Tail share must be between 0 and 1");
+        }
+        if (zipfExponent < 0) {
+            throw new IllegalArgumentException("Zipf exponent must not be negative");
+        }
+    }
+
+    /** @return Seed every random choice is derived from */
+    public long getSeed() { return seed; }
+
+    /** @return Number of users to create */
+    public int getUsers() { return users; }
+
+    /** @return Categories created for each user */
+    public int getCategoriesPerUser() { return categoriesPerUser; }
+
+    /** @return Years of history, ending at {@link #getEndDate()} */
+    public int getYears() { return years; }
+
+    /** @return Last day with expenses */
+    public LocalDate getEndDate() { return endDate; }
+
+    /** @return Mean expenses per user and month, before seasonality */
+    public double getExpensesPerMonth() { return expensesPerMonth; }
+
+    /** @return Relative swing of the monthly volume around its mean, 0 for none */
+    public double getSeasonality() { return seasonality; }
+
+    /** @return Month (1-12) with the most expenses */
+    public int getPeakMonth() { return peakMonth; }
+
+    /** @return Median amount of a category with scale 1, in cents */
+    public long getMedianAmountCents() { return medianAmountCents; }
+
+    /** @return Standard deviation of the log of ordinary amounts */
+    public double getAmountSigma() { return amountSigma; }
+
+    /** @return Share of amounts drawn from the Pareto tail instead */
+    public double getTailShare() { return tailShare; }
+
+    /** @return Pareto shape of the tail; smaller is heavier */
+    public double getTailAlpha() { return tailAlpha; }
+
+    /** @return Number of distinct descriptions */
+    public int getDescriptions() { return descriptions; }
+
+    /** @return Exponent of the Zipf distribution descriptions are drawn from */
+    public double getZipfExponent() { return zipfExponent; }
+
+    /** @return Password of every generated user */
+    public String getPassword() { return password; }
+
+    /** @return Rows per insert batch */
+    public int getChunkRows() { return chunkRows; }
+}
@@ -0,0 +1,337 @@
+package com.emsi.expensetracker.service.generator;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+
+import com.emsi.expensetracker.dao.base.RowSource;
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.CategoryDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Category;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.security.PasswordHashing;
+import com.emsi.expensetracker.util.security.Pbkdf2PasswordHasher;
+
+/**
+ * Fills a database with a synthetic dataset for benchmarks and capacity
+ * planning: users named {@code gen-user-0} and up, each with their own
+ * categories and years of expenses. Every value is derived from the seed in
+ * {@link GeneratorSettings}, so the same settings on an empty database
+ * always write the same rows.
+ *
+ * <ul>
+ * <li>Volume: a Poisson number of expenses per user and day, scaled by a
+ * per-user activity level, a yearly cosine peaking in the configured month,
+ * and weekends.</li>
+ * <li>Categories: each user gets a random selection of common budget
+ * categories, each with its own frequency and typical amount.</li>
+ * <li>Amounts: log-normal around the category's median, with a share drawn
+ * from a Pareto tail for the occasional large purchase.</li>
+ * <li>Descriptions: Zipf-distributed ranks over a vocabulary of merchant
+ * names, so a few merchants dominate as in real statements.</li>
+ * </ul>
+ *
+ * Expenses are generated on the writer thread while they are inserted
+ * through {@link ExpenseDAO#insertRows}, without an {@code Expense} object
+ * per row. Run from the command line, the generator opens its own database
+ * connection with the {@code bulk-load} profile unless {@code db.profile}
+ * is given. The rows bypass
+ * {@code ExpenseService}, so a running application sees them once its
+ * analytics reload.
+ *
+ * Usage: SyntheticDataGenerator [key=value ...], where the keys override
+ * config.properties, e.g. {@code generator.users=1000 db.url=jdbc:sqlite:large.db}
+ */
+public class SyntheticDataGenerator {
+
+    static final String USERNAME_PREFIX = "gen-user-";
+
+    private static final String BULK_PROFILE = "bulk-load";
+    // Cheap enough for thousands of users; AuthDAO raises it to the configured cost at first login
+    private static final int PASSWORD_ITERATIONS = 1_000;
+    private static final long MAX_AMOUNT_CENTS = 100_000_000L;
+    private static final double WEEKEND_FACTOR = 1.3;
+    // Keeps the mean over a week at 1
+    private static final double WEEKDAY_FACTOR = (7 - 2 * WEEKEND_FACTOR) / 5;
+
+    private static final CategoryTemplate[] CATEGORIES = {
+            new CategoryTemplate("Groceries", 30, 2.5),
+            new CategoryTemplate("Coffee", 20, 0.35),
+            new CategoryTemplate("Dining out", 14, 2.0),
+            new CategoryTemplate("Transport", 14, 0.6),
+            new CategoryTemplate("Shopping", 8, 3.5),
+            new CategoryTemplate("Fuel", 6, 4.5),
+            new CategoryTemplate("Entertainment", 6, 2.0),
+            new CategoryTemplate("Health", 3, 3.0),
+            new CategoryTemplate("Utilities", 3, 7.0),
+            new CategoryTemplate("Subscriptions", 3, 1.2),
+            new CategoryTemplate("Home", 3, 5.0),
+            new CategoryTemplate("Pets", 2, 3.0),
+            new CategoryTemplate("Gifts", 2, 4.0),
+            new CategoryTemplate("Sports", 2, 3.0),
+            new CategoryTemplate("Travel", 1.5, 25.0),
+            new CategoryTemplate("Phone", 1, 3.0),
+            new CategoryTemplate("Education", 1, 10.0),
+            new CategoryTemplate("Charity", 1, 3.0),
+            new CategoryTemplate("Insurance", 0.8, 15.0),
+            new CategoryTemplate("Rent", 0.6, 80.0)
+    };
+
+    private static final String[] MERCHANT_PREFIXES = {
+            "Corner", "City", "Green", "Blue", "Central", "Golden", "Royal", "Sunny", "Old Town", "Harbor",
+            "Metro", "Village", "Urban", "North", "Riverside", "Maple", "Oak", "Silver", "Bright", "Lucky"
+    };
+    private static final String[] MERCHANT_SUFFIXES = {
+            "Market", "Cafe", "Bistro", "Pharmacy", "Books", "Station", "Garage", "Bakery", "Cinema", "Outfitters",
+            "Hardware", "Grill", "Deli", "Kitchen", "Store", "Supplies", "Travel", "Clinic", "Gym", "Florist"
+    };
+
+    private final DatabaseConnection dbConnection;
+    private final GeneratorSettings settings;
+    private final CategoryDAO categoryDAO;
+    private final ExpenseDAO expenseDAO;
+
+    public SyntheticDataGenerator(DatabaseConnection dbConnection, GeneratorSettings settings) {
+        this.dbConnection = dbConnection;
+        this.settings = settings;
+        this.categoryDAO = new CategoryDAO(dbConnection);
+        this.expenseDAO = new ExpenseDAO(dbConnection);
+    }
+
+    /**
+     * Creates the users, their categories and their expenses.
+     *
+     * @return What was written and how long it took
+     * @throws IllegalStateException if a user or category cannot be created,
+     * for example because the database already holds generated users
+     */
+    public GenerationReport generate() {
+        long start = System.nanoTime();
+        SplittableRandom root = new SplittableRandom(settings.getSeed());
+        String[] vocabulary = vocabulary(root.split());
+        ZipfDistribution descriptions = new ZipfDistribution(vocabulary.length, settings.getZipfExponent());
+
+        List<UserPlan> plans = createUsers(root);
+        long expenses = expenseDAO.insertRows(new ExpenseRows(plans, vocabulary, descriptions),
+                settings.getChunkRows());
+        return new GenerationReport(plans.size(), plans.size() * settings.getCategoriesPerUser(), expenses,
+                System.nanoTime() - start);
+    }
+
+    // Each user draws from its own split of the root, in user order, so the rows do not depend on timing
+    private List<UserPlan> createUsers(SplittableRandom root) {
+        ExecutorService hashingPool = PasswordHashing.newHashingPool(1);
+        try {
+            AuthDAO authDAO = new AuthDAO(dbConnection, new PasswordHashing(
+                    new Pbkdf2PasswordHasher(PASSWORD_ITERATIONS), List.of(), hashingPool));
+            List<UserPlan> plans = new ArrayList<>(settings.getUsers());
+            for (int u = 0; u < settings.getUsers(); u++) {
+                String username = USERNAME_PREFIX + u;
+                if (!authDAO.save(new User(username, username + "@example.com", settings.getPassword()))) {
+                    throw new IllegalStateException("Could not create user " + username);
+                }
+                plans.add(createCategories(authDAO.findByUsername(username).getId(), root.split()));
+            }
+            return plans;
+        } finally {
+            hashingPool.shutdown();
+        }
+    }
+
+    private UserPlan createCategories(int userId, SplittableRandom random) {
+        int[] order = new int[CATEGORIES.length];
+        for (int i = 0; i < order.length; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+
+        int count = settings.getCategoriesPerUser();
+        int[] categoryIds = new int[count];
+        double[] cumulativeWeights = new double[count];
+        double[] medianCents = new double[count];
+        double totalWeight = 0;
+        for (int i = 0; i < count; i++) {
+            CategoryTemplate template = CATEGORIES[order[i % order.length]];
+            // Users with more categories than templates get numbered copies
+            String name = i < order.length ? template.name() : template.name() + " " + (i / order.length + 1);
+            Category category = new Category(name, "Generated", userId);
+            if (!categoryDAO.save(category)) {
+                throw new IllegalStateException("Could not create category " + name + " for user " + userId);
+            }
+            categoryIds[i] = category.getId();
+            totalWeight += template.weight();
+            cumulativeWeights[i] = totalWeight;
+            medianCents[i] = settings.getMedianAmountCents() * template.scale();
+        }
+        for (int i = 0; i < count; i++) {
+            cumulativeWeights[i] /= totalWeight;
+        }
+        // Log-normal with mean 1: a few users spend far more often than most
+        double activity = Math.exp(0.5 * random.nextGaussian() - 0.125);
+        return new UserPlan(userId, categoryIds, cumulativeWeights, medianCents, activity, random);
+    }
+
+    // Merchant names in a seeded order, so the most frequent one differs between seeds
+    private String[] vocabulary(SplittableRandom random) {
+        int combinations = MERCHANT_PREFIXES.length * MERCHANT_SUFFIXES.length;
+        String[] names = new String[settings.getDescriptions()];
+        for (int k = 0; k < names.length; k++) {
+            int combination = k % combinations;
+            String name = MERCHANT_PREFIXES[combination % MERCHANT_PREFIXES.length] + " "
+                    + MERCHANT_SUFFIXES[combination / MERCHANT_PREFIXES.length];
+            names[k] = k < combinations ? name : name + " " + (k / combinations + 1);
+        }
+        for (int i = names.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String name = names[i];
+            names[i] = names[j];
+            names[j] = name;
+        }
+        return names;
+    }
+
+    private record CategoryTemplate(String name, double weight, double scale) {
+    }
+
+    private record UserPlan(int userId, int[] categoryIds, double[] cumulativeWeights, double[] medianCents,
+            double activity, SplittableRandom random) {
+    }
+
+    /**
+     * Walks the users in order and their days from the first to the last,
+     * drawing each day's expenses as the writer asks for rows.
+     */
+    private final class ExpenseRows implements RowSource {
+
+        private final List<UserPlan> plans;
+        private final String[] vocabulary;
+        private final ZipfDistribution descriptions;
+        private final long firstDay;
+        private final long lastDay;
+        private final double expensesPerDay;
+        private final double[] monthFactors = new double[13];
+        private int user;
+        private long day;
+        private int remainingToday;
+
+        ExpenseRows(List<UserPlan> plans, String[] vocabulary, ZipfDistribution descriptions) {
+            this.plans = plans;
+            this.vocabulary = vocabulary;
+            this.descriptions = descriptions;
+            LocalDate end = settings.getEndDate();
+            this.firstDay = end.minusYears(settings.getYears()).plusDays(1).toEpochDay();
+            this.lastDay = end.toEpochDay();
+            this.expensesPerDay = settings.getExpensesPerMonth() * 12 / 365.2425;
+            for (int month = 1; month <= 12; month++) {
+                monthFactors[month] = 1 + settings.getSeasonality()
+                        * Math.cos(2 * Math.PI * (month - settings.getPeakMonth()) / 12);
+            }
+            this.day = firstDay - 1;
+        }
+
+        @Override
+        public boolean next(PreparedStatement stmt, int firstIndex) throws SQLException {
+            while (remainingToday == 0) {
+                if (user == plans.size()) {
+                    return false;
+                }
+                if (++day > lastDay) {
+                    user++;
+                    day = firstDay - 1;
+                    continue;
+                }
+                UserPlan plan = plans.get(user);
+                remainingToday = poisson(plan.random(), expensesPerDay * plan.activity() * dayFactor(day));
+            }
+            remainingToday--;
+
+            UserPlan plan = plans.get(user);
+            SplittableRandom random = plan.random();
+            int category = category(plan, random.nextDouble());
+            stmt.setString(firstIndex, vocabulary[descriptions.sample(random)]);
+            stmt.setLong(firstIndex + 1, amount(plan.medianCents()[category], random));
+            stmt.setLong(firstIndex + 2, day);
+            stmt.setInt(firstIndex + 3, plan.categoryIds()[category]);
+            stmt.setInt(firstIndex + 4, plan.userId());
+            return true;
+        }
+
+        private double dayFactor(long epochDay) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            DayOfWeek dayOfWeek = date.getDayOfWeek();
+            boolean weekend = dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY;
+            return monthFactors[date.getMonthValue()] * (weekend ? WEEKEND_FACTOR : WEEKDAY_FACTOR);
+        }
+
+        private int category(UserPlan plan, double u) {
+            double[] cumulative = plan.cumulativeWeights();
+            int i = 0;
+            while (i < cumulative.length - 1 && cumulative[i] <= u) {
+                i++;
+            }
+            return i;
+        }
+
+        private long amount(double medianCents, SplittableRandom random) {
+            double sigma = settings.getAmountSigma();
+            double cents;
+            if (random.nextDouble() < settings.getTailShare()) {
+                // Pareto tail from two sigmas above the median, where the log-normal body thins out
+                cents = medianCents * Math.exp(2 * sigma)
+                        * Math.pow(1 - random.nextDouble(), -1 / settings.getTailAlpha());
+            } else {
+                cents = medianCents * Math.exp(sigma * random.nextGaussian());
+            }
+            return Math.max(1, Math.min(MAX_AMOUNT_CENTS, Math.round(cents)));
+        }
+
+        // Knuth's method for small means, a rounded normal approximation above
+        private int poisson(SplittableRandom random, double mean) {
+            if (mean >= 30) {
+                return (int) Math.max(0, Math.round(mean + Math.sqrt(mean) * random.nextGaussian()));
+            }
+            double limit = Math.exp(-mean);
+            double product = random.nextDouble();
+            int count = 0;
+            while (product > limit) {
+                product *= random.nextDouble();
+                count++;
+            }
+            return count;
+        }
+    }
+
+    public static void main(String[] args) {
+        Properties overrides = new Properties();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                System.err.println("Usage: SyntheticDataGenerator [key=value ...]");
+                System.exit(2);
+            }
+            overrides.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        // This process is the only writer, so it can run with the bulk profile throughout
+        if (!overrides.containsKey("db.profile")) {
+            overrides.setProperty("db.profile", BULK_PROFILE);
+        }
+        DatabaseConnection db = new DatabaseConnection(overrides);
+        try {
+            db.initialize();
+            GenerationReport report = new SyntheticDataGenerator(db, GeneratorSettings.fromConfig(db)).generate();
+            System.out.println(report);
+            System.out.printf("%,.0f expenses/sec%n", report.getRowsPerSecond());
+        } finally {
+            db.shutdown();
+        }
+    }
+}
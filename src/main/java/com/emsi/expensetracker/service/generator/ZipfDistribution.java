@@ -0,0 +1,49 @@
+package com.emsi.expensetracker.service.generator;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zipf distribution over ranks {@code 0..n-1}: rank {@code k} is drawn with
+ * probability proportional to {@code 1 / (k + 1)^s}. The cumulative
+ * probabilities are computed once, so a draw is one uniform number and a
+ * binary search.
+ */
+class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    /**
+     * @param n Number of ranks
+     * @param exponent Skew {@code s}; 0 draws every rank equally often
+     */
+    ZipfDistribution(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += Math.pow(k + 1, -exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    /**
+     * @param random Source of the uniform number
+     * @return A rank, 0 being the most frequent
+     */
+    int sample(SplittableRandom random) {
+        double u = random.nextDouble();
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] <= u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -1,35 +1,68 @@
 package com.emsi.expensetracker.service.implementation;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 import com.emsi.expensetracker.dao.implementation.AuthDAO;
 import com.emsi.expensetracker.model.User;
 import com.emsi.expensetracker.model.utils.UserKey;
 import com.emsi.expensetracker.service.base.BaseService;
+import com.emsi.expensetracker.service.session.Session;
+import com.emsi.expensetracker.service.session.SessionRegistry;
 
 /**
  * Service class for authentication and user management operations. Handles user
- * registration, login, logout, and session management. Maintains the current
- * authenticated user's session.
+ * registration, login, logout, and session management. Each successful login
+ * opens a {@link Session} in the registry, so any number of users can be
+ * logged in at once; front ends keep the session or its token and pass it to
+ * the other services.
  */
 public class AuthService extends BaseService<AuthDAO> {
 
+    private final SessionRegistry sessions;
+
     /**
-     * The currently authenticated user, null if no user is logged in.
+     * Constructs a new AuthService with the specified AuthDAO and a session
+     * registry with the default idle timeout.
+     *
+     * @param dao The AuthDAO to use for authentication-related database
+     * operations
      */
-    private User currentUser;
+    public AuthService(AuthDAO dao) {
+        this(dao, new SessionRegistry());
+    }
 
     /**
-     * Constructs a new AuthService with the specified AuthDAO.
+     * Constructs a new AuthService with the specified AuthDAO and sessions.
      *
      * @param dao The AuthDAO to use for authentication-related database
      * operations
+     * @param sessions The registry holding logged-in sessions
      */
-    public AuthService(AuthDAO dao) {
+    public AuthService(AuthDAO dao, SessionRegistry sessions) {
         super(dao);
+        this.sessions = sessions;
+    }
+
+    /**
+     * Constructs a new AuthService whose asynchronous methods run on the given
+     * executor.
+     *
+     * @param dao The AuthDAO to use for authentication-related database
+     * operations
+     * @param sessions The registry holding logged-in sessions
+     * @param executor The executor running asynchronous calls
+     */
+    public AuthService(AuthDAO dao, SessionRegistry sessions, Executor executor) {
+        super(dao, executor);
+        this.sessions = sessions;
     }
 
     /**
      * Registers a new user in the system. Creates a new user with the provided
-     * credentials and saves to database.
+     * credentials and saves to database. Hashing the password costs a full
+     * key derivation, so call {@link #registerAsync(String, String, String)}
+     * from the FX thread.
      *
      * @param username The username for the new account
      * @param password The password for the new account (will be hashed)
@@ -43,34 +76,64 @@ public class AuthService extends BaseService<AuthDAO> {
     }
 
     /**
-     * Authenticates a user with the provided credentials. If successful, sets
-     * the current user session.
+     * Authenticates a user with the provided credentials. If successful, opens
+     * a new session for the user. Verifying the password costs a full key
+     * derivation, so call {@link #loginAsync(String, String)} from the FX
+     * thread.
      *
      * @param username The username to authenticate
      * @param password The password to verify
-     * @return true if authentication was successful, false otherwise
+     * @return The new session if authentication was successful, null
+     * otherwise
      */
-    public boolean login(String username, String password) {
+    public Session login(String username, String password) {
         UserKey key = new UserKey(username, password);
-        currentUser = (User) dao.findById(key);
-        return currentUser != null;
+        User user = dao.findById(key);
+        return user != null ? sessions.open(user) : null;
+    }
+
+    /**
+     * Asynchronous {@link #register(String, String, String)}.
+     */
+    public CompletableFuture<Boolean> registerAsync(String username, String password, String email) {
+        return async(() -> register(username, password, email));
+    }
+
+    /**
+     * Asynchronous {@link #login(String, String)}. Password hashing and the
+     * user lookup run off the caller's thread.
+     */
+    public CompletableFuture<Session> loginAsync(String username, String password) {
+        return async(() -> login(username, password));
     }
 
     /**
-     * Logs out the current user by clearing the session. Sets the current user
-     * to null.
+     * Resolves a token presented by a client.
+     *
+     * @param token The session token
+     * @return The open session, or null if the token is unknown or expired
      */
-    public void logout() {
-        currentUser = null;
+    public Session getSession(String token) {
+        return sessions.find(token);
     }
 
     /**
-     * Retrieves the currently authenticated user.
+     * Logs out by closing the session. Calls made with it afterwards find no
+     * cached data, and its token no longer resolves.
      *
-     * @return The current user if logged in, null otherwise
+     * @param session The session to close, may be null
+     */
+    public void logout(Session session) {
+        if (session != null) {
+            sessions.close(session.getToken());
+        }
+    }
+
+    /**
+     * @return The registry holding the logged-in sessions
      */
-    public User getCurrentUser() {
-        return currentUser;
+    public SessionRegistry getSessions() {
+        return sessions;
     }
 
 }
@@ -1,20 +1,44 @@
 package com.emsi.expensetracker.service.implementation;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
 
 import com.emsi.expensetracker.dao.implementation.CategoryDAO;
 import com.emsi.expensetracker.model.Category;
 import com.emsi.expensetracker.service.base.BaseService;
+import com.emsi.expensetracker.service.session.Session;
 
 /**
  * Service class for category management operations. Provides business logic for
  * creating, retrieving, updating, and deleting expense categories. Handles both
  * user-specific categories and default system categories. Enforces business
  * rules such as uniqueness validation and ownership verification.
+ *
+ * Categories are cached in memory by id and by (user, name), since the
+ * expense table and dashboard resolve the same few categories over and over.
+ * The cache is filled on first access or warmed per user with
+ * {@link #warmCache(int)}, and entries are evicted by every write made
+ * through this service. Cached instances are shared and must not be modified
+ * by callers. Methods taking a {@link Session} act for the session's user
+ * and keep its category list in the session until the next write.
  */
 public class CategoryService extends BaseService<CategoryDAO> {
 
-    
+    private final Map<Integer, Category> byId = new ConcurrentHashMap<>();
+    private final Map<NameKey, Category> byName = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // Incremented by every eviction, so category lists cached in sessions are reused only while unchanged
+    private final AtomicLong writeVersion = new AtomicLong();
+    private final List<IntConsumer> deleteListeners = new CopyOnWriteArrayList<>();
+
     /**
      * Constructs a new CategoryService with the specified CategoryDAO.
      *
@@ -25,6 +49,18 @@ public class CategoryService extends BaseService<CategoryDAO> {
         super(dao);
     }
 
+    /**
+     * Constructs a new CategoryService whose asynchronous methods run on the given
+     * executor.
+     *
+     * @param dao The CategoryDAO to use for category-related database
+     * operations
+     * @param executor The executor running asynchronous calls
+     */
+    public CategoryService(CategoryDAO dao, Executor executor) {
+        super(dao, executor);
+    }
+
     /**
      * Create a new category for a user
      *
@@ -45,7 +81,9 @@ public class CategoryService extends BaseService<CategoryDAO> {
         }
 
         Category category = new Category(name.trim(), description, userId);
-        return dao.save(category);
+        boolean saved = dao.save(category);
+        evict(category);
+        return saved;
     }
 
     /**
@@ -55,7 +93,18 @@ public class CategoryService extends BaseService<CategoryDAO> {
      * @return Category object or null
      */
     public Category getCategoryById(int categoryId) {
-        return dao.findById(categoryId);
+        Category category = byId.get(categoryId);
+        if (category != null) {
+            hits.increment();
+            return category;
+        }
+        misses.increment();
+        long version = writeVersion.get();
+        category = dao.findById(categoryId);
+        if (category != null) {
+            cache(category, version);
+        }
+        return category;
     }
 
     /**
@@ -94,11 +143,23 @@ public class CategoryService extends BaseService<CategoryDAO> {
      * @return Combined list of user and default categories
      */
     public List<Category> getAvailableCategories(int userId) {
+        long version = writeVersion.get();
         List<Category> categories = dao.findByUserId(userId);
         categories.addAll(dao.findDefaultCategories());
+        categories.forEach(category -> cache(category, version));
         return categories;
     }
 
+    /**
+     * Load a user's categories and the default categories into the cache,
+     * typically right after login.
+     *
+     * @param userId User's ID
+     */
+    public void warmCache(int userId) {
+        getAvailableCategories(userId);
+    }
+
     /**
      * Update an existing category
      *
@@ -126,10 +187,13 @@ public class CategoryService extends BaseService<CategoryDAO> {
         }
 
         // Update fields
+        evict(existingCategory);
         existingCategory.setName(name.trim());
         existingCategory.setDescription(description);
 
-        return dao.update(existingCategory);
+        boolean updated = dao.update(existingCategory);
+        evict(existingCategory);
+        return updated;
     }
 
     /**
@@ -151,7 +215,26 @@ public class CategoryService extends BaseService<CategoryDAO> {
             return false; // User doesn't own this category
         }
 
-        return dao.delete(categoryId);
+        evict(existingCategory);
+        boolean deleted = dao.delete(categoryId);
+        evict(existingCategory);
+        if (deleted) {
+            for (IntConsumer listener : deleteListeners) {
+                listener.accept(categoryId);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Registers a callback run with a category's ID once it was deleted. The
+     * database sets the category of the category's expenses to null, so
+     * services holding expenses in memory must drop them.
+     *
+     * @param listener Receives the category ID; runs on the deleting thread
+     */
+    public void addDeleteListener(IntConsumer listener) {
+        deleteListeners.add(listener);
     }
 
     /**
@@ -162,7 +245,7 @@ public class CategoryService extends BaseService<CategoryDAO> {
      * @return true if exists, false otherwise
      */
     public boolean categoryExists(String name, int userId) {
-        return dao.findByNameAndUserId(name, userId) != null;
+        return getCategoryByName(name, userId) != null;
     }
 
     /**
@@ -173,6 +256,156 @@ public class CategoryService extends BaseService<CategoryDAO> {
      * @return Category if found, null otherwise
      */
     public Category getCategoryByName(String name, int userId) {
-        return dao.findByNameAndUserId(name, userId);
+        NameKey key = new NameKey(userId, name);
+        Category category = byName.get(key);
+        if (category != null) {
+            hits.increment();
+            return category;
+        }
+        misses.increment();
+        long version = writeVersion.get();
+        category = dao.findByNameAndUserId(name, userId);
+        if (category != null) {
+            cache(category, version);
+        }
+        return category;
+    }
+
+    /**
+     * @return Number of lookups answered from the cache
+     */
+    public long getCacheHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Number of lookups that had to query the database
+     */
+    public long getCacheMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Empty the cache, for example after categories were changed outside this
+     * service.
+     */
+    public void clearCache() {
+        writeVersion.incrementAndGet();
+        byId.clear();
+        byName.clear();
+    }
+
+    /**
+     * Categories available to the session's user, cached in the session. The
+     * list is shared and must not be modified.
+     *
+     * @see #getAvailableCategories(int)
+     */
+    public List<Category> getAvailableCategories(Session session) {
+        int userId = userId(session);
+        return session.cached("categories.available", writeVersion.get(),
+                () -> List.copyOf(getAvailableCategories(userId)));
+    }
+
+    /**
+     * @see #createCategory(String, String, int)
+     */
+    public boolean createCategory(Session session, String name, String description) {
+        return createCategory(name, description, userId(session));
+    }
+
+    /**
+     * @see #updateCategory(int, String, String, int)
+     */
+    public boolean updateCategory(Session session, int categoryId, String name, String description) {
+        return updateCategory(categoryId, name, description, userId(session));
+    }
+
+    /**
+     * @see #deleteCategory(int, int)
+     */
+    public boolean deleteCategory(Session session, int categoryId) {
+        return deleteCategory(categoryId, userId(session));
+    }
+
+    /**
+     * Asynchronous {@link #createCategory(String, String, int)}.
+     */
+    public CompletableFuture<Boolean> createCategoryAsync(String name, String description, int userId) {
+        return async(() -> createCategory(name, description, userId));
+    }
+
+    /**
+     * Asynchronous {@link #getAvailableCategories(int)}.
+     */
+    public CompletableFuture<List<Category>> getAvailableCategoriesAsync(int userId) {
+        return async(() -> getAvailableCategories(userId));
+    }
+
+    /**
+     * Asynchronous {@link #warmCache(int)}.
+     */
+    public CompletableFuture<Void> warmCacheAsync(int userId) {
+        return async(() -> {
+            warmCache(userId);
+            return null;
+        });
+    }
+
+    /**
+     * Asynchronous {@link #deleteCategory(int, int)}.
+     */
+    public CompletableFuture<Boolean> deleteCategoryAsync(int categoryId, int userId) {
+        return async(() -> deleteCategory(categoryId, userId));
+    }
+
+    /**
+     * Asynchronous {@link #getAvailableCategories(Session)}.
+     */
+    public CompletableFuture<List<Category>> getAvailableCategoriesAsync(Session session) {
+        return async(() -> getAvailableCategories(session));
+    }
+
+    /**
+     * Asynchronous {@link #createCategory(Session, String, String)}.
+     */
+    public CompletableFuture<Boolean> createCategoryAsync(Session session, String name, String description) {
+        return async(() -> createCategory(session, name, description));
+    }
+
+    /**
+     * Asynchronous {@link #deleteCategory(Session, int)}.
+     */
+    public CompletableFuture<Boolean> deleteCategoryAsync(Session session, int categoryId) {
+        return async(() -> deleteCategory(session, categoryId));
+    }
+
+    /**
+     * Caches a category read while the write version was {@code version}. A
+     * write since then may have evicted the entry before this put, so the put
+     * is skipped, or undone if the write lands in between; evict bumps the
+     * version before removing, so one of the two checks always sees it.
+     */
+    private void cache(Category category, long version) {
+        if (writeVersion.get() != version) {
+            return;
+        }
+        NameKey key = new NameKey(category.getUserId(), category.getName());
+        byId.put(category.getId(), category);
+        byName.put(key, category);
+        if (writeVersion.get() != version) {
+            byId.remove(category.getId(), category);
+            byName.remove(key, category);
+        }
+    }
+
+    private void evict(Category category) {
+        writeVersion.incrementAndGet();
+        byId.remove(category.getId());
+        byName.remove(new NameKey(category.getUserId(), category.getName()));
+    }
+
+    private record NameKey(int userId, String name) {
     }
 }
+
@@ -1,20 +1,101 @@
 package com.emsi.expensetracker.service.implementation;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Category;
+import com.emsi.expensetracker.model.CategoryTotal;
 import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.ExpenseView;
+import com.emsi.expensetracker.service.analytics.ExpenseAnalytics;
 import com.emsi.expensetracker.service.base.BaseService;
+import com.emsi.expensetracker.service.exporter.ExpenseExportWriter;
+import com.emsi.expensetracker.service.exporter.ExportFormat;
+import com.emsi.expensetracker.service.session.Session;
 
 /**
  * Service class for expense management operations. Provides business logic for
  * creating, retrieving, updating, and deleting user expenses. Acts as an
  * intermediary between controllers and the ExpenseDAO.
+ *
+ * Methods taking a {@link Session} act for the session's user: they only
+ * read and change that user's expenses, and cache repeated aggregates in the
+ * session until the next write made through this service.
  */
 public class ExpenseService extends BaseService<ExpenseDAO> {
 
+    /**
+     * In-memory columnar copy of queried users' expenses, updated after each
+     * successful write made through this service.
+     */
+    private final ExpenseAnalytics analytics;
+
+    /**
+     * Incremented by every write, so results cached in sessions are reused
+     * only while no expense has changed.
+     */
+    private final AtomicLong writeVersion = new AtomicLong();
+
+    /**
+     * Names the categories of in-memory totals from its cache; null leaves
+     * the names unset.
+     */
+    private final CategoryService categoryService;
+
     public ExpenseService(ExpenseDAO dao) {
-        super(dao);
+        this(dao, (CategoryService) null);
+    }
+
+    /**
+     * Constructs a new ExpenseService that names the categories of its
+     * in-memory totals from the category service's cache.
+     *
+     * @param dao The ExpenseDAO to use for expense operations
+     * @param categoryService The service whose cache names categories
+     */
+    public ExpenseService(ExpenseDAO dao, CategoryService categoryService) {
+        this(dao, categoryService, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new ExpenseService whose asynchronous methods run on the given
+     * executor.
+     *
+     * @param dao The ExpenseDAO to use for expense operations
+     * @param executor The executor running asynchronous calls
+     */
+    public ExpenseService(ExpenseDAO dao, Executor executor) {
+        this(dao, (CategoryService) null, executor);
+    }
+
+    /**
+     * Constructs a new ExpenseService that names the categories of its
+     * in-memory totals from the category service's cache.
+     *
+     * @param dao The ExpenseDAO to use for expense operations
+     * @param categoryService The service whose cache names categories
+     * @param executor The executor running asynchronous calls
+     */
+    public ExpenseService(ExpenseDAO dao, CategoryService categoryService, Executor executor) {
+        super(dao, executor);
+        this.analytics = new ExpenseAnalytics(dao);
+        this.categoryService = categoryService;
     }
 
     /**
@@ -24,15 +105,68 @@ public class ExpenseService extends BaseService<ExpenseDAO> {
      * @return true if created successfully, false otherwise
      */
     public boolean createExpense(Expense expense) {
-        // Validation
         if (expense == null) {
             return false;
         }
-        if (expense.getAmount() <= 0) {
+        validate(expense);
+
+        boolean saved = dao.save(expense);
+        if (saved) {
+            writeVersion.incrementAndGet();
+            analytics.saved(expense);
+        }
+        return saved;
+    }
+
+    /**
+     * Check an expense against the rules every write path applies, so forms
+     * and bulk imports reject the same input
+     *
+     * @param expense The expense to check
+     * @throws IllegalArgumentException if the expense is invalid
+     */
+    public static void validate(Expense expense) {
+        if (expense == null) {
+            throw new IllegalArgumentException("Expense cannot be null");
+        }
+        if (expense.getAmountCents() <= 0) {
             throw new IllegalArgumentException("Amount must be greater than zero");
         }
+        if (expense.getDate() == null) {
+            throw new IllegalArgumentException("Date is required");
+        }
+        if (expense.getDescription() == null) {
+            throw new IllegalArgumentException("Description cannot be null");
+        }
+    }
 
-        return dao.save(expense);
+    /**
+     * Create many expenses in batched transactions. Every expense is validated
+     * before anything is written. Batches that fail are rolled back alone, so
+     * only the returned expenses were created.
+     *
+     * @param expenses Expenses to create
+     * @return Generated IDs of the created expenses in input order, empty list
+     * if nothing was created
+     */
+    public List<Integer> createExpenses(Collection<Expense> expenses) {
+        if (expenses == null || expenses.isEmpty()) {
+            return new ArrayList<>();
+        }
+        for (Expense expense : expenses) {
+            validate(expense);
+        }
+
+        List<Expense> saved = dao.saveAll(expenses);
+        List<Integer> ids = new ArrayList<>(saved.size());
+        if (!saved.isEmpty()) {
+            writeVersion.incrementAndGet();
+            analytics.savedAll(saved);
+            for (Expense expense : saved) {
+                ids.add(expense.getId());
+            }
+        }
+        return ids;
     }
 
     /**
@@ -45,6 +179,16 @@ public class ExpenseService extends BaseService<ExpenseDAO> {
         return dao.findById(id);
     }
 
+    /**
+     * Get an expense with its category name, for display
+     *
+     * @param id The expense ID
+     * @return ExpenseView object or null if not found
+     */
+    public ExpenseView getExpenseViewById(int id) {
+        return dao.findViewById(id);
+    }
+
     /**
      * Get all expenses for a specific user
      *
@@ -55,6 +199,61 @@ public class ExpenseService extends BaseService<ExpenseDAO> {
         return dao.findByUserId(userId);
     }
 
+    /**
+     * Stream all expenses of a user without loading them into memory. The
+     * caller must close the stream (try-with-resources).
+     *
+     * @param userId The user's ID
+     * @return Lazily fetched stream of the user's expenses
+     */
+    public Stream<Expense> streamExpensesByUserId(int userId) {
+        return dao.streamByUserId(userId);
+    }
+
+    /**
+     * Get a user's expenses within a date range
+     *
+     * @param userId The user's ID
+     * @param from First date included
+     * @param to Last date included
+     * @return Expenses in the range, oldest first
+     */
+    public List<Expense> getExpensesBetween(int userId, LocalDate from, LocalDate to) {
+        if (from == null || to == null || from.isAfter(to)) {
+            return new ArrayList<>();
+        }
+        return dao.findByUserIdBetween(userId, from, to);
+    }
+
+    /**
+     * Get one page of a user's expenses with their category names, newest
+     * first
+     *
+     * @param userId The user's ID
+     * @param after Last expense of the previous page, or null for the first
+     * page
+     * @param limit Page size
+     * @return Up to limit expenses following {@code after}
+     */
+    public List<ExpenseView> getExpensesPage(int userId, Expense after, int limit) {
+        if (after == null) {
+            return dao.findByUserIdPage(userId, null, 0, limit);
+        }
+        return dao.findByUserIdPage(userId, after.getDate(), after.getId(), limit);
+    }
+
+    /**
+     * Search a user's expenses by description, best match first
+     *
+     * @param userId The user's ID
+     * @param query Words to search for; each matches the start of a word
+     * @param limit Maximum number of results
+     * @return Matching expenses with their category names
+     */
+    public List<ExpenseView> searchExpenses(int userId, String query, int limit) {
+        return dao.search(userId, query, limit);
+    }
+
     /**
      * Get all expenses
      *
@@ -74,11 +273,14 @@ public class ExpenseService extends BaseService<ExpenseDAO> {
         if (expense == null || expense.getId() <= 0) {
             return false;
         }
-        if (expense.getAmount() <= 0) {
-            throw new IllegalArgumentException("Amount must be greater than zero");
-        }
+        validate(expense);
 
-        return dao.update(expense);
+        boolean updated = dao.update(expense);
+        if (updated) {
+            writeVersion.incrementAndGet();
+            analytics.saved(expense);
+        }
+        return updated;
     }
 
     /**
@@ -91,19 +293,424 @@ public class ExpenseService extends BaseService<ExpenseDAO> {
         if (id <= 0) {
             return false;
         }
-        return dao.delete(id);
+        Expense expense = dao.findById(id);
+        return expense != null && delete(expense);
+    }
+
+    // Deletes an expense already read, so analytics only touches its owner's state
+    private boolean delete(Expense expense) {
+        boolean deleted = dao.delete(expense.getId());
+        if (deleted) {
+            writeVersion.incrementAndGet();
+            analytics.deleted(expense.getUserId(), expense.getId());
+        }
+        return deleted;
     }
 
     /**
      * Calculate total expenses for a user
      *
      * @param userId The user's ID
-     * @return Total amount of all expenses
+     * @return Total amount of all expenses, in cents
+     */
+    public long getTotalExpensesByUser(int userId) {
+        return dao.sumByUserId(userId);
+    }
+
+    /**
+     * Get per-category totals for a user within a date range
+     *
+     * @param userId The user's ID
+     * @param from First date included, or null for all history
+     * @param to Last date included, or null for no upper bound
+     * @return One total per category
+     */
+    public List<CategoryTotal> getCategoryTotals(int userId, LocalDate from, LocalDate to) {
+        return dao.sumByCategory(userId, from, to);
+    }
+
+    /**
+     * Total of a user's expenses within a date range, answered in O(log n)
+     * from the in-memory day index
+     *
+     * @param userId The user's ID
+     * @param from First date included, or null for no lower bound
+     * @param to Last date included, or null for no upper bound
+     * @return The total in cents
+     */
+    public long totalBetween(int userId, LocalDate from, LocalDate to) {
+        return analytics.sum(userId, from, to);
+    }
+
+    /**
+     * Totals of a user's expenses per category within a date range, answered
+     * from the in-memory day index. Category names come from the category
+     * cache when this service was given a CategoryService.
+     *
+     * @param userId The user's ID
+     * @param from First date included, or null for no lower bound
+     * @param to Last date included, or null for no upper bound
+     * @return One total per category with spending in the range, largest
+     * first
+     */
+    public List<CategoryTotal> totalsByCategoryBetween(int userId, LocalDate from, LocalDate to) {
+        return named(unnamedTotals(userId, from, to));
+    }
+
+    private List<CategoryTotal> unnamedTotals(int userId, LocalDate from, LocalDate to) {
+        List<CategoryTotal> totals = new ArrayList<>();
+        analytics.totalsByCategory(userId, from, to)
+                .forEach((categoryId, cents) -> totals.add(new CategoryTotal(categoryId, null, cents)));
+        return totals;
+    }
+
+    // Names are looked up on every call, so a renamed category shows its new name in cached totals
+    private List<CategoryTotal> named(List<CategoryTotal> totals) {
+        if (categoryService == null) {
+            return totals;
+        }
+        List<CategoryTotal> named = new ArrayList<>(totals.size());
+        for (CategoryTotal total : totals) {
+            Category category = total.getCategoryId() > 0 ? categoryService.getCategoryById(total.getCategoryId()) : null;
+            named.add(new CategoryTotal(total.getCategoryId(), category != null ? category.getName() : null,
+                    total.getTotalCents()));
+        }
+        return named;
+    }
+
+    /**
+     * Export a user's expenses within a date range to a file, oldest first.
+     * Rows stream from the database cursor through one reusable buffer to
+     * the file, so memory use does not depend on the number of expenses.
+     *
+     * @param userId The user's ID
+     * @param from First date included, or null for no lower bound
+     * @param to Last date included, or null for no upper bound
+     * @param format The output format
+     * @param file The file to create or overwrite
+     * @return The number of expenses exported
+     * @throws IOException if the file cannot be written or the expenses
+     * cannot be read
+     */
+    public long export(int userId, LocalDate from, LocalDate to, ExportFormat format, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return export(userId, from, to, format, channel);
+        }
+    }
+
+    /**
+     * Export a user's expenses within a date range to a stream, oldest first.
+     * The stream is not closed.
+     *
+     * @see #export(int, LocalDate, LocalDate, ExportFormat, Path)
+     */
+    public long export(int userId, LocalDate from, LocalDate to, ExportFormat format, OutputStream out) throws IOException {
+        return export(userId, from, to, format, Channels.newChannel(out));
+    }
+
+    private long export(int userId, LocalDate from, LocalDate to, ExportFormat format, WritableByteChannel channel)
+            throws IOException {
+        ExpenseExportWriter writer = new ExpenseExportWriter(channel, format);
+        long rows;
+        try {
+            writer.begin();
+            rows = dao.forEachBetween(userId, from != null ? from : LocalDate.MIN, to != null ? to : LocalDate.MAX, writer);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (rows < 0) {
+            throw new IOException("Could not read expenses to export");
+        }
+        writer.finish();
+        return rows;
+    }
+
+    /**
+     * Get the in-memory analytics engine, for fast range, per-category and
+     * top-N queries over a user's expenses
+     *
+     * @return The analytics engine kept in sync with this service's writes
+     */
+    public ExpenseAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    /**
+     * Drop a user's in-memory analytics, for example once the user's last
+     * session closes; they are reloaded if the user is queried again
+     *
+     * @param userId The user's ID
+     */
+    public void forgetUser(int userId) {
+        analytics.evict(userId);
+    }
+
+    /**
+     * Drop every user's in-memory analytics after a category was deleted,
+     * since the database moved its expenses to no category behind the
+     * service's back; pass to {@link CategoryService#addDeleteListener}
+     *
+     * @param categoryId The deleted category's ID
+     */
+    public void categoryDeleted(int categoryId) {
+        writeVersion.incrementAndGet();
+        analytics.clear();
+    }
+
+    /**
+     * Rebuild the monthly totals rollup from the expenses
+     *
+     * @return true if rebuilt successfully, false otherwise
+     */
+    public boolean rebuildMonthlyTotals() {
+        return dao.rebuildMonthlyTotals();
+    }
+
+    /**
+     * Rebuild the full-text search index from the expenses
+     *
+     * @return true if rebuilt successfully, false otherwise
+     */
+    public boolean rebuildSearchIndex() {
+        return dao.rebuildSearchIndex();
+    }
+
+    /**
+     * Create a new expense for the session's user
+     *
+     * @param session The caller's session
+     * @param expense Expense details; its user ID is set to the session's
+     * @return true if created successfully, false otherwise
+     */
+    public boolean createExpense(Session session, Expense expense) {
+        if (expense == null) {
+            return false;
+        }
+        expense.setUserId(userId(session));
+        return createExpense(expense);
+    }
+
+    /**
+     * Get one of the session user's expenses
+     *
+     * @param session The caller's session
+     * @param id The expense ID
+     * @return The expense, or null if not found or owned by another user
+     */
+    public Expense getExpense(Session session, int id) {
+        Expense expense = dao.findById(id);
+        return expense != null && expense.getUserId() == userId(session) ? expense : null;
+    }
+
+    /**
+     * Update one of the session user's expenses
+     *
+     * @param session The caller's session
+     * @param expense The expense with updated values
+     * @return true if updated, false if not found, owned by another user or
+     * the update failed
+     */
+    public boolean updateExpense(Session session, Expense expense) {
+        if (expense == null || getExpense(session, expense.getId()) == null) {
+            return false;
+        }
+        expense.setUserId(session.getUserId());
+        return updateExpense(expense);
+    }
+
+    /**
+     * Delete one of the session user's expenses
+     *
+     * @param session The caller's session
+     * @param id The expense ID to delete
+     * @return true if deleted, false if not found, owned by another user or
+     * the delete failed
+     */
+    public boolean deleteExpense(Session session, int id) {
+        Expense expense = getExpense(session, id);
+        return expense != null && delete(expense);
+    }
+
+    /**
+     * @see #getExpensesPage(int, Expense, int)
+     */
+    public List<ExpenseView> getExpensesPage(Session session, Expense after, int limit) {
+        return getExpensesPage(userId(session), after, limit);
+    }
+
+    /**
+     * @see #searchExpenses(int, String, int)
+     */
+    public List<ExpenseView> searchExpenses(Session session, String query, int limit) {
+        return searchExpenses(userId(session), query, limit);
+    }
+
+    /**
+     * Total of all the session user's expenses, cached in the session
+     *
+     * @param session The caller's session
+     * @return Total amount, in cents
+     */
+    public long getTotal(Session session) {
+        int userId = userId(session);
+        return session.cached("expenses.total", writeVersion.get(), () -> getTotalExpensesByUser(userId));
+    }
+
+    /**
+     * Per-category totals of the session user within a date range, cached in
+     * the session per range.
+     *
+     * @see #totalsByCategoryBetween(int, LocalDate, LocalDate)
+     */
+    public List<CategoryTotal> totalsByCategoryBetween(Session session, LocalDate from, LocalDate to) {
+        int userId = userId(session);
+        return named(session.cached(new TotalsKey(from, to), writeVersion.get(),
+                () -> List.copyOf(unnamedTotals(userId, from, to))));
+    }
+
+    /**
+     * @see #export(int, LocalDate, LocalDate, ExportFormat, Path)
+     */
+    public long export(Session session, LocalDate from, LocalDate to, ExportFormat format, Path file) throws IOException {
+        return export(userId(session), from, to, format, file);
+    }
+
+    /**
+     * @see #export(int, LocalDate, LocalDate, ExportFormat, OutputStream)
+     */
+    public long export(Session session, LocalDate from, LocalDate to, ExportFormat format, OutputStream out)
+            throws IOException {
+        return export(userId(session), from, to, format, out);
+    }
+
+    /**
+     * Asynchronous {@link #createExpense(Expense)}.
+     */
+    public CompletableFuture<Boolean> createExpenseAsync(Expense expense) {
+        return async(() -> createExpense(expense));
+    }
+
+    /**
+     * Asynchronous {@link #getExpensesByUserId(int)}.
+     */
+    public CompletableFuture<List<Expense>> getExpensesByUserIdAsync(int userId) {
+        return async(() -> getExpensesByUserId(userId));
+    }
+
+    /**
+     * Asynchronous {@link #getExpensesPage(int, Expense, int)}.
+     */
+    public CompletableFuture<List<ExpenseView>> getExpensesPageAsync(int userId, Expense after, int limit) {
+        return async(() -> getExpensesPage(userId, after, limit));
+    }
+
+    /**
+     * Asynchronous {@link #searchExpenses(int, String, int)}.
      */
-    public double getTotalExpensesByUser(int userId) {
-        List<Expense> expenses = dao.findByUserId(userId);
-        return expenses.stream()
-                .mapToDouble(Expense::getAmount)
-                .sum();
+    public CompletableFuture<List<ExpenseView>> searchExpensesAsync(int userId, String query, int limit) {
+        return async(() -> searchExpenses(userId, query, limit));
+    }
+
+    /**
+     * Asynchronous {@link #updateExpense(Expense)}.
+     */
+    public CompletableFuture<Boolean> updateExpenseAsync(Expense expense) {
+        return async(() -> updateExpense(expense));
+    }
+
+    /**
+     * Asynchronous {@link #deleteExpense(int)}.
+     */
+    public CompletableFuture<Boolean> deleteExpenseAsync(int id) {
+        return async(() -> deleteExpense(id));
+    }
+
+    /**
+     * Asynchronous {@link #totalsByCategoryBetween(int, LocalDate, LocalDate)}.
+     */
+    public CompletableFuture<List<CategoryTotal>> totalsByCategoryBetweenAsync(int userId, LocalDate from, LocalDate to) {
+        return async(() -> totalsByCategoryBetween(userId, from, to));
+    }
+
+    /**
+     * Asynchronous {@link #export(int, LocalDate, LocalDate, ExportFormat, Path)}.
+     */
+    public CompletableFuture<Long> exportAsync(int userId, LocalDate from, LocalDate to, ExportFormat format, Path file) {
+        return async(() -> {
+            try {
+                return export(userId, from, to, format, file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Asynchronous {@link #getCategoryTotals(int, LocalDate, LocalDate)}.
+     */
+    public CompletableFuture<List<CategoryTotal>> getCategoryTotalsAsync(int userId, LocalDate from, LocalDate to) {
+        return async(() -> getCategoryTotals(userId, from, to));
+    }
+
+    /**
+     * Asynchronous {@link #createExpense(Session, Expense)}.
+     */
+    public CompletableFuture<Boolean> createExpenseAsync(Session session, Expense expense) {
+        return async(() -> createExpense(session, expense));
+    }
+
+    /**
+     * Asynchronous {@link #updateExpense(Session, Expense)}.
+     */
+    public CompletableFuture<Boolean> updateExpenseAsync(Session session, Expense expense) {
+        return async(() -> updateExpense(session, expense));
+    }
+
+    /**
+     * Asynchronous {@link #deleteExpense(Session, int)}.
+     */
+    public CompletableFuture<Boolean> deleteExpenseAsync(Session session, int id) {
+        return async(() -> deleteExpense(session, id));
+    }
+
+    /**
+     * Asynchronous {@link #getExpensesPage(Session, Expense, int)}.
+     */
+    public CompletableFuture<List<ExpenseView>> getExpensesPageAsync(Session session, Expense after, int limit) {
+        return async(() -> getExpensesPage(session, after, limit));
+    }
+
+    /**
+     * Asynchronous {@link #searchExpenses(Session, String, int)}.
+     */
+    public CompletableFuture<List<ExpenseView>> searchExpensesAsync(Session session, String query, int limit) {
+        return async(() -> searchExpenses(session, query, limit));
+    }
+
+    /**
+     * Asynchronous {@link #totalsByCategoryBetween(Session, LocalDate, LocalDate)}.
+     */
+    public CompletableFuture<List<CategoryTotal>> totalsByCategoryBetweenAsync(Session session, LocalDate from,
+            LocalDate to) {
+        return async(() -> totalsByCategoryBetween(session, from, to));
+    }
+
+    /**
+     * Asynchronous {@link #export(Session, LocalDate, LocalDate, ExportFormat, Path)}.
+     */
+    public CompletableFuture<Long> exportAsync(Session session, LocalDate from, LocalDate to, ExportFormat format,
+            Path file) {
+        return async(() -> {
+            try {
+                return export(session, from, to, format, file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // Session cache key of a per-category totals query
+    private record TotalsKey(LocalDate from, LocalDate to) {
     }
 }
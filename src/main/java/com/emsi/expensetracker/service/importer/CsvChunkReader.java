@@ -0,0 +1,95 @@
+package com.emsi.expensetracker.service.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a CSV file through a {@link FileChannel} and a fixed direct buffer,
+ * cutting it into chunks of whole records without decoding them. A record ends
+ * at a line feed outside double quotes, so quoted fields may span lines. Only
+ * the buffer and the chunk being filled are held in memory.
+ */
+class CsvChunkReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private byte[] chunk = new byte[BUFFER_SIZE];
+    private boolean inQuotes;
+    private boolean eof;
+    private int line = 1;
+
+    CsvChunkReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        buffer.limit(0);
+    }
+
+    /**
+     * @return The physical line number the next chunk starts on
+     */
+    int nextLine() {
+        return line;
+    }
+
+    /**
+     * Reads up to {@code maxRecords} whole records.
+     *
+     * @param maxRecords Maximum number of records in the chunk
+     * @return The raw bytes of the records, or null at end of file
+     * @throws IOException if the file cannot be read
+     */
+    byte[] next(int maxRecords) throws IOException {
+        int length = 0;
+        int records = 0;
+        while (records < maxRecords) {
+            if (!buffer.hasRemaining()) {
+                if (eof || !fill()) {
+                    break;
+                }
+            }
+            int start = buffer.position();
+            int limit = buffer.limit();
+            int i = start;
+            while (i < limit) {
+                byte b = buffer.get(i++);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n') {
+                    line++;
+                    if (!inQuotes && ++records == maxRecords) {
+                        break;
+                    }
+                }
+            }
+            int count = i - start;
+            if (length + count > chunk.length) {
+                chunk = Arrays.copyOf(chunk, Math.max(chunk.length * 2, length + count));
+            }
+            buffer.get(chunk, length, count);
+            length += count;
+        }
+        return length == 0 ? null : Arrays.copyOf(chunk, length);
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read = channel.read(buffer);
+        buffer.flip();
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,281 @@
+package com.emsi.expensetracker.service.importer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.emsi.expensetracker.model.Category;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.service.implementation.CategoryService;
+import com.emsi.expensetracker.service.implementation.ExpenseService;
+
+/**
+ * Imports bank statement CSV files as expenses of one user. The import runs
+ * as a pipeline of three stages joined by bounded queues, so a slow stage
+ * blocks the one before it and heap use stays bounded whatever the file size:
+ * <ol>
+ * <li>one reader cuts the file into chunks of whole records
+ * ({@link CsvChunkReader}),</li>
+ * <li>parser workers decode, parse, convert and validate each chunk
+ * ({@link CsvRecordParser}, {@link ExpenseRowConverter}),</li>
+ * <li>the calling thread saves each parsed chunk with
+ * {@link ExpenseService#createExpenses}, which writes batched
+ * transactions.</li>
+ * </ol>
+ * The file needs a header row naming at least the {@code date}
+ * (yyyy-MM-dd) and {@code amount} columns; {@code description} and
+ * {@code category} are optional. The separator (comma, semicolon or tab) is
+ * taken from the header. Invalid lines are skipped and listed in the
+ * {@link ImportReport}. Imports share the writer connection and its profile
+ * with every other write, so several can run at once.
+ */
+public class CsvExpenseImporter {
+
+    public static final int DEFAULT_CHUNK_RECORDS = 2000;
+
+    /**
+     * Rejected lines kept in the report; the rest are only counted.
+     */
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final RawChunk END_OF_FILE = new RawChunk(0, new byte[0]);
+    private static final ParsedChunk END_OF_CHUNKS = new ParsedChunk(0, List.of(), List.of());
+
+    private final ExpenseService expenseService;
+    private final CategoryService categoryService;
+    private final Executor executor;
+    private final int workers;
+    private final int chunkRecords;
+
+    /**
+     * Constructs an importer with one parser worker per spare core.
+     *
+     * @param expenseService Service saving the expenses
+     * @param categoryService Service resolving category names
+     * @param executor The executor running {@link #importFileAsync}
+     */
+    public CsvExpenseImporter(ExpenseService expenseService, CategoryService categoryService,
+            Executor executor) {
+        this(expenseService, categoryService, executor,
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1), DEFAULT_CHUNK_RECORDS);
+    }
+
+    /**
+     * @param expenseService Service saving the expenses
+     * @param categoryService Service resolving category names
+     * @param executor The executor running {@link #importFileAsync}
+     * @param workers Number of parser workers
+     * @param chunkRecords Records per chunk handed between stages
+     */
+    public CsvExpenseImporter(ExpenseService expenseService, CategoryService categoryService,
+            Executor executor, int workers, int chunkRecords) {
+        if (workers <= 0 || chunkRecords <= 0) {
+            throw new IllegalArgumentException("Workers and chunk size must be greater than zero");
+        }
+        this.expenseService = expenseService;
+        this.categoryService = categoryService;
+        this.executor = executor;
+        this.workers = workers;
+        this.chunkRecords = chunkRecords;
+    }
+
+    /**
+     * Imports a CSV file.
+     *
+     * @param file The CSV file
+     * @param userId Owner of the imported expenses
+     * @param fallbackCategoryId Category for lines with a blank or unknown
+     * category, 0 to reject those lines
+     * @return What was imported and which lines were rejected
+     * @throws IOException if the file cannot be read
+     */
+    public ImportReport importFile(Path file, int userId, int fallbackCategoryId) throws IOException {
+        long start = System.nanoTime();
+        try (CsvChunkReader reader = new CsvChunkReader(file)) {
+            byte[] headerBytes = reader.next(1);
+            if (headerBytes == null) {
+                return new ImportReport(0, 0, List.of(), System.nanoTime() - start);
+            }
+            String headerText = new String(headerBytes, StandardCharsets.UTF_8);
+            if (headerText.startsWith("\uFEFF")) {
+                headerText = headerText.substring(1);
+            }
+            char separator = separatorOf(headerText);
+            List<String> header = new ArrayList<>();
+            CsvRecordParser.parse(headerText, 1, separator, (line, fields) -> header.addAll(fields));
+
+            ExpenseRowConverter converter;
+            try {
+                converter = new ExpenseRowConverter(header, userId, categoryIdsByName(userId), fallbackCategoryId);
+            } catch (IllegalArgumentException e) {
+                return new ImportReport(0, 1, List.of(new ImportError(1, e.getMessage())), System.nanoTime() - start);
+            }
+
+            return run(reader, converter, separator, start);
+        }
+    }
+
+    /**
+     * Asynchronous {@link #importFile(Path, int, int)}.
+     */
+    public CompletableFuture<ImportReport> importFileAsync(Path file, int userId, int fallbackCategoryId) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return importFile(file, userId, fallbackCategoryId);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    private ImportReport run(CsvChunkReader reader, ExpenseRowConverter converter, char separator, long start)
+            throws IOException {
+        BlockingQueue<RawChunk> raw = new ArrayBlockingQueue<>(workers * 2);
+        BlockingQueue<ParsedChunk> parsed = new ArrayBlockingQueue<>(workers * 2);
+        ExecutorService threads = Executors.newFixedThreadPool(workers + 1);
+        try {
+            Future<Void> reading = threads.submit(() -> {
+                read(reader, raw);
+                return null;
+            });
+            for (int i = 0; i < workers; i++) {
+                threads.execute(() -> parse(converter, separator, raw, parsed));
+            }
+
+            long imported = 0;
+            long rejected = 0;
+            List<ImportError> errors = new ArrayList<>();
+            int finished = 0;
+            while (finished < workers) {
+                ParsedChunk chunk = parsed.take();
+                if (chunk == END_OF_CHUNKS) {
+                    finished++;
+                    continue;
+                }
+                rejected += chunk.errors().size();
+                keep(errors, chunk.errors());
+                if (chunk.expenses().isEmpty()) {
+                    continue;
+                }
+                int saved = expenseService.createExpenses(chunk.expenses()).size();
+                imported += saved;
+                if (saved < chunk.expenses().size()) {
+                    rejected += chunk.expenses().size() - saved;
+                    keep(errors, List.of(new ImportError(chunk.firstLine(), "Could not save "
+                            + (chunk.expenses().size() - saved) + " expenses of the lines starting here")));
+                }
+            }
+            reading.get();
+
+            errors.sort(Comparator.comparingInt(ImportError::getLine));
+            List<ImportError> reported = errors.subList(0, Math.min(errors.size(), MAX_REPORTED_ERRORS));
+            return new ImportReport(imported, rejected, reported, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    // Reader stage: always ends with one end marker per worker, even if reading fails
+    private void read(CsvChunkReader reader, BlockingQueue<RawChunk> raw) throws IOException, InterruptedException {
+        try {
+            int line = reader.nextLine();
+            byte[] data;
+            while ((data = reader.next(chunkRecords)) != null) {
+                raw.put(new RawChunk(line, data));
+                line = reader.nextLine();
+            }
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                raw.put(END_OF_FILE);
+            }
+        }
+    }
+
+    // Parser stage
+    private void parse(ExpenseRowConverter converter, char separator, BlockingQueue<RawChunk> raw,
+            BlockingQueue<ParsedChunk> parsed) {
+        try {
+            RawChunk chunk;
+            while ((chunk = raw.take()) != END_OF_FILE) {
+                List<Expense> expenses = new ArrayList<>(chunkRecords);
+                List<ImportError> errors = new ArrayList<>();
+                String text = new String(chunk.data(), StandardCharsets.UTF_8);
+                CsvRecordParser.parse(text, chunk.firstLine(), separator, (line, fields) -> {
+                    if (ExpenseRowConverter.isBlank(fields)) {
+                        return;
+                    }
+                    try {
+                        expenses.add(converter.convert(fields));
+                    } catch (IllegalArgumentException e) {
+                        errors.add(new ImportError(line, e.getMessage()));
+                    }
+                });
+                parsed.put(new ParsedChunk(chunk.firstLine(), expenses, errors));
+            }
+            parsed.put(END_OF_CHUNKS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Keep the errors bounded: once twice the reported number is held, drop all but the first lines
+    private static void keep(List<ImportError> errors, List<ImportError> more) {
+        errors.addAll(more);
+        if (errors.size() > 2 * MAX_REPORTED_ERRORS) {
+            errors.sort(Comparator.comparingInt(ImportError::getLine));
+            errors.subList(MAX_REPORTED_ERRORS, errors.size()).clear();
+        }
+    }
+
+    private Map<String, Integer> categoryIdsByName(int userId) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (Category category : categoryService.getAvailableCategories(userId)) {
+            ids.putIfAbsent(category.getName().toLowerCase(Locale.ROOT), category.getId());
+        }
+        return ids;
+    }
+
+    // The separator used most often in the header
+    private static char separatorOf(String header) {
+        char best = ',';
+        long bestCount = header.chars().filter(c -> c == ',').count();
+        for (char candidate : new char[] {';', '\t'}) {
+            long count = header.chars().filter(c -> c == candidate).count();
+            if (count > bestCount) {
+                best = candidate;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    private record RawChunk(int firstLine, byte[] data) {
+    }
+
+    private record ParsedChunk(int firstLine, List<Expense> expenses, List<ImportError> errors) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.emsi.expensetracker.service.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits decoded CSV text into records (RFC 4180). Fields may be quoted, a
+ * doubled quote inside quotes is a literal quote, and carriage returns outside
+ * quotes are ignored. Quote handling matches {@link CsvChunkReader}, so a chunk
+ * always holds whole records.
+ */
+final class CsvRecordParser {
+
+    /**
+     * Receives each parsed record. The field list is reused between calls.
+     */
+    @FunctionalInterface
+    interface RecordHandler {
+
+        void record(int line, List<String> fields);
+    }
+
+    private CsvRecordParser() {
+    }
+
+    /**
+     * Parses every record in the text.
+     *
+     * @param text Whole records
+     * @param firstLine Physical line number of the first record
+     * @param separator Field separator
+     * @param handler Receives each record with the line it starts on
+     */
+    static void parse(String text, int firstLine, char separator, RecordHandler handler) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean inQuotes = false;
+        int line = firstLine;
+        int recordLine = firstLine;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                if (inQuotes && i + 1 < length && text.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (c == '\n') {
+                line++;
+                if (inQuotes) {
+                    field.append(c);
+                } else {
+                    fields.add(field.toString());
+                    handler.record(recordLine, fields);
+                    fields.clear();
+                    field.setLength(0);
+                    recordLine = line;
+                }
+            } else if (inQuotes) {
+                field.append(c);
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c != '\r') {
+                field.append(c);
+            }
+        }
+        if (field.length() > 0 || !fields.isEmpty()) {
+            fields.add(field.toString());
+            handler.record(recordLine, fields);
+        }
+    }
+}
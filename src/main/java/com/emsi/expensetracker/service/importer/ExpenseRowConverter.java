@@ -0,0 +1,125 @@
+package com.emsi.expensetracker.service.importer;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.Money;
+import com.emsi.expensetracker.service.implementation.ExpenseService;
+
+/**
+ * Turns CSV records into expenses for one user. Columns are located by
+ * header name, category names are resolved through a prebuilt name-to-id map,
+ * and every expense passes {@link ExpenseService#validate(Expense)}. Instances
+ * are immutable and shared by all parser workers.
+ */
+class ExpenseRowConverter {
+
+    private final int dateColumn;
+    private final int amountColumn;
+    private final int descriptionColumn;
+    private final int categoryColumn;
+    private final int userId;
+    private final Map<String, Integer> categoryIds;
+    private final int fallbackCategoryId;
+
+    /**
+     * @param header Header record; date and amount columns are required
+     * @param userId Owner of the imported expenses
+     * @param categoryIds Category IDs by lower-case name
+     * @param fallbackCategoryId Category for blank or unknown names, 0 to
+     * reject those lines
+     * @throws IllegalArgumentException if a required column is missing
+     */
+    ExpenseRowConverter(List<String> header, int userId, Map<String, Integer> categoryIds, int fallbackCategoryId) {
+        this.dateColumn = column(header, true, "date", "transaction date", "booking date");
+        this.amountColumn = column(header, true, "amount", "debit");
+        this.descriptionColumn = column(header, false, "description", "details", "memo", "payee");
+        this.categoryColumn = column(header, false, "category");
+        this.userId = userId;
+        this.categoryIds = categoryIds;
+        this.fallbackCategoryId = fallbackCategoryId;
+    }
+
+    private static int column(List<String> header, boolean required, String... names) {
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT);
+            for (String candidate : names) {
+                if (name.equals(candidate)) {
+                    return i;
+                }
+            }
+        }
+        if (required) {
+            throw new IllegalArgumentException("Missing required column: " + names[0]);
+        }
+        return -1;
+    }
+
+    /**
+     * @param fields A data record
+     * @return true if every field of the record is blank
+     */
+    static boolean isBlank(List<String> fields) {
+        for (String field : fields) {
+            if (!field.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Converts and validates one record.
+     *
+     * @param fields A data record
+     * @return The expense to save
+     * @throws IllegalArgumentException with a message for the error report if
+     * the record is invalid
+     */
+    Expense convert(List<String> fields) {
+        String dateText = field(fields, dateColumn);
+        String amountText = field(fields, amountColumn);
+        if (dateText == null || amountText == null) {
+            throw new IllegalArgumentException("Expected at least " + (Math.max(dateColumn, amountColumn) + 1)
+                    + " columns but found " + fields.size());
+        }
+
+        LocalDate date;
+        try {
+            date = LocalDate.parse(dateText);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + dateText);
+        }
+        long amountCents;
+        try {
+            amountCents = Money.parse(amountText);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid amount: " + amountText);
+        }
+
+        String description = field(fields, descriptionColumn);
+        Expense expense = new Expense(description != null ? description : "", amountCents,
+                categoryId(field(fields, categoryColumn)), date, userId);
+        ExpenseService.validate(expense);
+        return expense;
+    }
+
+    private int categoryId(String name) {
+        Integer id = name == null || name.isEmpty() ? null : categoryIds.get(name.toLowerCase(Locale.ROOT));
+        if (id != null) {
+            return id;
+        }
+        if (fallbackCategoryId > 0) {
+            return fallbackCategoryId;
+        }
+        throw new IllegalArgumentException(name == null || name.isEmpty() ? "Category is required" : "Unknown category: " + name);
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column >= 0 && column < fields.size() ? fields.get(column).trim() : null;
+    }
+}
@@ -0,0 +1,21 @@
+package com.emsi.expensetracker.service.importer;
+
+// A CSV line the importer rejected, with the reason
+public class ImportError {
+
+    private final int line;
+    private final String message;
+
+    public ImportError(int line, String message) {
+        this.line = line;
+        this.message = message;
+    }
+
+    public int getLine() { return line; }
+    public String getMessage() { return message; }
+
+    @Override
+    public String toString() {
+        return "Line " + line + ": " + message;
+    }
+}
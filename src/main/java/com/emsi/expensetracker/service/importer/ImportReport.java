@@ -0,0 +1,40 @@
+package com.emsi.expensetracker.service.importer;
+
+import java.util.List;
+
+/**
+ * Outcome of one CSV import. Only the first rejected lines are kept in
+ * {@link #getErrors()}, sorted by line; {@link #getRejected()} counts all of
+ * them.
+ */
+public class ImportReport {
+
+    private final long imported;
+    private final long rejected;
+    private final List<ImportError> errors;
+    private final long elapsedNanos;
+
+    public ImportReport(long imported, long rejected, List<ImportError> errors, long elapsedNanos) {
+        this.imported = imported;
+        this.rejected = rejected;
+        this.errors = List.copyOf(errors);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getImported() { return imported; }
+    public long getRejected() { return rejected; }
+    public List<ImportError> getErrors() { return errors; }
+    public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+
+    /**
+     * @return Imported rows per second of wall-clock time
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : imported / (elapsedNanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return "Imported " + imported + " expenses, rejected " + rejected + " lines in " + getElapsedMillis() + " ms";
+    }
+}
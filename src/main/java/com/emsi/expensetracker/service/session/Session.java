@@ -0,0 +1,119 @@
+package com.emsi.expensetracker.service.session;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.emsi.expensetracker.model.User;
+
+/**
+ * One logged-in user, identified by an opaque token. Sessions are created and
+ * expired by a {@link SessionRegistry}; services take a session instead of a
+ * user ID for calls made on behalf of a user, and use its cache for results
+ * that are requested repeatedly, such as dashboard totals.
+ *
+ * Sessions are thread-safe: a front end may serve several requests of the
+ * same session at once.
+ */
+public class Session {
+
+    /**
+     * Cached results beyond this many are all dropped at once; entries are
+     * small, and a session rarely asks for more than a few distinct results.
+     */
+    static final int MAX_CACHED = 64;
+
+    private final String token;
+    private final User user;
+    private final long createdAt;
+    private volatile long lastAccessNanos;
+    private volatile boolean open = true;
+    private final Map<Object, CacheEntry> cache = new ConcurrentHashMap<>();
+
+    Session(String token, User user, long nowNanos) {
+        this.token = token;
+        this.user = user;
+        this.createdAt = System.currentTimeMillis();
+        this.lastAccessNanos = nowNanos;
+    }
+
+    /**
+     * @return The opaque token identifying this session to clients
+     */
+    public String getToken() {
+        return token;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public int getUserId() {
+        return user.getId();
+    }
+
+    /**
+     * @return Creation time in epoch milliseconds
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * @return false once the session was closed or expired
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Returns the cached result for a key, or computes and caches it. A
+     * result is reused only while the caller's data version is unchanged, so
+     * services pass a counter they increment on every write.
+     *
+     * @param key Identifies the result, including its parameters
+     * @param version The current version of the data the result derives from
+     * @param loader Computes the result on a miss; may run concurrently for
+     * the same key
+     * @return The cached or freshly computed result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T cached(Object key, long version, Supplier<T> loader) {
+        CacheEntry entry = cache.get(key);
+        if (entry != null && entry.version() == version) {
+            return (T) entry.value();
+        }
+        T value = loader.get();
+        if (open) {
+            if (cache.size() >= MAX_CACHED) {
+                cache.clear();
+            }
+            cache.put(key, new CacheEntry(version, value));
+        }
+        return value;
+    }
+
+    /**
+     * Drops every cached result of this session.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    long getLastAccessNanos() {
+        return lastAccessNanos;
+    }
+
+    // A plain volatile write, so concurrent requests never contend on a lock
+    void touch(long nowNanos) {
+        lastAccessNanos = nowNanos;
+    }
+
+    void close() {
+        open = false;
+        cache.clear();
+    }
+
+    private record CacheEntry(long version, Object value) {
+    }
+}
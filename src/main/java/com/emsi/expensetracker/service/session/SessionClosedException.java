@@ -0,0 +1,15 @@
+package com.emsi.expensetracker.service.session;
+
+/**
+ * Thrown by session-scoped service calls made with a session that was
+ * closed or expired, so front ends can tell a lapsed login apart from other
+ * illegal states.
+ */
+public class SessionClosedException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SessionClosedException() {
+        super("Session is closed");
+    }
+}
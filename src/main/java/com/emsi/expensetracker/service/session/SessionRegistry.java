@@ -0,0 +1,256 @@
+package com.emsi.expensetracker.service.session;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
+import java.util.Base64;
+
+import com.emsi.expensetracker.model.User;
+
+/**
+ * Open sessions by token, with idle expiry. Lookups and touches are a
+ * concurrent map read and a volatile write, so thousands of sessions can be
+ * served at once without a shared lock.
+ *
+ * Expiry uses a hashed timer wheel: each session sits in the bucket of the
+ * tick its idle deadline falls on, and a single background thread visits one
+ * bucket per tick. A session used since it was filed is moved to the bucket
+ * of its new deadline instead of being expired, so touching a session never
+ * reorganises the wheel and each sweep only sees the sessions due around
+ * that tick. {@link #find(String)} also checks the deadline itself, so an
+ * idle session is never returned even if its bucket was not swept yet.
+ */
+public final class SessionRegistry {
+
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(30);
+    public static final Duration DEFAULT_TICK = Duration.ofSeconds(1);
+
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder TOKEN_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    // Open sessions per user ID, so listeners hear about a user's last session only
+    private final ConcurrentHashMap<Integer, Integer> openByUser = new ConcurrentHashMap<>();
+    private final List<IntConsumer> logoutListeners = new CopyOnWriteArrayList<>();
+    private final long idleNanos;
+    private final long tickNanos;
+    private final LongSupplier clock;
+    private final long origin;
+    private final Queue<Session>[] wheel;
+    private final int mask;
+    private final ScheduledExecutorService sweeper;
+    // Last tick swept; only read and written under the sweep lock
+    private long sweptTick;
+
+    /**
+     * A registry with the default idle timeout, swept every second.
+     */
+    public SessionRegistry() {
+        this(DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * A registry swept every second by a daemon thread.
+     *
+     * @param idleTimeout How long a session may go unused before it expires
+     */
+    public SessionRegistry(Duration idleTimeout) {
+        this(idleTimeout, DEFAULT_TICK, System::nanoTime, true);
+    }
+
+    /**
+     * A registry on the given clock with no sweeper thread; idle sessions are
+     * removed by calling {@link #expireIdle()}. Used by tests.
+     *
+     * @param idleTimeout How long a session may go unused before it expires
+     * @param tick Resolution of the timer wheel
+     * @param clock Current time in nanoseconds
+     */
+    public SessionRegistry(Duration idleTimeout, Duration tick, LongSupplier clock) {
+        this(idleTimeout, tick, clock, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private SessionRegistry(Duration idleTimeout, Duration tick, LongSupplier clock, boolean sweep) {
+        if (idleTimeout.isNegative() || idleTimeout.isZero() || tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("Idle timeout and tick must be positive");
+        }
+        this.idleNanos = idleTimeout.toNanos();
+        this.tickNanos = tick.toNanos();
+        this.clock = clock;
+        this.origin = clock.getAsLong();
+        // A deadline is at most idle + 1 ticks ahead, so it never wraps onto the bucket being swept
+        long idleTicks = (idleNanos + tickNanos - 1) / tickNanos;
+        int buckets = Integer.highestOneBit((int) Math.min(idleTicks + 1, 1 << 20)) << 1;
+        this.wheel = (Queue<Session>[]) new Queue<?>[buckets];
+        for (int i = 0; i < buckets; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.mask = buckets - 1;
+        if (sweep) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "session-expiry");
+                thread.setDaemon(true);
+                return thread;
+            });
+            sweeper.scheduleAtFixedRate(this::expireIdle, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        } else {
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Opens a session for an authenticated user.
+     *
+     * @param user The user the session acts for
+     * @return The new session, with a fresh random token
+     */
+    public Session open(User user) {
+        byte[] random = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(random);
+        Session session = new Session(TOKEN_ENCODER.encodeToString(random), user, clock.getAsLong());
+        openByUser.merge(user.getId(), 1, Integer::sum);
+        sessions.put(session.getToken(), session);
+        schedule(session);
+        return session;
+    }
+
+    /**
+     * Registers a callback run with a user's ID once the last of the user's
+     * sessions is closed or expires, so services can drop per-user state.
+     *
+     * @param listener Receives the user ID; runs on the thread closing the
+     * session, which may be the sweeper
+     */
+    public void addLogoutListener(IntConsumer listener) {
+        logoutListeners.add(listener);
+    }
+
+    /**
+     * Looks up a session and marks it as used.
+     *
+     * @param token The session token
+     * @return The open session, or null if the token is unknown, closed or
+     * idle for longer than the timeout
+     */
+    public Session find(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = clock.getAsLong();
+        if (now - session.getLastAccessNanos() >= idleNanos) {
+            expire(session);
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    /**
+     * Closes a session, for example on logout.
+     *
+     * @param token The session token
+     * @return true if an open session was closed
+     */
+    public boolean close(String token) {
+        Session session = token != null ? sessions.remove(token) : null;
+        if (session == null) {
+            return false;
+        }
+        closed(session);
+        return true;
+    }
+
+    /**
+     * @return Number of open sessions, including idle ones not swept yet
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Sweeps every wheel bucket whose tick has passed since the last sweep.
+     * Called once per tick by the sweeper thread.
+     *
+     * @return Number of sessions expired
+     */
+    public synchronized int expireIdle() {
+        long now = clock.getAsLong();
+        long nowTick = Math.floorDiv(now - origin, tickNanos);
+        // After a long pause one full turn visits every bucket
+        long first = Math.max(sweptTick + 1, nowTick - mask);
+        int expired = 0;
+        List<Session> due = new ArrayList<>();
+        for (long tick = first; tick <= nowTick; tick++) {
+            Queue<Session> bucket = wheel[(int) (tick & mask)];
+            for (Session session; (session = bucket.poll()) != null;) {
+                due.add(session);
+            }
+            for (Session session : due) {
+                if (!session.isOpen()) {
+                    continue;
+                }
+                if (now - session.getLastAccessNanos() >= idleNanos) {
+                    expire(session);
+                    expired++;
+                } else {
+                    schedule(session);
+                }
+            }
+            due.clear();
+        }
+        sweptTick = Math.max(sweptTick, nowTick);
+        return expired;
+    }
+
+    /**
+     * Stops the sweeper thread and closes every session.
+     */
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        for (Session session : sessions.values()) {
+            close(session.getToken());
+        }
+    }
+
+    // Files the session in the bucket of the tick its idle deadline falls on
+    private void schedule(Session session) {
+        long deadline = session.getLastAccessNanos() + idleNanos - origin;
+        long tick = Math.floorDiv(deadline + tickNanos - 1, tickNanos);
+        wheel[(int) (tick & mask)].add(session);
+    }
+
+    private void expire(Session session) {
+        if (sessions.remove(session.getToken(), session)) {
+            closed(session);
+        }
+    }
+
+    // Runs once per session, after it left the map
+    private void closed(Session session) {
+        session.close();
+        int userId = session.getUserId();
+        if (openByUser.computeIfPresent(userId, (id, open) -> open > 1 ? open - 1 : null) == null) {
+            for (IntConsumer listener : logoutListeners) {
+                listener.accept(userId);
+            }
+        }
+    }
+}
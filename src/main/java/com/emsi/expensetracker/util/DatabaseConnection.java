@@ -7,35 +7,81 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import org.sqlite.SQLiteOpenMode;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 public class DatabaseConnection {
 
-    private final HikariDataSource dataSource;
+    // Exactly one writer connection; see the constructor
+    private static final int WRITE_POOL_SIZE = 1;
+
+    private final HikariDataSource readDataSource;
+    private final HikariDataSource writeDataSource;
+    private final DatabaseWriter writer;
+    private final Properties props;
+    private final PragmaProfile profile;
+    private volatile String writerProfileName;
+    private final int batchSize;
+    private final int fetchSize;
 
     // Private constructor - prevent instantiation
     public DatabaseConnection() {
+        this(loadConfig());
+    }
+
+    // Build the pools from properties overriding config.properties (used by tests and benchmarks)
+    public DatabaseConnection(Properties overrides) {
+
+        this.props = loadConfig();
+        this.props.putAll(overrides);
+        this.profile = PragmaProfile.load(props, props.getProperty("db.profile", "balanced"));
+        this.writerProfileName = profile.getName();
+
+        // SQLite allows a single writer, so all writes share one connection fed by the writer queue.
+        // The size is fixed: runtime profile switches and the ID ranges of batched inserts assume it.
+        // It is opened first so the database file and its WAL exist before read-only connections attach.
+        HikariConfig writeConfig = poolConfig(props, WRITE_POOL_SIZE);
+        profile.addTo(writeConfig, false);
+        writeConfig.setPoolName("sqlite-write");
+        this.writeDataSource = new HikariDataSource(writeConfig);
+
+        // Readers open the file read-only and reject writes; in WAL mode each read transaction sees a
+        // consistent snapshot and never waits on the writer
+        HikariConfig readConfig = poolConfig(props, Integer.parseInt(props.getProperty("db.pool.read.size", "4")));
+        readConfig.setPoolName("sqlite-read");
+        profile.addTo(readConfig, true);
+        readConfig.addDataSourceProperty("open_mode", String.valueOf(SQLiteOpenMode.READONLY.flag));
+        readConfig.setReadOnly(true);
+        readConfig.setConnectionInitSql("PRAGMA query_only = ON");
+        this.readDataSource = new HikariDataSource(readConfig);
+
+        this.writer = new DatabaseWriter(writeDataSource,
+                Long.parseLong(props.getProperty("db.writer.flush.ms", "0")),
+                Integer.parseInt(props.getProperty("db.writer.max.batch", "256")));
+        this.batchSize = Integer.parseInt(props.getProperty("db.batch.size", "1000"));
+        this.fetchSize = Integer.parseInt(props.getProperty("db.fetch.size", "500"));
 
-        Properties props = loadConfig();
+    }
 
+    private static HikariConfig poolConfig(Properties props, int size) {
         HikariConfig config = new HikariConfig();
         config.setJdbcUrl(props.getProperty("db.url"));
-        config.setMaximumPoolSize(Integer.parseInt(props.getProperty("db.pool.size")));
-
-        // SQLite specific settings
-        config.addDataSourceProperty("journal_mode", "WAL");
-        config.addDataSourceProperty("synchronous", "NORMAL");
-
-        this.dataSource = new HikariDataSource(config);
+        config.setMaximumPoolSize(size);
 
+        // Local file connections never go stale; retiring them would also drop a runtime profile switch
+        config.setMaxLifetime(0);
+        return config;
     }
 
     // Initialize the connection pool
     public void initialize() {
 
-        createTables();
+        verifyProfile();
+        migrate();
         seedIfEmpty();
 
         System.out.println("Database initialized");
@@ -54,68 +100,103 @@ public class DatabaseConnection {
         return props;
     }
 
-    // Get a connection from the pool
-    public Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+    // Get a read-only connection for queries
+    public Connection getReadConnection() throws SQLException {
+        return readDataSource.getConnection();
+    }
+
+    // Get the writer connection for schema changes; regular writes go through submitWrite
+    public Connection getWriteConnection() throws SQLException {
+        return writeDataSource.getConnection();
+    }
+
+    // Queue a write on the single writer connection
+    public <T> CompletableFuture<T> submitWrite(WriteTask<T> task) {
+        return writer.submit(task);
+    }
+
+    // Switch the writer connection to another PRAGMA profile for every write that follows.
+    // Every write shares that connection, so a profile turning off foreign keys or fsync is refused.
+    public void useProfile(String name) throws SQLException {
+        PragmaProfile next = PragmaProfile.load(props, name);
+        if (next.disables("foreign_keys") || next.disables("synchronous")) {
+            throw new IllegalArgumentException("Profile " + name + " turns off foreign keys or synchronous writes");
+        }
+        // Borrowing the single writer connection waits for any in-flight flush, and applies outside a transaction
+        try (Connection conn = getWriteConnection()) {
+            next.apply(conn);
+        }
+        writerProfileName = next.getName();
+        System.out.println("Writer switched to database profile " + name);
+    }
+
+    // Name of the PRAGMA profile currently applied to the writer connection
+    public String getWriterProfileName() {
+        return writerProfileName;
+    }
+
+    // Number of rows written per transaction by bulk operations
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    // Rows fetched per round trip by streaming queries
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    // Any other setting from config.properties and the overrides, e.g. auth.pbkdf2.iterations
+    public String getProperty(String key, String defaultValue) {
+        return props.getProperty(key, defaultValue);
     }
 
     // Shutdown the pool when app closes
     public void shutdown() {
-        if (dataSource != null) {
-            dataSource.close();
+        // Returns only once the writer thread has stopped using the write pool
+        writer.shutdown();
+        writeDataSource.close();
+        if (readDataSource != null) {
+            readDataSource.close();
             System.out.println("Database connection pool closed");
         }
     }
 
-    private void createTables() {
-        String createUsers = """
-        CREATE TABLE IF NOT EXISTS users (
-            id INTEGER PRIMARY KEY AUTOINCREMENT,
-            username TEXT UNIQUE NOT NULL,
-            password TEXT NOT NULL,
-            email TEXT,
-            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-        )
-        """;
-
-        String createExpenses = """
-        CREATE TABLE IF NOT EXISTS expenses (
-            id INTEGER PRIMARY KEY AUTOINCREMENT,
-            description TEXT NOT NULL,
-            amount REAL NOT NULL,
-            date TEXT DEFAULT CURRENT_DATE,
-            user_id INT REFERENCES users(id) ON DELETE CASCADE,
-            category_id INT REFERENCES categories(id) ON DELETE SET NULL
-        )
-        """;
-
-        String createCategories = """
-        CREATE TABLE IF NOT EXISTS categories (
-            id INTEGER PRIMARY KEY AUTOINCREMENT,
-            name TEXT NOT NULL UNIQUE,
-            user_id INT REFERENCES users(id) ON DELETE CASCADE,
-            description TEXT 
-        )
-        """;
-
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
-            stmt.execute(createUsers);
-            stmt.execute(createExpenses);
-            stmt.execute(createCategories);
+    // Read the PRAGMAs back to check the driver applied the profile on both pools
+    private void verifyProfile() {
+        try (Connection write = getWriteConnection(); Connection read = getReadConnection()) {
+            for (String mismatch : profile.verify(write)) {
+                System.err.println("Writer PRAGMA mismatch (" + profile.getName() + "): " + mismatch);
+            }
+            for (String mismatch : profile.verify(read)) {
+                System.err.println("Reader PRAGMA mismatch (" + profile.getName() + "): " + mismatch);
+            }
         } catch (SQLException e) {
-            System.err.println("Error creating tables: " + e.getMessage());
+            System.err.println("Error verifying database profile: " + e.getMessage());
+        }
+        System.out.println("Database profile " + profile.getName() + " applied");
+    }
+
+    // Apply pending schema migrations
+    private void migrate() {
+        try {
+            new SchemaMigrator(this).migrate();
+        } catch (SQLException e) {
+            System.err.println("Error migrating schema: " + e.getMessage());
         }
     }
 
     private void seedIfEmpty() {
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM categories")) {
+        boolean empty = false;
+        try (Connection conn = getReadConnection(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM categories")) {
 
-            if (rs.getInt(1) == 0) {
-                seedSampleData();
-            }
+            empty = rs.getInt(1) == 0;
         } catch (SQLException e) {
             System.err.println("Error checking database: " + e.getMessage());
         }
+        // Seed after the check connection is returned so a single-connection pool does not wait on itself
+        if (empty) {
+            seedSampleData();
+        }
     }
 
     private void seedSampleData() {
@@ -125,7 +206,7 @@ public class DatabaseConnection {
             ('Shopping'), ('Bills'), ('Other')
             """;
 
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
+        try (Connection conn = getWriteConnection(); Statement stmt = conn.createStatement()) {
             stmt.execute(seedCategories);
             System.out.println("Categories loaded");
         } catch (SQLException e) {
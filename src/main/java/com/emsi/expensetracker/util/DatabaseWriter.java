@@ -0,0 +1,219 @@
+package com.emsi.expensetracker.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+/**
+ * Serializes all database writes through one thread and one connection.
+ * SQLite only allows a single writer, so instead of letting callers race for
+ * the database lock, writes are queued and the writer thread coalesces
+ * everything pending into one transaction per flush. Each task runs under its
+ * own savepoint, so a failing task is rolled back alone and the rest of the
+ * group still commits.
+ */
+public class DatabaseWriter {
+
+    /**
+     * How long {@link #shutdown()} lets the writer drain its queue.
+     */
+    static final long DRAIN_TIMEOUT_MILLIS = 10_000;
+
+    private final DataSource dataSource;
+    private final long flushIntervalNanos;
+    private final int maxBatch;
+    private final BlockingQueue<PendingWrite<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * Creates and starts the writer.
+     *
+     * @param dataSource Source of the writer connection
+     * @param flushIntervalMillis How long to keep collecting writes after the
+     * first one arrives before committing, 0 to commit whatever is queued
+     * @param maxBatch Maximum number of tasks per transaction
+     */
+    public DatabaseWriter(DataSource dataSource, long flushIntervalMillis, int maxBatch) {
+        this.dataSource = dataSource;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.maxBatch = maxBatch;
+        this.thread = new Thread(this::run, "sqlite-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a write.
+     *
+     * @param task The work to run on the writer connection
+     * @return A future completed once the task's transaction has committed,
+     * or completed exceptionally with the task's or the commit's error
+     */
+    public <T> CompletableFuture<T> submit(WriteTask<T> task) {
+        PendingWrite<T> write = new PendingWrite<>(task);
+        if (!running) {
+            write.fail();
+            return write.future;
+        }
+        queue.add(write);
+        // Shutdown may have started after the check; if the writer can no
+        // longer be relied on to take the write, take it back. Whichever of
+        // this and the writer's final drain removes it fails it.
+        if (!running && queue.remove(write)) {
+            write.fail();
+        }
+        return write.future;
+    }
+
+    /**
+     * Stops accepting writes, flushes what is already queued and waits for
+     * the writer thread to finish. Writes submitted from now on fail at once.
+     * Writes still queued after {@value #DRAIN_TIMEOUT_MILLIS} ms fail
+     * instead; the batch in progress always completes, so the connection can
+     * be closed once this returns.
+     */
+    public void shutdown() {
+        shutdown(DRAIN_TIMEOUT_MILLIS);
+    }
+
+    // The drain timeout is a parameter for tests
+    void shutdown(long drainTimeoutMillis) {
+        running = false;
+        boolean interrupted = false;
+        try {
+            thread.join(drainTimeoutMillis);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        for (PendingWrite<?> write; (write = queue.poll()) != null;) {
+            write.fail();
+        }
+        // A batch holds at most maxBatch writes, so this wait is bounded
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<PendingWrite<?>> batch = new ArrayList<>(maxBatch);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingWrite<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collect(batch);
+                flush(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running = false;
+            // Writes cut off by an interrupt or queued during shutdown would otherwise never complete
+            for (PendingWrite<?> write : batch) {
+                write.fail();
+            }
+            for (PendingWrite<?> write; (write = queue.poll()) != null;) {
+                write.fail();
+            }
+        }
+    }
+
+    // Gather further writes until the flush interval elapses or the batch is full
+    private void collect(List<PendingWrite<?>> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + flushIntervalNanos;
+        while (batch.size() < maxBatch) {
+            PendingWrite<?> next;
+            long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            } else {
+                next = queue.poll();
+            }
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingWrite<?>> batch) {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            try {
+                for (PendingWrite<?> write : batch) {
+                    stmt.execute("SAVEPOINT write_task");
+                    try {
+                        write.run(conn);
+                        stmt.execute("RELEASE write_task");
+                    } catch (SQLException | RuntimeException e) {
+                        stmt.execute("ROLLBACK TO write_task");
+                        stmt.execute("RELEASE write_task");
+                        write.error = e;
+                    }
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            for (PendingWrite<?> write : batch) {
+                write.future.completeExceptionally(e);
+            }
+            return;
+        }
+        for (PendingWrite<?> write : batch) {
+            write.complete();
+        }
+    }
+
+    private static class PendingWrite<T> {
+
+        private final WriteTask<T> task;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private T result;
+        private Exception error;
+
+        PendingWrite(WriteTask<T> task) {
+            this.task = task;
+        }
+
+        void run(Connection conn) throws SQLException {
+            result = task.execute(conn);
+        }
+
+        void fail() {
+            future.completeExceptionally(new SQLException("Database writer is shut down"));
+        }
+
+        // Results are only published after the transaction has committed
+        void complete() {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        }
+    }
+}
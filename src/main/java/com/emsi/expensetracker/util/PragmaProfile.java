@@ -0,0 +1,162 @@
+package com.emsi.expensetracker.util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import com.zaxxer.hikari.HikariConfig;
+
+/**
+ * A named set of SQLite PRAGMA values read from {@code config.properties}
+ * keys of the form {@code db.profile.<name>.<pragma>}. Profiles are applied
+ * to every pooled connection when it is opened, can be read back to check
+ * that the driver really applied them, and can be switched on the writer
+ * connection at runtime (for example to {@code bulk-load} during imports).
+ */
+public class PragmaProfile {
+
+    /**
+     * PRAGMAs a profile may set, in the order they are applied.
+     */
+    public static final List<String> PRAGMAS = List.of(
+            "journal_mode", "synchronous", "cache_size", "mmap_size", "temp_store", "busy_timeout", "foreign_keys");
+
+    private final String name;
+    private final Map<String, String> values;
+
+    private PragmaProfile(String name, Map<String, String> values) {
+        this.name = name;
+        this.values = values;
+    }
+
+    /**
+     * Reads a profile from configuration.
+     *
+     * @param props The loaded configuration
+     * @param name The profile name
+     * @return The profile
+     * @throws IllegalArgumentException if the profile defines no PRAGMAs
+     */
+    public static PragmaProfile load(Properties props, String name) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String pragma : PRAGMAS) {
+            String value = props.getProperty("db.profile." + name + "." + pragma);
+            if (value != null) {
+                values.put(pragma, value.trim());
+            }
+        }
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown database profile: " + name);
+        }
+        return new PragmaProfile(name, values);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Whether the profile switches a PRAGMA off, e.g. {@code foreign_keys} or
+     * {@code synchronous}.
+     *
+     * @param pragma The PRAGMA name
+     * @return true if the profile sets it to OFF (or 0)
+     */
+    public boolean disables(String pragma) {
+        String value = values.get(pragma);
+        return value != null && normalize(pragma, value).equals("0");
+    }
+
+    /**
+     * Registers the profile as driver properties so sqlite-jdbc runs the
+     * PRAGMAs on each connection the pool opens. The journal mode is a
+     * database-wide setting that read-only connections cannot change, so it
+     * is left to the writer pool.
+     *
+     * @param config The pool configuration
+     * @param readOnly Whether the pool opens read-only connections
+     */
+    public void addTo(HikariConfig config, boolean readOnly) {
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            if (readOnly && entry.getKey().equals("journal_mode")) {
+                continue;
+            }
+            config.addDataSourceProperty(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Applies the profile to an open connection. Must be called outside a
+     * transaction, since SQLite ignores some PRAGMAs inside one.
+     *
+     * @param conn The connection to configure
+     * @throws SQLException if a PRAGMA fails
+     */
+    public void apply(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                stmt.execute("PRAGMA " + entry.getKey() + " = " + entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads every PRAGMA of the profile back from a connection.
+     *
+     * @param conn The connection to check
+     * @return One message per PRAGMA whose value differs, empty if all match
+     * @throws SQLException if a PRAGMA cannot be read
+     */
+    public List<String> verify(Connection conn) throws SQLException {
+        List<String> mismatches = new ArrayList<>();
+        try (Statement stmt = conn.createStatement()) {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                String actual;
+                try (ResultSet rs = stmt.executeQuery("PRAGMA " + entry.getKey())) {
+                    actual = rs.next() ? rs.getString(1) : null;
+                }
+                String expected = normalize(entry.getKey(), entry.getValue());
+                if (!expected.equals(normalize(entry.getKey(), actual))) {
+                    mismatches.add(entry.getKey() + " expected " + entry.getValue() + " but was " + actual);
+                }
+            }
+        }
+        return mismatches;
+    }
+
+    // Map symbolic PRAGMA values to what SQLite reports when read back
+    private static String normalize(String pragma, String value) {
+        if (value == null) {
+            return "";
+        }
+        String v = value.trim().toUpperCase(Locale.ROOT);
+        return switch (pragma) {
+            case "synchronous" -> switch (v) {
+                case "OFF" -> "0";
+                case "NORMAL" -> "1";
+                case "FULL" -> "2";
+                case "EXTRA" -> "3";
+                default -> v;
+            };
+            case "temp_store" -> switch (v) {
+                case "DEFAULT" -> "0";
+                case "FILE" -> "1";
+                case "MEMORY" -> "2";
+                default -> v;
+            };
+            case "foreign_keys" -> switch (v) {
+                case "ON", "TRUE", "YES" -> "1";
+                case "OFF", "FALSE", "NO" -> "0";
+                default -> v;
+            };
+            default -> v;
+        };
+    }
+}
@@ -0,0 +1,206 @@
+package com.emsi.expensetracker.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies the numbered SQL scripts under {@code /db/migration} in order. The
+ * highest applied version is tracked in the {@code schema_version} table and
+ * each script runs in its own transaction together with its version row, so a
+ * failed script leaves the schema at the previous version.
+ *
+ * Foreign keys are not enforced while a script runs, so a referenced table
+ * can be rebuilt without its drop cascading into the tables referencing it.
+ * The script fails instead if it leaves more references dangling than there
+ * were before (databases written while foreign keys were off may already have
+ * some).
+ */
+public class SchemaMigrator {
+
+    private static final String MIGRATION_PATH = "/db/migration/";
+
+    /**
+     * Known migrations in apply order. New scripts are appended here with the
+     * next version number.
+     */
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "create tables", "V1__create_tables.sql"),
+            new Migration(2, "add query indexes", "V2__add_query_indexes.sql"),
+            new Migration(3, "store amounts as cents", "V3__amount_cents.sql"),
+            new Migration(4, "store dates as epoch days", "V4__epoch_day_dates.sql"),
+            new Migration(5, "add monthly totals rollup", "V5__monthly_totals.sql"),
+            new Migration(6, "add expense search index", "V6__expense_search.sql"),
+            new Migration(7, "batch rollup inserts", "V7__rollup_batch_inserts.sql"),
+            new Migration(8, "unique category names per user", "V8__category_names_per_user.sql"),
+            new Migration(9, "restore insert triggers", "V9__restore_insert_triggers.sql")
+    );
+
+    private final DatabaseConnection dbConnection;
+
+    public SchemaMigrator(DatabaseConnection dbConnection) {
+        this.dbConnection = dbConnection;
+    }
+
+    /**
+     * Brings the database up to the latest version.
+     *
+     * @return The number of migrations applied
+     * @throws SQLException if a migration fails; it is rolled back
+     */
+    public int migrate() throws SQLException {
+        try (Connection conn = dbConnection.getWriteConnection()) {
+            createVersionTable(conn);
+            int current = currentVersion(conn);
+            int applied = 0;
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version > current) {
+                    apply(conn, migration);
+                    applied++;
+                }
+            }
+            return applied;
+        }
+    }
+
+    /**
+     * @return The latest version known to this build
+     */
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+    }
+
+    private void createVersionTable(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version INTEGER PRIMARY KEY,
+                    description TEXT NOT NULL,
+                    applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+                )
+                """);
+        }
+    }
+
+    private int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(
+                "SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        List<String> statements = splitStatements(readScript(migration.script));
+        // The pragma is a no-op inside a transaction, so switch it before starting one
+        boolean foreignKeys = foreignKeysEnabled(conn);
+        setForeignKeys(conn, false);
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement(); PreparedStatement record = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+            int violations = foreignKeyViolations(stmt);
+            for (String sql : statements) {
+                stmt.execute(sql);
+            }
+            if (foreignKeyViolations(stmt) > violations) {
+                throw new SQLException("Script leaves foreign key violations");
+            }
+            record.setInt(1, migration.version);
+            record.setString(2, migration.description);
+            record.executeUpdate();
+            conn.commit();
+            System.out.println("Applied migration V" + migration.version + " (" + migration.description + ")");
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Migration V" + migration.version + " failed: " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(true);
+            setForeignKeys(conn, foreignKeys);
+        }
+    }
+
+    private static int foreignKeyViolations(Statement stmt) throws SQLException {
+        int count = 0;
+        try (ResultSet rs = stmt.executeQuery("PRAGMA foreign_key_check")) {
+            while (rs.next()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean foreignKeysEnabled(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA foreign_keys")) {
+            return rs.next() && rs.getInt(1) == 1;
+        }
+    }
+
+    private static void setForeignKeys(Connection conn, boolean enabled) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA foreign_keys = " + (enabled ? "ON" : "OFF"));
+        }
+    }
+
+    private String readScript(String script) throws SQLException {
+        try (InputStream input = SchemaMigrator.class.getResourceAsStream(MIGRATION_PATH + script)) {
+            if (input == null) {
+                throw new SQLException("Missing migration script " + script);
+            }
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Could not read migration script " + script, e);
+        }
+    }
+
+    /**
+     * Splits a script into statements on trailing semicolons. Line comments
+     * are dropped, and trigger bodies are kept whole until their closing
+     * {@code END;}.
+     */
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inTrigger = false;
+        for (String line : script.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            if (current.length() == 0 && trimmed.toUpperCase().startsWith("CREATE TRIGGER")) {
+                inTrigger = true;
+            }
+            current.append(line).append('\n');
+            boolean end = inTrigger
+                    ? trimmed.equalsIgnoreCase("END;")
+                    : trimmed.endsWith(";");
+            if (end) {
+                statements.add(current.toString().trim());
+                current.setLength(0);
+                inTrigger = false;
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    private static class Migration {
+
+        private final int version;
+        private final String description;
+        private final String script;
+
+        Migration(int version, String description, String script) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+        }
+    }
+}
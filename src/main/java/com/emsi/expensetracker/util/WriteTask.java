@@ -0,0 +1,24 @@
+package com.emsi.expensetracker.util;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * A unit of database work executed by the {@link DatabaseWriter} on its
+ * single writer connection. Tasks run inside a transaction owned by the
+ * writer and must not commit, roll back or change auto-commit themselves.
+ *
+ * @param <T> The result type handed back to the caller
+ */
+@FunctionalInterface
+public interface WriteTask<T> {
+
+    /**
+     * Performs the write.
+     *
+     * @param conn The writer connection, already inside a transaction
+     * @return The result to complete the caller's future with
+     * @throws SQLException if the write fails; only this task is rolled back
+     */
+    T execute(Connection conn) throws SQLException;
+}
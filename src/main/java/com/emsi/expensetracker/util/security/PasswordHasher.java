@@ -0,0 +1,41 @@
+package com.emsi.expensetracker.util.security;
+
+/**
+ * One password hashing scheme. A hasher recognises the hashes it produced, so
+ * stored hashes of several schemes can coexist while users are migrated to
+ * the current one. Implementations are thread-safe and compare hashes in
+ * constant time.
+ */
+public interface PasswordHasher {
+
+    /**
+     * Hashes a password for storage.
+     *
+     * @param password The plain text password
+     * @return The encoded hash, including any salt and cost parameters
+     */
+    String hash(String password);
+
+    /**
+     * Checks a password against a stored hash of this scheme.
+     *
+     * @param password The plain text password
+     * @param stored A hash accepted by {@link #handles(String)}
+     * @return true if the password matches
+     */
+    boolean matches(String password, String stored);
+
+    /**
+     * @param stored A stored hash
+     * @return true if the hash was produced by this scheme
+     */
+    boolean handles(String stored);
+
+    /**
+     * @param stored A hash accepted by {@link #handles(String)}
+     * @return true if the hash uses weaker parameters than this hasher
+     */
+    default boolean needsRehash(String stored) {
+        return false;
+    }
+}
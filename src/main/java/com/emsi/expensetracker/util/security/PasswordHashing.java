@@ -0,0 +1,145 @@
+package com.emsi.expensetracker.util.security;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.emsi.expensetracker.util.DatabaseConnection;
+
+/**
+ * Hashes new passwords with the current scheme and verifies stored hashes of
+ * the current or any legacy scheme. All hashing runs on a small pool of
+ * platform threads sized to the cores, so an expensive KDF never runs on the
+ * FX thread and a burst of logins queues instead of starving the CPU for
+ * everything else. Callers on virtual threads simply park while they wait.
+ */
+public class PasswordHashing {
+
+    private final PasswordHasher current;
+    private final List<PasswordHasher> legacy;
+    private final ExecutorService executor;
+    // Verified when the user does not exist, so unknown names cost as much as wrong passwords
+    private volatile String decoy;
+
+    private static ExecutorService sharedPool;
+
+    /**
+     * @param current The scheme new hashes are made with
+     * @param legacy Older schemes that are still accepted at login
+     * @param executor Runs every hash computation; should be bounded
+     */
+    public PasswordHashing(PasswordHasher current, List<PasswordHasher> legacy, ExecutorService executor) {
+        this.current = current;
+        this.legacy = List.copyOf(legacy);
+        this.executor = executor;
+    }
+
+    /**
+     * PBKDF2 with {@code auth.pbkdf2.iterations} from the configuration,
+     * accepting the original SHA-256 hashes. Every instance made here shares
+     * one pool of {@code auth.hash.threads} threads, sized by the first call.
+     */
+    public static PasswordHashing fromConfig(DatabaseConnection dbConnection) {
+        int iterations = Integer.parseInt(dbConnection.getProperty("auth.pbkdf2.iterations",
+                String.valueOf(Pbkdf2PasswordHasher.DEFAULT_ITERATIONS)));
+        int threads = Integer.parseInt(dbConnection.getProperty("auth.hash.threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        return new PasswordHashing(new Pbkdf2PasswordHasher(iterations), List.of(new Sha256PasswordHasher()),
+                sharedPool(threads));
+    }
+
+    private static synchronized ExecutorService sharedPool(int threads) {
+        if (sharedPool == null) {
+            sharedPool = newHashingPool(threads);
+        }
+        return sharedPool;
+    }
+
+    /**
+     * A fixed pool of daemon platform threads with an unbounded queue: the
+     * CPU work is bounded by the thread count, waiting callers by the queue.
+     */
+    public static ExecutorService newHashingPool(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Hashes a password with the current scheme, blocking until done.
+     */
+    public String hash(String password) {
+        return await(hashAsync(password));
+    }
+
+    /**
+     * Checks a password against a stored hash of any accepted scheme,
+     * blocking until done. A null stored hash (unknown user) is checked
+     * against a decoy so the answer takes as long as for a wrong password.
+     */
+    public boolean verify(String password, String stored) {
+        return await(verifyAsync(password, stored));
+    }
+
+    public CompletableFuture<String> hashAsync(String password) {
+        return CompletableFuture.supplyAsync(() -> current.hash(password), executor);
+    }
+
+    public CompletableFuture<Boolean> verifyAsync(String password, String stored) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (stored == null) {
+                current.matches(password, decoy());
+                return false;
+            }
+            PasswordHasher hasher = hasherFor(stored);
+            return hasher != null && hasher.matches(password, stored);
+        }, executor);
+    }
+
+    /**
+     * @return true if the stored hash is of a legacy scheme or weaker than
+     * the current settings and should be replaced after the next login
+     */
+    public boolean needsRehash(String stored) {
+        return !current.handles(stored) || current.needsRehash(stored);
+    }
+
+    private String decoy() {
+        String hash = decoy;
+        if (hash == null) {
+            decoy = hash = current.hash("decoy-password");
+        }
+        return hash;
+    }
+
+    private PasswordHasher hasherFor(String stored) {
+        if (current.handles(stored)) {
+            return current;
+        }
+        for (PasswordHasher hasher : legacy) {
+            if (hasher.handles(stored)) {
+                return hasher;
+            }
+        }
+        return null;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
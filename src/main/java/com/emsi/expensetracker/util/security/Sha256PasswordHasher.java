@@ -0,0 +1,78 @@
+package com.emsi.expensetracker.util.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * The original scheme: unsalted SHA-256 stored as 64 lowercase hex digits.
+ * Kept so existing accounts can still log in and be upgraded; new hashes use
+ * {@link Pbkdf2PasswordHasher}.
+ *
+ * Each thread reuses one MessageDigest and one output array, and
+ * {@link #matches(String, String)} compares the digest with the stored hex
+ * digits directly instead of formatting or decoding either side.
+ */
+public class Sha256PasswordHasher implements PasswordHasher {
+
+    private static final int DIGEST_LENGTH = 32;
+    private static final HexFormat HEX = HexFormat.of();
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+    private static final ThreadLocal<byte[]> OUTPUT = ThreadLocal.withInitial(() -> new byte[DIGEST_LENGTH]);
+
+    @Override
+    public String hash(String password) {
+        return HEX.formatHex(digest(password));
+    }
+
+    @Override
+    public boolean matches(String password, String stored) {
+        if (!handles(stored)) {
+            return false;
+        }
+        byte[] digest = digest(password);
+        // Constant time: every digit is compared whatever the earlier ones were
+        int diff = 0;
+        for (int i = 0; i < DIGEST_LENGTH; i++) {
+            diff |= (HEX.toHighHexDigit(digest[i]) ^ stored.charAt(2 * i))
+                    | (HEX.toLowHexDigit(digest[i]) ^ stored.charAt(2 * i + 1));
+        }
+        return diff == 0;
+    }
+
+    @Override
+    public boolean handles(String stored) {
+        if (stored == null || stored.length() != 2 * DIGEST_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < stored.length(); i++) {
+            char c = stored.charAt(i);
+            if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The returned array belongs to the calling thread and is overwritten by its next call
+    private static byte[] digest(String password) {
+        MessageDigest md = DIGEST.get();
+        byte[] output = OUTPUT.get();
+        md.update(password.getBytes(StandardCharsets.UTF_8));
+        try {
+            md.digest(output, 0, DIGEST_LENGTH);
+        } catch (DigestException e) {
+            throw new IllegalStateException(e);
+        }
+        return output;
+    }
+}
@@ -0,0 +1,5 @@
+-- Indexes backing the per-user lookups in ExpenseDAO and CategoryDAO.
+
+CREATE INDEX IF NOT EXISTS idx_expenses_user_date ON expenses (user_id, date);
+
+CREATE INDEX IF NOT EXISTS idx_categories_user_name ON categories (user_id, name);
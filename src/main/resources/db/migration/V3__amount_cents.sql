@@ -0,0 +1,21 @@
+-- Store amounts as INTEGER cents instead of REAL so sums are exact.
+-- SQLite cannot change a column type in place, so the table is rebuilt.
+
+CREATE TABLE expenses_new (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    description TEXT NOT NULL,
+    amount_cents INTEGER NOT NULL,
+    date TEXT DEFAULT CURRENT_DATE,
+    user_id INT REFERENCES users(id) ON DELETE CASCADE,
+    category_id INT REFERENCES categories(id) ON DELETE SET NULL
+);
+
+INSERT INTO expenses_new (id, description, amount_cents, date, user_id, category_id)
+SELECT id, description, CAST(ROUND(amount * 100) AS INTEGER), date, user_id, category_id
+FROM expenses;
+
+DROP TABLE expenses;
+
+ALTER TABLE expenses_new RENAME TO expenses;
+
+CREATE INDEX idx_expenses_user_date ON expenses (user_id, date);
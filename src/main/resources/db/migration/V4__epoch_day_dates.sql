@@ -0,0 +1,24 @@
+-- Store expense dates as INTEGER days since 1970-01-01 instead of ISO TEXT,
+-- so rows decode without string parsing and date ranges are integer index
+-- ranges. The table is rebuilt because the column type changes.
+
+CREATE TABLE expenses_new (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    description TEXT NOT NULL,
+    amount_cents INTEGER NOT NULL,
+    epoch_day INTEGER NOT NULL DEFAULT (CAST(julianday('now') - 2440587.5 AS INTEGER)),
+    user_id INT REFERENCES users(id) ON DELETE CASCADE,
+    category_id INT REFERENCES categories(id) ON DELETE SET NULL
+);
+
+INSERT INTO expenses_new (id, description, amount_cents, epoch_day, user_id, category_id)
+SELECT id, description, amount_cents,
+       CAST(julianday(COALESCE(date, CURRENT_DATE)) - 2440587.5 AS INTEGER),
+       user_id, category_id
+FROM expenses;
+
+DROP TABLE expenses;
+
+ALTER TABLE expenses_new RENAME TO expenses;
+
+CREATE INDEX idx_expenses_user_day ON expenses (user_id, epoch_day);
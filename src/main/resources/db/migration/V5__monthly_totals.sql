@@ -0,0 +1,75 @@
+-- Per-user, per-category monthly rollup of expenses, so dashboard totals read
+-- one row per category and month instead of every expense. month is
+-- year * 12 + month - 1 and category_id 0 holds uncategorised expenses.
+-- Triggers keep the rollup in step with expenses inside the same transaction,
+-- including rows changed by foreign key actions. ExpenseDAO.rebuildMonthlyTotals
+-- recomputes it from scratch if it ever drifts.
+
+CREATE TABLE monthly_totals (
+    user_id INTEGER NOT NULL,
+    month INTEGER NOT NULL,
+    category_id INTEGER NOT NULL,
+    total_cents INTEGER NOT NULL,
+    expense_count INTEGER NOT NULL,
+    PRIMARY KEY (user_id, month, category_id)
+) WITHOUT ROWID;
+
+INSERT INTO monthly_totals (user_id, month, category_id, total_cents, expense_count)
+SELECT COALESCE(user_id, 0),
+       CAST(strftime('%Y', epoch_day * 86400, 'unixepoch') AS INTEGER) * 12
+           + CAST(strftime('%m', epoch_day * 86400, 'unixepoch') AS INTEGER) - 1,
+       COALESCE(category_id, 0), SUM(amount_cents), COUNT(*)
+FROM expenses
+GROUP BY 1, 2, 3;
+
+CREATE TRIGGER monthly_totals_insert AFTER INSERT ON expenses
+BEGIN
+    INSERT INTO monthly_totals (user_id, month, category_id, total_cents, expense_count)
+    VALUES (COALESCE(NEW.user_id, 0),
+            CAST(strftime('%Y', NEW.epoch_day * 86400, 'unixepoch') AS INTEGER) * 12
+                + CAST(strftime('%m', NEW.epoch_day * 86400, 'unixepoch') AS INTEGER) - 1,
+            COALESCE(NEW.category_id, 0), NEW.amount_cents, 1)
+    ON CONFLICT (user_id, month, category_id) DO UPDATE SET
+        total_cents = total_cents + excluded.total_cents,
+        expense_count = expense_count + 1;
+END;
+
+CREATE TRIGGER monthly_totals_delete AFTER DELETE ON expenses
+BEGIN
+    UPDATE monthly_totals SET
+        total_cents = total_cents - OLD.amount_cents,
+        expense_count = expense_count - 1
+    WHERE user_id = COALESCE(OLD.user_id, 0)
+      AND month = CAST(strftime('%Y', OLD.epoch_day * 86400, 'unixepoch') AS INTEGER) * 12
+                + CAST(strftime('%m', OLD.epoch_day * 86400, 'unixepoch') AS INTEGER) - 1
+      AND category_id = COALESCE(OLD.category_id, 0);
+    DELETE FROM monthly_totals WHERE expense_count <= 0
+      AND user_id = COALESCE(OLD.user_id, 0)
+      AND month = CAST(strftime('%Y', OLD.epoch_day * 86400, 'unixepoch') AS INTEGER) * 12
+                + CAST(strftime('%m', OLD.epoch_day * 86400, 'unixepoch') AS INTEGER) - 1
+      AND category_id = COALESCE(OLD.category_id, 0);
+END;
+
+CREATE TRIGGER monthly_totals_update AFTER UPDATE OF amount_cents, epoch_day, user_id, category_id ON expenses
+BEGIN
+    UPDATE monthly_totals SET
+        total_cents = total_cents - OLD.amount_cents,
+        expense_count = expense_count - 1
+    WHERE user_id = COALESCE(OLD.user_id, 0)
+      AND month = CAST(strftime('%Y', OLD.epoch_day * 86400, 'unixepoch') AS INTEGER) * 12
+                + CAST(strftime('%m', OLD.epoch_day * 86400, 'unixepoch') AS INTEGER) - 1
+      AND category_id = COALESCE(OLD.category_id, 0);
+    DELETE FROM monthly_totals WHERE expense_count <= 0
+      AND user_id = COALESCE(OLD.user_id, 0)
+      AND month = CAST(strftime('%Y', OLD.epoch_day * 86400, 'unixepoch') AS INTEGER) * 12
+                + CAST(strftime('%m', OLD.epoch_day * 86400, 'unixepoch') AS INTEGER) - 1
+      AND category_id = COALESCE(OLD.category_id, 0);
+    INSERT INTO monthly_totals (user_id, month, category_id, total_cents, expense_count)
+    VALUES (COALESCE(NEW.user_id, 0),
+            CAST(strftime('%Y', NEW.epoch_day * 86400, 'unixepoch') AS INTEGER) * 12
+                + CAST(strftime('%m', NEW.epoch_day * 86400, 'unixepoch') AS INTEGER) - 1,
+            COALESCE(NEW.category_id, 0), NEW.amount_cents, 1)
+    ON CONFLICT (user_id, month, category_id) DO UPDATE SET
+        total_cents = total_cents + excluded.total_cents,
+        expense_count = expense_count + 1;
+END;
@@ -0,0 +1,6 @@
+-- Inserted expenses are added to monthly_totals by ExpenseDAO with one
+-- grouped INSERT ... SELECT per write task, the same way as the search index.
+-- The per-row insert trigger dominated the cost of batched inserts and bulk
+-- imports. Updates and deletes keep their triggers.
+
+DROP TRIGGER IF EXISTS monthly_totals_insert;
@@ -0,0 +1,21 @@
+-- Category names only need to be unique per user, as CategoryService already
+-- checks, so two users can each have their own "Groceries". The column-level
+-- UNIQUE cannot be dropped in place, so the table is rebuilt; foreign keys
+-- are off while migrations run, so expenses keep their category_id.
+
+CREATE TABLE categories_new (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    name TEXT NOT NULL,
+    user_id INT REFERENCES users(id) ON DELETE CASCADE,
+    description TEXT
+);
+
+INSERT INTO categories_new (id, name, user_id, description)
+SELECT id, name, user_id, description
+FROM categories;
+
+DROP TABLE categories;
+
+ALTER TABLE categories_new RENAME TO categories;
+
+CREATE UNIQUE INDEX idx_categories_user_name ON categories (user_id, name);
@@ -0,0 +1,36 @@
+-- Inserted expenses are added to monthly_totals and expenses_fts by triggers
+-- again, as V5 first did, instead of by ExpenseDAO after each write task.
+-- Rows inserted any other way (a migration, a script, the sqlite3 shell)
+-- left both behind, and an FTS 'delete' for a row that was never indexed
+-- corrupts the index. Batched inserts still share one statement and one
+-- commit per write task; only the rollup and index work is per row.
+-- Both are rebuilt here in case inserts made while V7 was current drifted.
+
+CREATE TRIGGER monthly_totals_insert AFTER INSERT ON expenses
+BEGIN
+    INSERT INTO monthly_totals (user_id, month, category_id, total_cents, expense_count)
+    VALUES (COALESCE(NEW.user_id, 0),
+            CAST(strftime('%Y', NEW.epoch_day * 86400, 'unixepoch') AS INTEGER) * 12
+                + CAST(strftime('%m', NEW.epoch_day * 86400, 'unixepoch') AS INTEGER) - 1,
+            COALESCE(NEW.category_id, 0), NEW.amount_cents, 1)
+    ON CONFLICT (user_id, month, category_id) DO UPDATE SET
+        total_cents = total_cents + excluded.total_cents,
+        expense_count = expense_count + 1;
+END;
+
+CREATE TRIGGER expenses_fts_insert AFTER INSERT ON expenses
+BEGIN
+    INSERT INTO expenses_fts (rowid, description, user_id) VALUES (NEW.id, NEW.description, NEW.user_id);
+END;
+
+DELETE FROM monthly_totals;
+
+INSERT INTO monthly_totals (user_id, month, category_id, total_cents, expense_count)
+SELECT COALESCE(user_id, 0),
+       CAST(strftime('%Y', epoch_day * 86400, 'unixepoch') AS INTEGER) * 12
+           + CAST(strftime('%m', epoch_day * 86400, 'unixepoch') AS INTEGER) - 1,
+       COALESCE(category_id, 0), SUM(amount_cents), COUNT(*)
+FROM expenses
+GROUP BY 1, 2, 3;
+
+INSERT INTO expenses_fts (expenses_fts) VALUES ('rebuild');
@@ -0,0 +1,185 @@
+package com.emsi.expensetracker.api;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.CategoryDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.service.implementation.AuthService;
+import com.emsi.expensetracker.service.implementation.CategoryService;
+import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.session.SessionRegistry;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.TestDatabase;
+
+import junit.framework.TestCase;
+
+/**
+ * Drives the headless API over real HTTP: login and tokens, expense and
+ * category routes, streamed lists, totals, and error answers.
+ */
+public class HeadlessServerTest extends TestCase {
+
+    private TestDatabase database;
+    private DatabaseConnection db;
+    private HeadlessServer server;
+    private HttpClient client;
+    private String base;
+
+    @Override
+    protected void setUp() throws Exception {
+        database = TestDatabase.open("headless", "db.pool.read.size=2", "auth.pbkdf2.iterations=1000");
+        db = database.getConnection();
+        CategoryService categories = new CategoryService(new CategoryDAO(db));
+        server = new HeadlessServer(new AuthService(new AuthDAO(db), new SessionRegistry(Duration.ofMinutes(5))),
+                new ExpenseService(new ExpenseDAO(db), categories), categories,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort() + "/api/";
+        client = HttpClient.newHttpClient();
+    }
+
+    @Override
+    protected void tearDown() {
+        server.stop();
+        database.close();
+    }
+
+    private HttpResponse<String> send(String method, String path, String token, String body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(base + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String login(String username, String password) throws Exception {
+        assertEquals(201, send("POST", "auth/register", null,
+                "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}").statusCode());
+        HttpResponse<String> response = send("POST", "auth/login", null,
+                "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}");
+        assertEquals(200, response.statusCode());
+        return Json.parseObject(response.body()).get("token");
+    }
+
+    public void testExpenseLifecycle() throws Exception {
+        String alice = login("alice", "secret1");
+        String bob = login("bob", "secret2");
+        assertEquals(401, send("GET", "expenses", null, null).statusCode());
+        assertEquals(401, send("POST", "auth/login", null, "{\"username\":\"alice\",\"password\":\"nope\"}").statusCode());
+        assertEquals(409, send("POST", "auth/register", null, "{\"username\":\"alice\",\"password\":\"x\"}").statusCode());
+
+        HttpResponse<String> created = send("POST", "expenses", alice,
+                "{\"description\":\"Taxi \\\"late\\\"\",\"amount\":12.5,\"categoryId\":2,\"date\":\"2024-02-29\"}");
+        assertEquals(201, created.statusCode());
+        String id = Json.parseObject(created.body()).get("id");
+
+        HttpResponse<String> fetched = send("GET", "expenses/" + id, alice, null);
+        assertEquals("{\"id\":" + id + ",\"date\":\"2024-02-29\",\"description\":\"Taxi \\\"late\\\"\",\"amount\":12.50,"
+                + "\"categoryId\":2,\"category\":\"Transport\"}", fetched.body());
+        assertEquals(404, send("GET", "expenses/" + id, bob, null).statusCode());
+        assertEquals(404, send("DELETE", "expenses/" + id, bob, null).statusCode());
+
+        assertEquals(204, send("PUT", "expenses/" + id, alice,
+                "{\"description\":\"Taxi\",\"amount\":\"20\",\"categoryId\":2,\"date\":\"2024-03-01\"}").statusCode());
+        assertEquals("[{\"id\":" + id + ",\"date\":\"2024-03-01\",\"description\":\"Taxi\",\"amount\":20.00,\"category\":\"Transport\"}]\n",
+                send("GET", "expenses?from=2024-03-01", alice, null).body());
+        assertEquals("[]\n", send("GET", "expenses", bob, null).body());
+        assertTrue(send("GET", "expenses/search?q=tax", alice, null).body().contains("\"description\":\"Taxi\""));
+
+        assertEquals(204, send("DELETE", "expenses/" + id, alice, null).statusCode());
+        assertEquals(404, send("GET", "expenses/" + id, alice, null).statusCode());
+
+        assertEquals(204, send("POST", "auth/logout", alice, null).statusCode());
+        assertEquals(401, send("GET", "expenses", alice, null).statusCode());
+    }
+
+    public void testCategoriesTotalsAndStreaming() throws Exception {
+        String token = login("carol", "secret3");
+        assertEquals(201, send("POST", "categories", token, "{\"name\":\"Carol's\",\"description\":null}").statusCode());
+        String categories = send("GET", "categories", token, null).body();
+        assertTrue(categories.contains("\"name\":\"Carol's\",\"description\":null,\"default\":false"));
+        assertTrue(categories.contains("\"name\":\"Food\""));
+
+        for (int i = 0; i < 300; i++) {
+            assertEquals(201, send("POST", "expenses", token, "{\"description\":\"Item " + i
+                    + "\",\"amount\":1.01,\"categoryId\":" + (1 + i % 2) + ",\"date\":\"2024-01-0" + (1 + i % 9) + "\"}")
+                    .statusCode());
+        }
+        HttpResponse<String> list = send("GET", "expenses?format=jsonl", token, null);
+        assertEquals("application/x-ndjson; charset=utf-8", list.headers().firstValue("Content-Type").orElse(null));
+        assertEquals(300, list.body().lines().count());
+
+        String firstDay = send("GET", "totals?to=2024-01-01", token, null).body();
+        assertTrue(firstDay, firstDay.startsWith("{\"total\":34.34,"));
+        String all = send("GET", "totals", token, null).body();
+        assertTrue(all, all.startsWith("{\"total\":303.00,\"categories\":[{\"categoryId\":"));
+        assertTrue(all, all.contains("\"category\":\"Food\",\"total\":151.50}"));
+    }
+
+    public void testBadRequests() throws Exception {
+        String token = login("dave", "secret4");
+        assertEquals(400, send("POST", "expenses", token, "{\"description\":").statusCode());
+        assertEquals(400, send("POST", "expenses", token, "{\"description\":\"x\",\"amount\":\"1.001\",\"categoryId\":1,\"date\":\"2024-01-01\"}").statusCode());
+        assertEquals(400, send("POST", "expenses", token, "{\"description\":\"x\",\"amount\":1,\"categoryId\":1,\"date\":\"01/01/2024\"}").statusCode());
+        HttpResponse<String> missing = send("POST", "expenses", token, "{\"amount\":1}");
+        assertEquals(400, missing.statusCode());
+        assertEquals("{\"error\":\"Missing field: description\"}", missing.body());
+        assertEquals(404, send("GET", "nothing", token, null).statusCode());
+        assertEquals(405, send("DELETE", "totals", token, null).statusCode());
+        assertEquals(400, send("GET", "expenses?format=xml", token, null).statusCode());
+    }
+
+    public void testForeignCategoriesAreRejected() throws Exception {
+        String erin = login("erin", "secret5");
+        String frank = login("frank", "secret6");
+        assertEquals(201, send("POST", "categories", erin, "{\"name\":\"Erin only\"}").statusCode());
+        String erinsId = null;
+        for (String line : send("GET", "categories", erin, null).body().split("\n")) {
+            if (line.contains("Erin only")) {
+                erinsId = line.substring(line.indexOf(':') + 1, line.indexOf(','));
+            }
+        }
+        assertNotNull(erinsId);
+
+        String body = "{\"description\":\"x\",\"amount\":1,\"categoryId\":" + erinsId + ",\"date\":\"2024-01-01\"}";
+        assertEquals(400, send("POST", "expenses", frank, body).statusCode());
+        assertEquals(201, send("POST", "expenses", erin, body).statusCode());
+        HttpResponse<String> unknown = send("POST", "expenses", frank,
+                "{\"description\":\"x\",\"amount\":1,\"categoryId\":99999,\"date\":\"2024-01-01\"}");
+        assertEquals(400, unknown.statusCode());
+        assertEquals("{\"error\":\"Unknown category: 99999\"}", unknown.body());
+
+        String id = Json.parseObject(send("POST", "expenses", frank,
+                "{\"description\":\"y\",\"amount\":1,\"categoryId\":1,\"date\":\"2024-01-01\"}").body()).get("id");
+        assertEquals(400, send("PUT", "expenses/" + id, frank, body).statusCode());
+        assertFalse(send("GET", "expenses?format=jsonl", frank, null).body().contains("Erin only"));
+    }
+
+    public void testJsonReader() {
+        Map<String, String> members = Json.parseObject(" {\"a\" : \"x\\u00e9\\n\", \"b\":-1.5e3,\"c\":true,\"d\":null} ");
+        assertEquals("xé\n", members.get("a"));
+        assertEquals("-1.5e3", members.get("b"));
+        assertEquals("true", members.get("c"));
+        assertTrue(members.containsKey("d"));
+        assertNull(members.get("d"));
+        assertTrue(Json.parseObject("{}").isEmpty());
+        assertEquals("\"q\\\"\\\\\\u0001\"", Json.quote(new StringBuilder(), "q\"\\\u0001").toString());
+        for (String bad : new String[] {"", "[]", "{\"a\":}", "{\"a\":1", "{\"a\":1} x", "{\"a\":{}}"}) {
+            try {
+                Json.parseObject(bad);
+                fail("accepted " + bad);
+            } catch (ApiException expected) {
+                assertEquals(400, expected.getStatus());
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.emsi.expensetracker.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.model.utils.UserKey;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.TestDatabase;
+import com.emsi.expensetracker.util.security.PasswordHashing;
+import com.emsi.expensetracker.util.security.Pbkdf2PasswordHasher;
+import com.emsi.expensetracker.util.security.Sha256PasswordHasher;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks registration and login through AuthDAO: salted hashes, wrong
+ * passwords and unknown users, and the upgrade of legacy SHA-256 hashes and
+ * of hashes with too few iterations.
+ */
+public class AuthDAOTest extends TestCase {
+
+    private TestDatabase database;
+    private DatabaseConnection db;
+    private AuthDAO dao;
+
+    @Override
+    protected void setUp() throws Exception {
+        database = TestDatabase.open("auth-dao", "db.pool.read.size=1");
+        db = database.getConnection();
+        dao = withIterations(1000);
+    }
+
+    @Override
+    protected void tearDown() {
+        database.close();
+    }
+
+    private AuthDAO withIterations(int iterations) {
+        return new AuthDAO(db, new PasswordHashing(new Pbkdf2PasswordHasher(iterations),
+                List.of(new Sha256PasswordHasher()), PasswordHashing.newHashingPool(1)));
+    }
+
+    public void testRegisterAndLogin() {
+        assertTrue(dao.save(new User("alice", "alice@example.com", "correct horse")));
+        assertTrue(dao.save(new User("bob", "bob@example.com", "correct horse")));
+        assertFalse(dao.save(new User("alice", "other@example.com", "another")));
+
+        String alice = dao.findByUsername("alice").getPassword();
+        assertTrue(alice.startsWith("pbkdf2-sha256$1000$"));
+        assertFalse("same password, different salt", alice.equals(dao.findByUsername("bob").getPassword()));
+
+        User user = dao.findById(new UserKey("alice", "correct horse"));
+        assertEquals("alice", user.getUsername());
+        assertEquals("alice@example.com", user.getEmail());
+        assertNull(dao.findById(new UserKey("alice", "correct horsE")));
+        assertNull(dao.findById(new UserKey("carol", "correct horse")));
+        assertNull(dao.findByUsername("carol"));
+    }
+
+    public void testLegacyHashIsUpgradedOnLogin() throws Exception {
+        // SHA-256 of "abc", as the original hashPassword stored it
+        String legacy = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+        assertEquals(legacy, new Sha256PasswordHasher().hash("abc"));
+        try (Connection conn = db.getWriteConnection(); PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO users (username, password, email) VALUES ('legacy', ?, NULL)")) {
+            stmt.setString(1, legacy);
+            stmt.executeUpdate();
+        }
+
+        assertNull(dao.findById(new UserKey("legacy", "abd")));
+        assertEquals(legacy, dao.findByUsername("legacy").getPassword());
+
+        User user = dao.findById(new UserKey("legacy", "abc"));
+        assertTrue(user.getPassword().startsWith("pbkdf2-sha256$1000$"));
+        assertEquals(user.getPassword(), dao.findByUsername("legacy").getPassword());
+        assertNotNull(dao.findById(new UserKey("legacy", "abc")));
+    }
+
+    public void testRaisedIterationsRehashOnLogin() {
+        assertTrue(dao.save(new User("dave", null, "s3cret")));
+        String weak = dao.findByUsername("dave").getPassword();
+
+        AuthDAO stronger = withIterations(2000);
+        assertNull(stronger.findById(new UserKey("dave", "S3cret")));
+        assertEquals(weak, stronger.findByUsername("dave").getPassword());
+        assertNotNull(stronger.findById(new UserKey("dave", "s3cret")));
+        assertTrue(stronger.findByUsername("dave").getPassword().startsWith("pbkdf2-sha256$2000$"));
+
+        // Lowering the setting keeps the stronger hash
+        assertNotNull(dao.findById(new UserKey("dave", "s3cret")));
+        assertTrue(dao.findByUsername("dave").getPassword().startsWith("pbkdf2-sha256$2000$"));
+    }
+
+    public void testMalformedHashesNeverMatch() {
+        Pbkdf2PasswordHasher pbkdf2 = new Pbkdf2PasswordHasher(1000);
+        Sha256PasswordHasher sha256 = new Sha256PasswordHasher();
+        assertFalse(pbkdf2.matches("abc", "pbkdf2-sha256$1000$zz$00"));
+        assertFalse(pbkdf2.matches("abc", "pbkdf2-sha256$-1$00$00"));
+        assertFalse(pbkdf2.matches("abc", "pbkdf2-sha256$1000$00"));
+        assertFalse(sha256.matches("abc", "BA7816BF8F01CFEA414140DE5DAE2223B00361A396177A9CB410FF61F20015AD"));
+        assertFalse(sha256.matches("abc", "ba7816bf"));
+        assertTrue(pbkdf2.matches("", pbkdf2.hash("")));
+    }
+}
@@ -0,0 +1,115 @@
+package com.emsi.expensetracker.dao;
+
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.ExpenseView;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.TestDatabase;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks ExpenseDAO.search against the FTS5 index: prefix matching, user
+ * scoping, batched inserts, and the triggers that follow inserts, updates
+ * and deletes.
+ */
+public class ExpenseSearchTest extends TestCase {
+
+    private TestDatabase database;
+    private DatabaseConnection db;
+    private ExpenseDAO dao;
+
+    @Override
+    protected void setUp() throws Exception {
+        database = TestDatabase.open("expense-search", "db.pool.read.size=1");
+        db = database.getConnection();
+        AuthDAO users = new AuthDAO(db);
+        users.save(new User("search-one", "one@example.com", "secret"));
+        users.save(new User("search-two", "two@example.com", "secret"));
+        dao = new ExpenseDAO(db);
+    }
+
+    @Override
+    protected void tearDown() {
+        database.close();
+    }
+
+    public void testPrefixSearchIsScopedToUser() {
+        LocalDate today = LocalDate.now();
+        dao.save(new Expense("Coffee shop", 450, 1, today, 1));
+        dao.save(new Expense("Café latte", 380, 1, today, 1));
+        dao.save(new Expense("Grocery run", 5200, 1, today, 1));
+        dao.save(new Expense("Coffee beans", 1200, 1, today, 2));
+
+        assertEquals(List.of("Coffee shop"), descriptions(dao.search(1, "cof", 10)));
+        assertEquals(List.of("Café latte"), descriptions(dao.search(1, "CAFE", 10)));
+        assertEquals(List.of("Coffee shop"), descriptions(dao.search(1, "sh co", 10)));
+        assertEquals(List.of("Coffee beans"), descriptions(dao.search(2, "coffee", 10)));
+        assertTrue(dao.search(1, "tea", 10).isEmpty());
+    }
+
+    public void testBatchedInsertsAreIndexed() {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            expenses.add(new Expense((i % 5 == 0 ? "Taxi ride " : "Lunch ") + i, 1000, 1, LocalDate.now(), 1));
+        }
+        dao.saveAll(expenses, 10);
+        assertEquals(5, dao.search(1, "taxi", 100).size());
+        assertEquals(20, dao.search(1, "lunch", 100).size());
+    }
+
+    public void testIndexFollowsUpdatesAndDeletes() {
+        Expense expense = new Expense("Train ticket", 900, 1, LocalDate.now(), 1);
+        dao.save(expense);
+        expense.setDescription("Bus ticket");
+        dao.update(expense);
+        assertTrue(dao.search(1, "train", 10).isEmpty());
+        assertEquals(1, dao.search(1, "bus", 10).size());
+
+        dao.delete(expense.getId());
+        assertTrue(dao.search(1, "ticket", 10).isEmpty());
+    }
+
+    public void testRowsInsertedOutsideTheDaoAreIndexed() throws Exception {
+        db.submitWrite(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                return stmt.executeUpdate("INSERT INTO expenses (description, amount_cents, epoch_day, category_id, user_id)"
+                        + " VALUES ('Ferry crossing', 2500, " + LocalDate.now().toEpochDay() + ", 1, 1)");
+            }
+        }).get();
+        List<ExpenseView> found = dao.search(1, "ferry", 10);
+        assertEquals(1, found.size());
+        assertEquals(2500, dao.sumByUserId(1));
+
+        // Deleting a row the index never saw would corrupt it
+        dao.delete(found.get(0).getId());
+        assertEquals(0, dao.sumByUserId(1));
+        db.submitWrite(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                return stmt.executeUpdate("INSERT INTO expenses_fts (expenses_fts) VALUES ('integrity-check')");
+            }
+        }).get();
+    }
+
+    public void testQuerySyntaxIsNotInterpreted() {
+        dao.save(new Expense("Coffee shop", 450, 1, LocalDate.now(), 1));
+        assertTrue(dao.search(1, "   ", 10).isEmpty());
+        assertEquals(1, dao.search(1, "\"coffee\")*: ^(", 10).size());
+        assertTrue(dao.search(1, "coffee OR tea", 10).isEmpty());
+    }
+
+    private static List<String> descriptions(List<ExpenseView> expenses) {
+        List<String> result = new ArrayList<>();
+        for (ExpenseView expense : expenses) {
+            result.add(expense.getDescription());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,149 @@
+package com.emsi.expensetracker.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.emsi.expensetracker.dao.base.RowSource;
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.CategoryTotal;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.TestDatabase;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that the monthly_totals rollup follows inserts, updates and deletes,
+ * and that rollup-backed totals match sums over the raw expenses.
+ */
+public class MonthlyTotalsTest extends TestCase {
+
+    private TestDatabase database;
+    private DatabaseConnection db;
+    private ExpenseDAO dao;
+
+    @Override
+    protected void setUp() throws Exception {
+        database = TestDatabase.open("monthly-totals", "db.pool.read.size=1");
+        db = database.getConnection();
+        new AuthDAO(db).save(new User("rollup-user", "rollup@example.com", "secret"));
+        dao = new ExpenseDAO(db);
+    }
+
+    @Override
+    protected void tearDown() {
+        database.close();
+    }
+
+    public void testRollupFollowsWrites() throws Exception {
+        List<Expense> expenses = sampleExpenses();
+        dao.saveAll(expenses);
+        assertRollupMatchesExpenses();
+
+        // Move one expense to another month and category, delete another
+        Expense moved = expenses.get(3);
+        moved.setDate(moved.getDate().plusMonths(2));
+        moved.setCategoryId(moved.getCategoryId() % 6 + 1);
+        moved.setAmountCents(moved.getAmountCents() + 250);
+        assertTrue(dao.update(moved));
+        assertTrue(dao.delete(expenses.get(7).getId()));
+        assertRollupMatchesExpenses();
+    }
+
+    public void testRebuildRestoresRollup() throws Exception {
+        dao.saveAll(sampleExpenses());
+        try (Connection conn = db.getWriteConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM monthly_totals");
+        }
+        assertTrue(dao.rebuildMonthlyTotals());
+        assertRollupMatchesExpenses();
+    }
+
+    public void testInsertRowsSkipsNullDescriptions() throws Exception {
+        List<Expense> expenses = sampleExpenses();
+        int[] next = new int[1];
+        RowSource source = (stmt, index) -> {
+            if (next[0] == expenses.size()) {
+                return false;
+            }
+            Expense expense = expenses.get(next[0]++);
+            // Every tenth row has no description and is skipped
+            stmt.setString(index, next[0] % 10 == 0 ? null : expense.getDescription());
+            stmt.setLong(index + 1, expense.getAmountCents());
+            stmt.setLong(index + 2, expense.getDate().toEpochDay());
+            stmt.setInt(index + 3, expense.getCategoryId());
+            stmt.setInt(index + 4, expense.getUserId());
+            return true;
+        };
+        assertEquals(450, dao.insertRows(source, 120));
+        assertRollupMatchesExpenses();
+        // Fails if the search index is missing rows or holds skipped ones
+        try (Connection conn = db.getWriteConnection(); Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("INSERT INTO expenses_fts (expenses_fts, rank) VALUES ('integrity-check', 1)");
+        }
+    }
+
+    public void testSumByCategoryMatchesRawTotals() {
+        List<Expense> expenses = sampleExpenses();
+        dao.saveAll(expenses);
+        LocalDate[][] ranges = {
+                {null, null},
+                {LocalDate.of(2023, 3, 15), null},
+                {null, LocalDate.of(2023, 8, 10)},
+                {LocalDate.of(2023, 2, 1), LocalDate.of(2023, 5, 31)},
+                {LocalDate.of(2023, 1, 20), LocalDate.of(2024, 2, 3)},
+                {LocalDate.of(2023, 4, 3), LocalDate.of(2023, 4, 27)},
+                {LocalDate.of(2023, 4, 3), LocalDate.of(2023, 5, 2)}
+        };
+        for (LocalDate[] range : ranges) {
+            Map<Integer, Long> expected = new HashMap<>();
+            for (Expense expense : expenses) {
+                LocalDate date = expense.getDate();
+                if ((range[0] == null || !date.isBefore(range[0])) && (range[1] == null || !date.isAfter(range[1]))) {
+                    expected.merge(expense.getCategoryId(), expense.getAmountCents(), Long::sum);
+                }
+            }
+            Map<Integer, Long> actual = new HashMap<>();
+            for (CategoryTotal total : dao.sumByCategory(1, range[0], range[1])) {
+                actual.put(total.getCategoryId(), total.getTotalCents());
+            }
+            assertEquals("range " + range[0] + " .. " + range[1], expected, actual);
+        }
+    }
+
+    private List<Expense> sampleExpenses() {
+        List<Expense> expenses = new ArrayList<>();
+        LocalDate start = LocalDate.of(2023, 1, 1);
+        for (int i = 0; i < 500; i++) {
+            expenses.add(new Expense("Expense " + i, 100 + (i * 37) % 5000, 1 + i % 6, start.plusDays(i * 7 % 420), 1));
+        }
+        return expenses;
+    }
+
+    private void assertRollupMatchesExpenses() throws Exception {
+        String rollup = "SELECT user_id, month, category_id, total_cents, expense_count FROM monthly_totals ORDER BY 1, 2, 3";
+        String raw = "SELECT user_id, CAST(strftime('%Y', epoch_day * 86400, 'unixepoch') AS INTEGER) * 12"
+                + " + CAST(strftime('%m', epoch_day * 86400, 'unixepoch') AS INTEGER) - 1 AS month,"
+                + " COALESCE(category_id, 0), SUM(amount_cents), COUNT(*) FROM expenses GROUP BY 1, 2, 3 ORDER BY 1, 2, 3";
+        assertEquals(rows(raw), rows(rollup));
+    }
+
+    private List<String> rows(String sql) throws Exception {
+        List<String> rows = new ArrayList<>();
+        try (Connection conn = db.getReadConnection(); Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                rows.add(rs.getInt(1) + "/" + rs.getInt(2) + "/" + rs.getInt(3) + "=" + rs.getLong(4) + "x" + rs.getInt(5));
+            }
+        }
+        return rows;
+    }
+}
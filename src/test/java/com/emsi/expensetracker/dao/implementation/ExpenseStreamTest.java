@@ -0,0 +1,79 @@
+package com.emsi.expensetracker.dao.implementation;
+
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.TestDatabase;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that cursor streams give their read connection back. The read pool
+ * has a single connection, so a leaked one makes the next read wait.
+ */
+public class ExpenseStreamTest extends TestCase {
+
+    private TestDatabase database;
+    private DatabaseConnection db;
+
+    @Override
+    protected void setUp() throws Exception {
+        database = TestDatabase.open("expense-stream", "db.pool.read.size=1");
+        db = database.getConnection();
+        new AuthDAO(db).save(new User("stream-user", "stream@example.com", "secret"));
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expenses.add(new Expense("Expense " + i, 100 + i, 1, LocalDate.of(2024, 1, 1).plusDays(i), 1));
+        }
+        new ExpenseDAO(db).saveAll(expenses);
+    }
+
+    @Override
+    protected void tearDown() {
+        database.close();
+    }
+
+    public void testClosedStreamReleasesConnection() throws Exception {
+        try (Stream<Expense> expenses = new ExpenseDAO(db).streamByUserId(1)) {
+            assertEquals(10, expenses.limit(10).count());
+        }
+        assertReadConnectionAvailable();
+    }
+
+    public void testFailingBinderReleasesConnection() throws Exception {
+        ExpenseDAO dao = new ExpenseDAO(db) {
+            @Override
+            public Stream<Expense> streamByUserId(int userId) {
+                return queryStream(STREAM_BY_USER_ID, stmt -> {
+                    throw new IllegalStateException("binder failed");
+                }, rs -> null);
+            }
+        };
+        try {
+            dao.streamByUserId(1);
+            fail("The binder's exception should propagate");
+        } catch (IllegalStateException e) {
+            assertEquals("binder failed", e.getMessage());
+        }
+        assertReadConnectionAvailable();
+    }
+
+    private void assertReadConnectionAvailable() throws Exception {
+        CompletableFuture<Boolean> read = CompletableFuture.supplyAsync(() -> {
+            try (Connection conn = db.getReadConnection()) {
+                return conn.isValid(1);
+            } catch (Exception e) {
+                return false;
+            }
+        });
+        assertTrue("The read connection was not released", read.get(5, TimeUnit.SECONDS));
+    }
+}
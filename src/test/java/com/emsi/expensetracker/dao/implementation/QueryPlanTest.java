@@ -0,0 +1,115 @@
+package com.emsi.expensetracker.dao.implementation;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.TestDatabase;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks through EXPLAIN QUERY PLAN that the queries the DAOs run are served
+ * by an index once the schema migrations have run.
+ */
+public class QueryPlanTest extends TestCase {
+
+    private TestDatabase database;
+    private DatabaseConnection db;
+
+    @Override
+    protected void setUp() throws Exception {
+        database = TestDatabase.open("query-plan", "db.pool.read.size=1");
+        db = database.getConnection();
+    }
+
+    @Override
+    protected void tearDown() {
+        database.close();
+    }
+
+    public void testExpenseFindByIdUsesPrimaryKey() throws Exception {
+        assertUsesIndex(ExpenseDAO.FIND_BY_ID);
+        assertUsesIndex(ExpenseDAO.FIND_VIEW_BY_ID);
+    }
+
+    public void testExpenseFindByUserIdUsesIndex() throws Exception {
+        assertUsesIndex(ExpenseDAO.FIND_BY_USER_ID);
+    }
+
+    public void testExpenseStreamByUserIdUsesIndexOrder() throws Exception {
+        assertUsesIndex(ExpenseDAO.STREAM_BY_USER_ID);
+    }
+
+    public void testExpenseFindByUserIdBetweenUsesIndex() throws Exception {
+        assertUsesIndex(ExpenseDAO.FIND_BY_USER_ID_BETWEEN);
+    }
+
+    public void testExpenseExportUsesIndexes() throws Exception {
+        assertUsesIndex(ExpenseDAO.FOR_EACH_BETWEEN);
+    }
+
+    public void testExpensePagesUseIndexes() throws Exception {
+        assertUsesIndex(ExpenseDAO.FIRST_PAGE);
+        assertUsesIndex(ExpenseDAO.NEXT_PAGE);
+    }
+
+    public void testExpenseSearchUsesFullTextIndex() throws Exception {
+        assertUsesIndex(ExpenseDAO.SEARCH);
+    }
+
+    public void testSumByCategoryUsesIndexes() throws Exception {
+        assertUsesIndex(ExpenseDAO.sumByCategoryQuery(List.of(ExpenseDAO.RAW_TOTALS)));
+        assertUsesIndex(ExpenseDAO.sumByCategoryQuery(List.of(ExpenseDAO.ROLLUP_TOTALS)));
+        assertUsesIndex(ExpenseDAO.sumByCategoryQuery(
+                List.of(ExpenseDAO.RAW_TOTALS, ExpenseDAO.ROLLUP_TOTALS, ExpenseDAO.RAW_TOTALS)));
+    }
+
+    public void testSumByUserIdUsesPrimaryKey() throws Exception {
+        assertUsesIndex(ExpenseDAO.SUM_BY_USER_ID);
+    }
+
+    public void testCategoryFindByIdUsesPrimaryKey() throws Exception {
+        assertUsesIndex(CategoryDAO.FIND_BY_ID);
+    }
+
+    public void testCategoryFindByUserIdUsesIndex() throws Exception {
+        assertUsesIndex(CategoryDAO.FIND_BY_USER_ID);
+    }
+
+    public void testCategoryFindByNameAndUserIdUsesIndex() throws Exception {
+        assertUsesIndex(CategoryDAO.FIND_BY_NAME_AND_USER_ID);
+    }
+
+    public void testFindDefaultCategoriesUsesIndex() throws Exception {
+        assertUsesIndex(CategoryDAO.FIND_DEFAULTS);
+    }
+
+    public void testFindByUsernameUsesIndex() throws Exception {
+        assertUsesIndex(AuthDAO.FIND_BY_USERNAME);
+    }
+
+    private void assertUsesIndex(String sql) throws Exception {
+        StringBuilder plan = new StringBuilder();
+        Set<String> subqueries = new HashSet<>();
+        try (Connection conn = db.getReadConnection(); PreparedStatement stmt = conn.prepareStatement(
+                "EXPLAIN QUERY PLAN " + sql); ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String detail = rs.getString("detail");
+                plan.append(detail).append('\n');
+                String[] words = detail.split(" ");
+                if (detail.startsWith("MATERIALIZE") || detail.startsWith("CO-ROUTINE")) {
+                    subqueries.add(words[1]);
+                } else if (detail.startsWith("SCAN") && !detail.contains("INDEX") && !subqueries.contains(words[1])) {
+                    fail("Full table scan for: " + sql + "\n" + plan);
+                }
+            }
+        }
+        assertTrue("No index used for: " + sql + "\n" + plan,
+                plan.toString().contains("INDEX") || plan.toString().contains("PRIMARY KEY"));
+    }
+}
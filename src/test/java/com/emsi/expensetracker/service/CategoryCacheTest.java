@@ -0,0 +1,115 @@
+package com.emsi.expensetracker.service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.CategoryDAO;
+import com.emsi.expensetracker.model.Category;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.service.implementation.CategoryService;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.TestDatabase;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that CategoryService answers repeated lookups from its cache and
+ * that its writes evict stale entries.
+ */
+public class CategoryCacheTest extends TestCase {
+
+    private TestDatabase database;
+    private DatabaseConnection db;
+    private CategoryService service;
+    private int userId;
+
+    @Override
+    protected void setUp() throws Exception {
+        database = TestDatabase.open("category-cache", "db.pool.read.size=1");
+        db = database.getConnection();
+        new AuthDAO(db).save(new User("cache-user", "cache@example.com", "secret"));
+        try (Connection conn = db.getReadConnection();
+                PreparedStatement stmt = conn.prepareStatement("SELECT id FROM users WHERE username = ?")) {
+            stmt.setString(1, "cache-user");
+            try (ResultSet rs = stmt.executeQuery()) {
+                assertTrue(rs.next());
+                userId = rs.getInt(1);
+            }
+        }
+        service = new CategoryService(new CategoryDAO(db));
+    }
+
+    @Override
+    protected void tearDown() {
+        database.close();
+    }
+
+    public void testRepeatedLookupsHitCache() {
+        assertTrue(service.createCategory("Books", "Reading", userId));
+        Category first = service.getCategoryByName("Books", userId);
+        assertNotNull(first);
+        assertSame(first, service.getCategoryById(first.getId()));
+        assertSame(first, service.getCategoryById(first.getId()));
+        assertEquals(1, service.getCacheMisses());
+        assertEquals(2, service.getCacheHits());
+    }
+
+    public void testWarmCacheLoadsAvailableCategories() {
+        assertTrue(service.createCategory("Books", "Reading", userId));
+        service.warmCache(userId);
+        assertNotNull(service.getCategoryByName("Books", userId));
+        assertEquals(0, service.getCacheMisses());
+    }
+
+    public void testUpdateEvictsOldEntries() {
+        assertTrue(service.createCategory("Books", "Reading", userId));
+        Category books = service.getCategoryByName("Books", userId);
+        assertTrue(service.updateCategory(books.getId(), "Novels", "Fiction", userId));
+        assertNull(service.getCategoryByName("Books", userId));
+        assertEquals("Novels", service.getCategoryById(books.getId()).getName());
+    }
+
+    public void testDeleteEvictsEntry() {
+        assertTrue(service.createCategory("Books", "Reading", userId));
+        Category books = service.getCategoryByName("Books", userId);
+        assertTrue(service.deleteCategory(books.getId(), userId));
+        assertNull(service.getCategoryById(books.getId()));
+        assertFalse(service.categoryExists("Books", userId));
+    }
+
+    public void testReadRacingAWriteIsNotCached() {
+        assertTrue(service.createCategory("Books", "Reading", userId));
+        int id = service.getCategoryByName("Books", userId).getId();
+        CategoryService[] racing = new CategoryService[1];
+        // The rename lands after the lookup read the old row but before it is cached
+        racing[0] = new CategoryService(new CategoryDAO(db) {
+            private boolean renamed;
+
+            @Override
+            public Category findById(Integer categoryId) {
+                Category category = super.findById(categoryId);
+                if (!renamed) {
+                    renamed = true;
+                    assertTrue(racing[0].updateCategory(categoryId, "Novels", "Fiction", userId));
+                }
+                return category;
+            }
+        });
+        assertEquals("Books", racing[0].getCategoryById(id).getName());
+        assertEquals("Novels", racing[0].getCategoryById(id).getName());
+    }
+
+    public void testNamesAreUniquePerUser() {
+        AuthDAO authDAO = new AuthDAO(db);
+        assertTrue(authDAO.save(new User("other-user", "other@example.com", "secret")));
+        int otherId = authDAO.findByUsername("other-user").getId();
+        assertTrue(service.createCategory("Books", "Reading", userId));
+        assertTrue(service.createCategory("Books", "Reading", otherId));
+        assertTrue(service.getCategoryByName("Books", userId).getId()
+                != service.getCategoryByName("Books", otherId).getId());
+        // The database still rejects a second "Books" for the same user
+        assertFalse(new CategoryDAO(db).save(new Category("Books", "Again", userId)));
+    }
+}
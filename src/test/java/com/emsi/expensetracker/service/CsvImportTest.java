@@ -0,0 +1,156 @@
+package com.emsi.expensetracker.service;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.CategoryDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.model.utils.UserKey;
+import com.emsi.expensetracker.service.implementation.CategoryService;
+import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.importer.CsvExpenseImporter;
+import com.emsi.expensetracker.service.importer.ImportReport;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.TestDatabase;
+
+import junit.framework.TestCase;
+
+/**
+ * Imports CSV files through the full pipeline: CSV quoting, error lines,
+ * category resolution, and a file large enough to use every worker.
+ */
+public class CsvImportTest extends TestCase {
+
+    private TestDatabase database;
+    private Path csvFile;
+    private DatabaseConnection db;
+    private ExpenseDAO expenseDAO;
+    private CategoryService categoryService;
+    private int userId;
+
+    @Override
+    protected void setUp() throws Exception {
+        csvFile = Files.createTempFile("csv-import", ".csv");
+        database = TestDatabase.open("csv-import", "db.pool.read.size=2");
+        db = database.getConnection();
+        AuthDAO users = new AuthDAO(db);
+        users.save(new User("importer", "importer@example.com", "secret"));
+        userId = users.findById(new UserKey("importer", "secret")).getId();
+        expenseDAO = new ExpenseDAO(db);
+        categoryService = new CategoryService(new CategoryDAO(db));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        database.close();
+        Files.deleteIfExists(csvFile);
+    }
+
+    private ImportReport importCsv(String content, int workers, int chunkRecords, int fallbackCategoryId) throws Exception {
+        Files.writeString(csvFile, content, StandardCharsets.UTF_8);
+        CsvExpenseImporter importer = new CsvExpenseImporter(new ExpenseService(expenseDAO), categoryService,
+                Executors.newSingleThreadExecutor(), workers, chunkRecords);
+        return importer.importFile(csvFile, userId, fallbackCategoryId);
+    }
+
+    private int categoryId(String name) {
+        return categoryService.getAvailableCategories(userId).stream()
+                .filter(category -> category.getName().equals(name))
+                .findFirst().orElseThrow().getId();
+    }
+
+    public void testParsesQuotedFieldsAndReportsBadLines() throws Exception {
+        String csv = "\uFEFFDate,Description,Amount,Category\r\n"
+                + "2024-03-01,\"Dinner, with \"\"friends\"\"\",42.50,food\r\n"
+                + "2024-03-02,\"Two\nline memo\",3,Transport\n"
+                + "2024-03-03,Refund,-5.00,Food\n"
+                + "\n"
+                + "03/04/2024,Bad date,1.00,Food\n"
+                + "2024-03-05,Mystery,7.25,Gadgets\n"
+                + "2024-03-06,No amount,,Food\n";
+        ImportReport report = importCsv(csv, 2, 2, 0);
+
+        assertEquals(2, report.getImported());
+        assertEquals(4, report.getRejected());
+        assertEquals("Line 5: Amount must be greater than zero", report.getErrors().get(0).toString());
+        assertEquals("Line 7: Invalid date: 03/04/2024", report.getErrors().get(1).toString());
+        assertEquals("Line 8: Unknown category: Gadgets", report.getErrors().get(2).toString());
+        assertEquals(9, report.getErrors().get(3).getLine());
+
+        List<Expense> expenses = expenseDAO.findByUserId(userId);
+        expenses.sort((a, b) -> a.getDate().compareTo(b.getDate()));
+        assertEquals("Dinner, with \"friends\"", expenses.get(0).getDescription());
+        assertEquals(4250, expenses.get(0).getAmountCents());
+        assertEquals(categoryId("Food"), expenses.get(0).getCategoryId());
+        assertEquals("Two\nline memo", expenses.get(1).getDescription());
+        assertEquals(LocalDate.of(2024, 3, 2), expenses.get(1).getDate());
+    }
+
+    public void testRuntimeProfilesKeepForeignKeys() throws Exception {
+        db.useProfile("bulk-load");
+        assertEquals(Integer.valueOf(1), db.submitWrite(conn -> {
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA foreign_keys")) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }).get());
+        db.useProfile("balanced");
+
+        DatabaseConnection other = database.connect("db.profile.unchecked.foreign_keys=OFF");
+        try {
+            other.useProfile("unchecked");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("balanced", other.getWriterProfileName());
+        } finally {
+            other.shutdown();
+        }
+    }
+
+    public void testFallbackCategoryAndSemicolons() throws Exception {
+        int other = categoryId("Other");
+        ImportReport report = importCsv("amount;date\n9,99;2024-01-01\n1.5;2024-01-02\n", 1, 10, other);
+
+        assertEquals(1, report.getImported());
+        assertEquals("Line 2: Invalid amount: 9,99", report.getErrors().get(0).toString());
+        assertEquals(other, expenseDAO.findByUserId(userId).get(0).getCategoryId());
+    }
+
+    public void testMissingColumnRejectsFile() throws Exception {
+        ImportReport report = importCsv("date,description\n2024-01-01,Coffee\n", 2, 10, 0);
+
+        assertEquals(0, report.getImported());
+        assertEquals("Line 1: Missing required column: amount", report.getErrors().get(0).toString());
+    }
+
+    public void testLargeFileUsesAllWorkers() throws Exception {
+        int rows = 20_000;
+        long expectedCents = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(csvFile)) {
+            out.write("date,description,amount,category\n");
+            for (int i = 0; i < rows; i++) {
+                long cents = 100 + i % 997;
+                expectedCents += cents;
+                out.write(LocalDate.of(2023, 1, 1).plusDays(i % 365) + ",Row " + i + "," + cents / 100 + "."
+                        + String.format("%02d", cents % 100) + "," + (i % 2 == 0 ? "Food" : "Bills") + "\n");
+            }
+        }
+        CsvExpenseImporter importer = new CsvExpenseImporter(new ExpenseService(expenseDAO), categoryService,
+                Executors.newSingleThreadExecutor(), 4, 500);
+        ImportReport report = importer.importFile(csvFile, userId, 0);
+
+        assertEquals(rows, report.getImported());
+        assertEquals(0, report.getRejected());
+        assertEquals(expectedCents, expenseDAO.sumByUserId(userId));
+        assertEquals(rows, expenseDAO.search(userId, "row", rows).size());
+    }
+}
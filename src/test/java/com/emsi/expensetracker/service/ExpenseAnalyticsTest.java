@@ -0,0 +1,341 @@
+package com.emsi.expensetracker.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.CategoryDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.service.analytics.ExpenseAnalytics;
+import com.emsi.expensetracker.service.analytics.ExpenseColumns;
+import com.emsi.expensetracker.service.implementation.CategoryService;
+import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.TestDatabase;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the columnar analytics against plain loops over the expenses, and
+ * that ExpenseService writes keep a loaded user's columns current.
+ */
+public class ExpenseAnalyticsTest extends TestCase {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1);
+
+    public void testQueriesMatchBruteForce() {
+        List<Expense> expenses = sampleExpenses(2000);
+        ExpenseColumns columns = ExpenseColumns.load(1, sorted(expenses).iterator());
+        LocalDate from = START.plusDays(40);
+        LocalDate to = START.plusDays(200);
+
+        long sum = 0;
+        int count = 0;
+        Map<Integer, Long> byCategory = new HashMap<>();
+        List<Expense> inRange = new ArrayList<>();
+        for (Expense expense : expenses) {
+            if (!expense.getDate().isBefore(from) && !expense.getDate().isAfter(to)) {
+                sum += expense.getAmountCents();
+                count++;
+                byCategory.merge(expense.getCategoryId(), expense.getAmountCents(), Long::sum);
+                inRange.add(expense);
+            }
+        }
+        inRange.sort(Comparator.comparingLong(Expense::getAmountCents).reversed());
+
+        assertEquals(sum, columns.sum(from, to));
+        assertEquals(count, columns.count(from, to));
+        assertEquals(byCategory, columns.totalsByCategory(from, to));
+        List<Expense> top = columns.top(from, to, 5);
+        assertEquals(5, top.size());
+        for (int i = 0; i < top.size(); i++) {
+            assertEquals(inRange.get(i).getAmountCents(), top.get(i).getAmountCents());
+        }
+        assertEquals(expenses.stream().mapToLong(Expense::getAmountCents).sum(), columns.sum(null, null));
+    }
+
+    public void testSnapshotsAreIdempotent() {
+        List<Expense> expenses = sampleExpenses(50);
+        ExpenseColumns columns = ExpenseColumns.load(1, sorted(expenses).iterator());
+        Expense changed = expenses.get(10);
+        changed.setAmountCents(changed.getAmountCents() + 1000);
+        changed.setDate(changed.getDate().plusDays(30));
+
+        ExpenseColumns updated = columns.withSaved(changed).withSaved(changed);
+        assertEquals(50, updated.size());
+        assertEquals(columns.sum(null, null) + 1000, updated.sum(null, null));
+        assertSame(updated, updated.withRemoved(-1));
+        assertEquals(49, updated.withRemoved(changed.getId()).size());
+        assertEquals(50, columns.size());
+    }
+
+    public void testIncrementalWritesMatchReload() {
+        List<Expense> expenses = sampleExpenses(2000);
+        ExpenseColumns first = ExpenseColumns.load(1, sorted(expenses).iterator());
+        long firstSum = first.sum(null, null);
+        Map<Integer, Expense> current = new HashMap<>();
+        expenses.forEach(expense -> current.put(expense.getId(), expense));
+
+        // Inserts, moves and removals across the whole date range
+        Random random = new Random(17);
+        ExpenseColumns columns = first;
+        int nextId = 5000;
+        for (int i = 0; i < 3000; i++) {
+            int op = random.nextInt(3);
+            if (op == 0 || current.isEmpty()) {
+                Expense added = new Expense(nextId++, "New " + i % 7, 1 + random.nextInt(5000), 1 + random.nextInt(8),
+                        START.plusDays(random.nextInt(400) - 20), 1);
+                current.put(added.getId(), added);
+                columns = columns.withSaved(added);
+            } else {
+                List<Integer> ids = new ArrayList<>(current.keySet());
+                int id = ids.get(random.nextInt(ids.size()));
+                if (op == 1) {
+                    Expense old = current.get(id);
+                    Expense changed = new Expense(id, old.getDescription(), old.getAmountCents() + 3,
+                            old.getCategoryId(), old.getDate().plusDays(random.nextInt(60) - 30), 1);
+                    current.put(id, changed);
+                    columns = columns.withSaved(changed);
+                } else {
+                    current.remove(id);
+                    columns = columns.withRemoved(id);
+                }
+            }
+            if (i % 500 == 499) {
+                assertSameContents(ExpenseColumns.load(1, sorted(new ArrayList<>(current.values())).iterator()),
+                        columns);
+                for (int id : new ArrayList<>(current.keySet()).subList(0, 20)) {
+                    assertEquals(current.get(id).getAmountCents(), columns.findById(id).getAmountCents());
+                }
+            }
+        }
+        assertEquals(firstSum, first.sum(null, null));
+        assertEquals(2000, first.size());
+    }
+
+    public void testWritingToAnOlderSnapshotForks() {
+        ExpenseColumns columns = ExpenseColumns.load(1, sorted(sampleExpenses(100)).iterator());
+        Expense a = new Expense(500, "A", 100, 1, START, 1);
+        Expense b = new Expense(501, "B", 200, 1, START, 1);
+        ExpenseColumns withA = columns.withSaved(a);
+        ExpenseColumns withB = columns.withSaved(b);
+        assertNotNull(withA.findById(500));
+        assertNull(withA.findById(501));
+        assertNotNull(withB.findById(501));
+        assertNull(withB.findById(500));
+        assertNull(columns.findById(500));
+        assertEquals(columns.sum(null, null) + 100, withA.sum(null, null));
+        assertEquals(columns.sum(null, null) + 200, withB.sum(null, null));
+        assertEquals(101, withA.withRemoved(1).withSaved(b).size());
+    }
+
+    public void testServiceWritesKeepColumnsInSync() throws Exception {
+        try (TestDatabase database = TestDatabase.open("expense-analytics", "db.pool.read.size=1")) {
+            DatabaseConnection db = database.getConnection();
+            new AuthDAO(db).save(new User("analytics-user", "analytics@example.com", "secret"));
+            ExpenseService service = new ExpenseService(new ExpenseDAO(db));
+            ExpenseAnalytics analytics = service.getAnalytics();
+            service.createExpenses(sampleExpenses(100));
+            assertEquals(service.getTotalExpensesByUser(1), analytics.sum(1, null, null));
+
+            Expense expense = new Expense("Late snack", 1234, 2, START.plusDays(3), 1);
+            assertTrue(service.createExpense(expense));
+            expense.setAmountCents(4321);
+            assertTrue(service.updateExpense(expense));
+            assertEquals(service.getTotalExpensesByUser(1), analytics.sum(1, null, null));
+            assertTrue(service.deleteExpense(expense.getId()));
+            assertEquals(service.getTotalExpensesByUser(1), analytics.sum(1, null, null));
+            assertEquals(100, analytics.columns(1).size());
+        }
+    }
+
+    public void testFailedBatchIsLeftOut() throws Exception {
+        try (TestDatabase database = TestDatabase.open("failed-batch", "db.pool.read.size=1", "db.batch.size=10")) {
+            DatabaseConnection db = database.getConnection();
+            new AuthDAO(db).save(new User("batch-user", "batch@example.com", "secret"));
+            ExpenseService service = new ExpenseService(new ExpenseDAO(db));
+            List<Expense> expenses = sampleExpenses(30);
+            // An unknown category fails the second batch only
+            expenses.get(15).setCategoryId(9999);
+            List<Integer> ids = service.createExpenses(expenses);
+            assertEquals(20, ids.size());
+            assertEquals(expenses.get(20).getId(), ids.get(10).intValue());
+            assertEquals(20, service.getExpensesByUserId(1).size());
+            assertEquals(service.getTotalExpensesByUser(1), service.totalBetween(1, null, null));
+        }
+    }
+
+    public void testDayIndexMatchesColumnScans() throws Exception {
+        try (TestDatabase database = TestDatabase.open("day-index", "db.pool.read.size=1")) {
+            DatabaseConnection db = database.getConnection();
+            new AuthDAO(db).save(new User("index-user", "index@example.com", "secret"));
+            ExpenseService service = new ExpenseService(new ExpenseDAO(db));
+            service.createExpenses(sampleExpenses(500));
+            assertTotalsMatch(service);
+
+            // Far outside the loaded window, so the index has to grow
+            Expense future = new Expense("Future", 999, 3, START.plusYears(5), 1);
+            Expense past = new Expense("Past", 555, 4, START.minusYears(3), 1);
+            assertTrue(service.createExpense(future));
+            assertTrue(service.createExpense(past));
+            future.setCategoryId(5);
+            future.setDate(START.plusDays(10));
+            assertTrue(service.updateExpense(future));
+            assertTrue(service.deleteExpense(past.getId()));
+            assertTotalsMatch(service);
+        }
+    }
+
+    public void testWriteDuringLoadIsNotLost() throws Exception {
+        try (TestDatabase database = TestDatabase.open("analytics-load", "db.pool.read.size=2")) {
+            DatabaseConnection db = database.getConnection();
+            new AuthDAO(db).save(new User("load-user", "load@example.com", "secret"));
+            CountDownLatch read = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            // Reads the rows, then holds the load until the write below is done
+            ExpenseDAO dao = new ExpenseDAO(db) {
+                @Override
+                public Stream<Expense> streamByUserId(int userId) {
+                    List<Expense> rows;
+                    try (Stream<Expense> stream = super.streamByUserId(userId)) {
+                        rows = stream.collect(Collectors.toList());
+                    }
+                    read.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return rows.stream();
+                }
+            };
+            ExpenseAnalytics analytics = new ExpenseAnalytics(dao);
+            AtomicReference<ExpenseColumns> first = new AtomicReference<>();
+            Thread loader = new Thread(() -> first.set(analytics.columns(1)));
+            loader.start();
+            assertTrue(read.await(10, TimeUnit.SECONDS));
+
+            Expense expense = new Expense("Mid-load", 700, 1, START, 1);
+            assertTrue(dao.save(expense));
+            analytics.saved(expense);
+            release.countDown();
+            loader.join();
+
+            assertNull(first.get().findById(expense.getId()));
+            assertNotNull(analytics.columns(1).findById(expense.getId()));
+        }
+    }
+
+    public void testCategoryDeleteReachesAnalytics() throws Exception {
+        try (TestDatabase database = TestDatabase.open("analytics-category", "db.pool.read.size=1")) {
+            DatabaseConnection db = database.getConnection();
+            new AuthDAO(db).save(new User("category-user", "category@example.com", "secret"));
+            CategoryService categories = new CategoryService(new CategoryDAO(db));
+            ExpenseService service = new ExpenseService(new ExpenseDAO(db), categories);
+            categories.addDeleteListener(service::categoryDeleted);
+            assertTrue(categories.createCategory("Hobbies", "", 1));
+            int hobbies = categories.getCategoryByName("Hobbies", 1).getId();
+            List<Expense> expenses = sampleExpenses(40);
+            for (int i = 0; i < expenses.size(); i += 4) {
+                expenses.get(i).setCategoryId(hobbies);
+            }
+            service.createExpenses(expenses);
+            assertTotalsMatchDatabase(service);
+
+            // The database moves the expenses to no category on its own
+            assertTrue(categories.deleteCategory(hobbies, 1));
+            assertTotalsMatchDatabase(service);
+            assertFalse(service.getAnalytics().totalsByCategory(1, null, null).containsKey(hobbies));
+        }
+    }
+
+    public void testForgetUserDropsColumns() throws Exception {
+        try (TestDatabase database = TestDatabase.open("analytics-evict", "db.pool.read.size=1")) {
+            DatabaseConnection db = database.getConnection();
+            new AuthDAO(db).save(new User("evict-user", "evict@example.com", "secret"));
+            ExpenseService service = new ExpenseService(new ExpenseDAO(db));
+            service.createExpenses(sampleExpenses(10));
+            ExpenseColumns loaded = service.getAnalytics().columns(1);
+            assertSame(loaded, service.getAnalytics().columns(1));
+            service.forgetUser(1);
+            assertNotSame(loaded, service.getAnalytics().columns(1));
+            assertEquals(10, service.getAnalytics().columns(1).size());
+        }
+    }
+
+    private static void assertSameContents(ExpenseColumns expected, ExpenseColumns actual) {
+        LocalDate[][] ranges = {
+                {null, null},
+                {START.plusDays(40), START.plusDays(200)},
+                {START.minusDays(30), START.plusDays(2)}
+        };
+        assertEquals(expected.size(), actual.size());
+        for (LocalDate[] range : ranges) {
+            assertEquals(expected.sum(range[0], range[1]), actual.sum(range[0], range[1]));
+            assertEquals(expected.count(range[0], range[1]), actual.count(range[0], range[1]));
+            assertEquals(expected.totalsByCategory(range[0], range[1]), actual.totalsByCategory(range[0], range[1]));
+            List<Expense> expectedTop = expected.top(range[0], range[1], 10);
+            List<Expense> actualTop = actual.top(range[0], range[1], 10);
+            for (int i = 0; i < expectedTop.size(); i++) {
+                assertEquals(expectedTop.get(i).getAmountCents(), actualTop.get(i).getAmountCents());
+            }
+        }
+    }
+
+    private void assertTotalsMatch(ExpenseService service) {
+        ExpenseColumns columns = service.getAnalytics().columns(1);
+        LocalDate[][] ranges = {
+                {null, null},
+                {START.plusDays(7), null},
+                {null, START.plusDays(90)},
+                {START.plusDays(30), START.plusDays(31)},
+                {START.minusYears(10), START.minusYears(9)},
+                {START.plusYears(9), START.plusYears(10)}
+        };
+        for (LocalDate[] range : ranges) {
+            assertEquals(columns.sum(range[0], range[1]), service.totalBetween(1, range[0], range[1]));
+            Map<Integer, Long> expected = columns.totalsByCategory(range[0], range[1]);
+            Map<Integer, Long> actual = new HashMap<>();
+            service.totalsByCategoryBetween(1, range[0], range[1])
+                    .forEach(total -> actual.put(total.getCategoryId(), total.getTotalCents()));
+            assertEquals(expected, actual);
+        }
+    }
+
+    private static void assertTotalsMatchDatabase(ExpenseService service) {
+        Map<Integer, Long> expected = new HashMap<>();
+        service.getCategoryTotals(1, null, null)
+                .forEach(total -> expected.put(total.getCategoryId(), total.getTotalCents()));
+        Map<Integer, Long> actual = new HashMap<>();
+        service.totalsByCategoryBetween(1, null, null)
+                .forEach(total -> actual.put(total.getCategoryId(), total.getTotalCents()));
+        assertEquals(expected, actual);
+    }
+
+    private static List<Expense> sampleExpenses(int count) {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            expenses.add(new Expense(i + 1, "Expense " + i % 40, 100 + (i * 7919L) % 10_000, 1 + i % 6,
+                    START.plusDays(i * 13 % 365), 1));
+        }
+        return expenses;
+    }
+
+    private static List<Expense> sorted(List<Expense> expenses) {
+        List<Expense> copy = new ArrayList<>(expenses);
+        copy.sort(Comparator.comparing(Expense::getDate).thenComparingInt(Expense::getId));
+        return copy;
+    }
+}
@@ -0,0 +1,148 @@
+package com.emsi.expensetracker.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.CategoryDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Category;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.model.utils.UserKey;
+import com.emsi.expensetracker.service.exporter.ExportFormat;
+import com.emsi.expensetracker.service.implementation.CategoryService;
+import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.importer.CsvExpenseImporter;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.TestDatabase;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the bytes written by ExpenseService.export in each format, date
+ * ranges, and that an exported CSV imports back to the same expenses.
+ */
+public class ExpenseExportTest extends TestCase {
+
+    private TestDatabase database;
+    private DatabaseConnection db;
+    private ExpenseDAO expenseDAO;
+    private ExpenseService expenseService;
+    private CategoryService categoryService;
+    private int userId;
+    private int food;
+
+    @Override
+    protected void setUp() throws Exception {
+        database = TestDatabase.open("expense-export", "db.pool.read.size=2");
+        db = database.getConnection();
+        AuthDAO users = new AuthDAO(db);
+        users.save(new User("exporter", "exporter@example.com", "secret"));
+        users.save(new User("importer", "importer@example.com", "secret"));
+        userId = users.findById(new UserKey("exporter", "secret")).getId();
+        expenseDAO = new ExpenseDAO(db);
+        expenseService = new ExpenseService(expenseDAO);
+        categoryService = new CategoryService(new CategoryDAO(db));
+        food = categoryId("Food");
+    }
+
+    @Override
+    protected void tearDown() {
+        database.close();
+    }
+
+    private int categoryId(String name) {
+        return categoryService.getAvailableCategories(userId).stream()
+                .filter(category -> category.getName().equals(name))
+                .mapToInt(Category::getId)
+                .findFirst().orElseThrow();
+    }
+
+    private String export(LocalDate from, LocalDate to, ExportFormat format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        expenseService.export(userId, from, to, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void createSamples() {
+        assertTrue(categoryService.createCategory("Gone", "Deleted below", userId));
+        int gone = categoryService.getCategoryByName("Gone", userId).getId();
+        expenseService.createExpense(new Expense("Lunch, with \"Sam\"", 1250, food, LocalDate.of(2000, 2, 29), userId));
+        expenseService.createExpense(new Expense("Café\tau lait\\\u0001", 5, gone, LocalDate.of(1999, 12, 31), userId));
+        expenseService.createExpense(new Expense("Two\nlines", 100000, food, LocalDate.of(2100, 3, 1), userId));
+        assertTrue(categoryService.deleteCategory(gone, userId));
+    }
+
+    public void testCsvExport() throws Exception {
+        createSamples();
+        String csv = export(null, null, ExportFormat.CSV);
+
+        assertEquals("id,date,description,amount,category\n"
+                + "2,1999-12-31,Café\tau lait\\\u0001,0.05,\n"
+                + "1,2000-02-29,\"Lunch, with \"\"Sam\"\"\",12.50,Food\n"
+                + "3,2100-03-01,\"Two\nlines\",1000.00,Food\n", csv);
+    }
+
+    public void testJsonLinesExport() throws Exception {
+        createSamples();
+        String jsonl = export(LocalDate.of(1999, 1, 1), LocalDate.of(2000, 12, 31), ExportFormat.JSONL);
+
+        assertEquals("{\"id\":2,\"date\":\"1999-12-31\",\"description\":\"Café\\tau lait\\\\\\u0001\",\"amount\":0.05,\"category\":null}\n"
+                + "{\"id\":1,\"date\":\"2000-02-29\",\"description\":\"Lunch, with \\\"Sam\\\"\",\"amount\":12.50,\"category\":\"Food\"}\n",
+                jsonl);
+        assertEquals("", export(LocalDate.of(2001, 1, 1), LocalDate.of(2001, 12, 31), ExportFormat.JSONL));
+    }
+
+    public void testJsonArrayExport() throws Exception {
+        assertEquals("[]\n", export(null, null, ExportFormat.JSON));
+        createSamples();
+        String json = export(LocalDate.of(1999, 1, 1), LocalDate.of(2000, 12, 31), ExportFormat.JSON);
+
+        assertEquals("[{\"id\":2,\"date\":\"1999-12-31\",\"description\":\"Café\\tau lait\\\\\\u0001\",\"amount\":0.05,\"category\":null},\n"
+                + "{\"id\":1,\"date\":\"2000-02-29\",\"description\":\"Lunch, with \\\"Sam\\\"\",\"amount\":12.50,\"category\":\"Food\"}]\n",
+                json);
+    }
+
+    public void testCsvRoundTripsThroughImporter() throws Exception {
+        List<Expense> expenses = new ArrayList<>();
+        LocalDate start = LocalDate.of(2023, 1, 1);
+        String[] categories = {"Food", "Transport", "Bills"};
+        for (int i = 0; i < 5000; i++) {
+            expenses.add(new Expense("Item " + i + (i % 7 == 0 ? ", \"special\"" : ""), 1 + i * 37 % 20000,
+                    categoryId(categories[i % 3]), start.plusDays(i % 700), userId));
+        }
+        expenseService.createExpenses(expenses);
+
+        Path file = Files.createTempFile("expense-export", ".csv");
+        try {
+            assertEquals(5000, expenseService.export(userId, null, null, ExportFormat.CSV, file));
+            int importerId = new AuthDAO(db).findById(new UserKey("importer", "secret")).getId();
+            new CsvExpenseImporter(expenseService, categoryService, Executors.newSingleThreadExecutor(), 2, 1000)
+                    .importFile(file, importerId, 0);
+
+            List<Expense> original = expenseDAO.findByUserIdBetween(userId, LocalDate.MIN, LocalDate.MAX);
+            List<Expense> imported = expenseDAO.findByUserIdBetween(importerId, LocalDate.MIN, LocalDate.MAX);
+            // Parser workers finish chunks in any order, so compare independently of IDs
+            Comparator<Expense> order = Comparator.comparing(Expense::getDate).thenComparing(Expense::getDescription);
+            original.sort(order);
+            imported.sort(order);
+            assertEquals(original.size(), imported.size());
+            for (int i = 0; i < original.size(); i++) {
+                assertEquals(original.get(i).getDescription(), imported.get(i).getDescription());
+                assertEquals(original.get(i).getAmountCents(), imported.get(i).getAmountCents());
+                assertEquals(original.get(i).getDate(), imported.get(i).getDate());
+                assertEquals(original.get(i).getCategoryId(), imported.get(i).getCategoryId());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
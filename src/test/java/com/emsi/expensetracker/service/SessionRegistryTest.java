@@ -0,0 +1,202 @@
+package com.emsi.expensetracker.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.CategoryDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.model.Category;
+import com.emsi.expensetracker.model.Expense;
+import com.emsi.expensetracker.model.User;
+import com.emsi.expensetracker.service.implementation.AuthService;
+import com.emsi.expensetracker.service.implementation.CategoryService;
+import com.emsi.expensetracker.service.implementation.ExpenseService;
+import com.emsi.expensetracker.service.session.Session;
+import com.emsi.expensetracker.service.session.SessionRegistry;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.TestDatabase;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks session tokens, idle expiry on the timer wheel, concurrent use of
+ * the registry, and that session-scoped service calls stay within the
+ * session's user and refresh their cached results after writes.
+ */
+public class SessionRegistryTest extends TestCase {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(5 * SECOND);
+
+    private SessionRegistry manualRegistry() {
+        return new SessionRegistry(Duration.ofSeconds(60), Duration.ofSeconds(1), now::get);
+    }
+
+    public void testOpenFindClose() {
+        SessionRegistry registry = manualRegistry();
+        User user = new User(7, "alice", "alice@example.com");
+        Session first = registry.open(user);
+        Session second = registry.open(user);
+
+        assertEquals(43, first.getToken().length());
+        assertFalse(first.getToken().equals(second.getToken()));
+        assertSame(first, registry.find(first.getToken()));
+        assertEquals(7, registry.find(second.getToken()).getUserId());
+        assertNull(registry.find("no-such-token"));
+        assertNull(registry.find(null));
+
+        assertTrue(registry.close(first.getToken()));
+        assertFalse(registry.close(first.getToken()));
+        assertFalse(first.isOpen());
+        assertNull(registry.find(first.getToken()));
+        assertEquals(1, registry.size());
+    }
+
+    public void testIdleSessionsExpire() {
+        SessionRegistry registry = manualRegistry();
+        Session idle = registry.open(new User(1, "idle", null));
+        Session busy = registry.open(new User(2, "busy", null));
+        Session stale = registry.open(new User(3, "stale", null));
+
+        now.addAndGet(40 * SECOND);
+        assertEquals(0, registry.expireIdle());
+        assertSame(busy, registry.find(busy.getToken()));
+
+        // Past the first deadline: the untouched sessions expire, the busy one moves on
+        now.addAndGet(21 * SECOND);
+        assertNull("idle before it was swept", registry.find(stale.getToken()));
+        assertEquals(1, registry.expireIdle());
+        assertFalse(idle.isOpen());
+        assertFalse(stale.isOpen());
+        assertTrue(busy.isOpen());
+        assertEquals(1, registry.size());
+
+        now.addAndGet(40 * SECOND);
+        assertEquals(1, registry.expireIdle());
+        assertNull(registry.find(busy.getToken()));
+        assertEquals(0, registry.size());
+
+        // A long pause sweeps every bucket once
+        Session late = registry.open(new User(4, "late", null));
+        now.addAndGet(3600 * SECOND);
+        assertEquals(1, registry.expireIdle());
+        assertFalse(late.isOpen());
+    }
+
+    public void testLogoutListenerHearsLastSessionOnly() {
+        SessionRegistry registry = manualRegistry();
+        List<Integer> loggedOut = new ArrayList<>();
+        registry.addLogoutListener(loggedOut::add);
+        User alice = new User(7, "alice", null);
+        Session first = registry.open(alice);
+        Session second = registry.open(alice);
+        Session bob = registry.open(new User(8, "bob", null));
+
+        registry.close(first.getToken());
+        assertTrue(loggedOut.isEmpty());
+        registry.close(second.getToken());
+        registry.close(second.getToken());
+        assertEquals(List.of(7), loggedOut);
+
+        now.addAndGet(61 * SECOND);
+        assertEquals(1, registry.expireIdle());
+        assertFalse(bob.isOpen());
+        assertEquals(List.of(7, 8), loggedOut);
+    }
+
+    public void testConcurrentSessions() throws Exception {
+        SessionRegistry registry = manualRegistry();
+        int threads = 8;
+        int perThread = 1000;
+        List<Future<List<Session>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                int base = t * perThread;
+                results.add(executor.submit(() -> {
+                    List<Session> opened = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        Session session = registry.open(new User(base + i, "user" + (base + i), null));
+                        opened.add(session);
+                        assertSame(session, registry.find(session.getToken()));
+                        if (i % 2 == 0) {
+                            registry.close(session.getToken());
+                        }
+                    }
+                    return opened;
+                }));
+            }
+        }
+        Set<String> tokens = new HashSet<>();
+        for (Future<List<Session>> result : results) {
+            for (Session session : result.get()) {
+                tokens.add(session.getToken());
+                assertEquals(session.getUserId() % 2 == 1, registry.find(session.getToken()) != null);
+            }
+        }
+        assertEquals(threads * perThread, tokens.size());
+        assertEquals(threads * perThread / 2, registry.size());
+
+        now.addAndGet(61 * SECOND);
+        assertEquals(threads * perThread / 2, registry.expireIdle());
+    }
+
+    public void testScopedServiceCalls() throws Exception {
+        try (TestDatabase database = TestDatabase.open("sessions", "db.pool.read.size=2",
+                "auth.pbkdf2.iterations=1000")) {
+            DatabaseConnection db = database.getConnection();
+            AuthService auth = new AuthService(new AuthDAO(db), manualRegistry());
+            assertTrue(auth.register("alice", "secret1", null));
+            assertTrue(auth.register("bob", "secret2", null));
+            assertNull(auth.login("alice", "secret2"));
+            Session alice = auth.login("alice", "secret1");
+            Session bob = auth.login("bob", "secret2");
+            assertSame(alice, auth.getSession(alice.getToken()));
+
+            CategoryService categories = new CategoryService(new CategoryDAO(db));
+            ExpenseService expenses = new ExpenseService(new ExpenseDAO(db), categories);
+            Category food = categories.getAvailableCategories(alice).get(0);
+            // The user ID on the expense is replaced by the session's
+            assertTrue(expenses.createExpense(alice, new Expense("Lunch", 1250, food.getId(), LocalDate.of(2024, 5, 1), bob.getUserId())));
+            assertEquals(1250, expenses.getTotal(alice));
+            assertEquals(0, expenses.getTotal(bob));
+
+            int lunch = expenses.getExpensesPage(alice, null, 10).get(0).getId();
+            assertNull(expenses.getExpense(bob, lunch));
+            assertFalse(expenses.deleteExpense(bob, lunch));
+            Expense stolen = expenses.getExpense(alice, lunch);
+            stolen.setAmountCents(1);
+            assertFalse(expenses.updateExpense(bob, stolen));
+
+            assertTrue(expenses.createExpense(alice, new Expense("Dinner", 3000, food.getId(), LocalDate.of(2024, 5, 2), 0)));
+            assertEquals("cached total refreshed after a write", 4250, expenses.getTotal(alice));
+            assertEquals(4250, expenses.totalsByCategoryBetween(alice, null, null).get(0).getTotalCents());
+            // Names come from the category cache, not a lookup per slice by the caller
+            assertEquals(food.getName(), expenses.totalsByCategoryBetween(alice, null, null).get(0).getCategoryName());
+            assertTrue(expenses.deleteExpense(alice, lunch));
+            assertEquals(3000, expenses.getTotal(alice));
+            assertEquals(3000, expenses.totalsByCategoryBetween(alice, null, null).get(0).getTotalCents());
+
+            int before = categories.getAvailableCategories(bob).size();
+            assertTrue(categories.createCategory(bob, "Bob's", null));
+            assertEquals(before + 1, categories.getAvailableCategories(bob).size());
+
+            auth.logout(alice);
+            assertNull(auth.getSession(alice.getToken()));
+            try {
+                expenses.getTotal(alice);
+                fail("closed session accepted");
+            } catch (IllegalStateException expected) {
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.emsi.expensetracker.service;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.emsi.expensetracker.dao.implementation.AuthDAO;
+import com.emsi.expensetracker.dao.implementation.ExpenseDAO;
+import com.emsi.expensetracker.service.generator.GenerationReport;
+import com.emsi.expensetracker.service.generator.GeneratorSettings;
+import com.emsi.expensetracker.service.generator.SyntheticDataGenerator;
+import com.emsi.expensetracker.service.implementation.AuthService;
+import com.emsi.expensetracker.util.DatabaseConnection;
+import com.emsi.expensetracker.util.TestDatabase;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that SyntheticDataGenerator is repeatable for a seed and that the
+ * rows it writes have the configured shape.
+ */
+public class SyntheticDataGeneratorTest extends TestCase {
+
+    private TestDatabase database;
+    private DatabaseConnection db;
+
+    @Override
+    protected void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    private GenerationReport generate(String... settings) throws IOException {
+        if (database != null) {
+            database.close();
+        }
+        List<String> all = new ArrayList<>(List.of("generator.users=5", "generator.categories=4",
+                "generator.years=2", "generator.expenses.per.month=60"));
+        all.addAll(Arrays.asList(settings));
+        database = TestDatabase.open("generator", all.toArray(new String[0]));
+        db = database.getConnection();
+        return new SyntheticDataGenerator(db, GeneratorSettings.fromConfig(db)).generate();
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (Connection conn = db.getReadConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        }
+    }
+
+    private long checksum() throws SQLException {
+        return queryLong("SELECT SUM(id * 31 + amount_cents * 7 + epoch_day * 3 + category_id + length(description))"
+                + " FROM expenses");
+    }
+
+    public void testSameSeedGivesSameRows() throws Exception {
+        GenerationReport first = generate();
+        long firstChecksum = checksum();
+        GenerationReport second = generate();
+        assertEquals(first.getExpenses(), second.getExpenses());
+        assertEquals(firstChecksum, checksum());
+
+        generate("generator.seed=7");
+        assertFalse(firstChecksum == checksum());
+    }
+
+    public void testReportMatchesRows() throws Exception {
+        GenerationReport report = generate();
+        assertEquals(5, report.getUsers());
+        assertEquals(20, report.getCategories());
+        assertTrue(report.getExpenses() > 0);
+        assertEquals(report.getExpenses(), queryLong("SELECT COUNT(*) FROM expenses"));
+        assertEquals(5, queryLong("SELECT COUNT(*) FROM users"));
+        // Every user gets categories from the same templates
+        assertTrue(queryLong("SELECT MAX(n) FROM (SELECT COUNT(*) AS n FROM categories GROUP BY name)") > 1);
+        assertEquals(0, queryLong("SELECT COUNT(*) FROM expenses e JOIN categories c ON c.id = e.category_id"
+                + " WHERE c.user_id <> e.user_id"));
+    }
+
+    public void testRollupAndSearchIndexAreMaintained() throws Exception {
+        generate();
+        ExpenseDAO expenseDAO = new ExpenseDAO(db);
+        int userId = (int) queryLong("SELECT MIN(id) FROM users");
+        assertEquals(queryLong("SELECT SUM(amount_cents) FROM expenses WHERE user_id = " + userId),
+                expenseDAO.sumByUserId(userId));
+        assertEquals(queryLong("SELECT COUNT(*) FROM expenses"), queryLong("SELECT COUNT(*) FROM expenses_fts"));
+
+        String top;
+        try (Connection conn = db.getReadConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT description FROM expenses WHERE user_id = " + userId
+                        + " GROUP BY description ORDER BY COUNT(*) DESC LIMIT 1")) {
+            assertTrue(rs.next());
+            top = rs.getString(1);
+        }
+        assertFalse(expenseDAO.search(userId, top, 5).isEmpty());
+    }
+
+    public void testSeasonalityFavoursPeakMonth() throws Exception {
+        generate("generator.seasonality=0.8", "generator.seasonality.peak.month=12");
+        long december = queryLong("SELECT COUNT(*) FROM expenses"
+                + " WHERE strftime('%m', epoch_day * 86400, 'unixepoch') = '12'");
+        long june = queryLong("SELECT COUNT(*) FROM expenses"
+                + " WHERE strftime('%m', epoch_day * 86400, 'unixepoch') = '06'");
+        assertTrue(december + " vs " + june, december > 2 * june);
+    }
+
+    public void testAmountsHaveHeavyTail() throws Exception {
+        GenerationReport report = generate("generator.amount.tail.share=0.05");
+        long median = queryLong("SELECT amount_cents FROM expenses ORDER BY amount_cents LIMIT 1 OFFSET "
+                + report.getExpenses() / 2);
+        assertTrue(queryLong("SELECT MAX(amount_cents) FROM expenses") > 100 * median);
+        assertTrue(queryLong("SELECT MIN(amount_cents) FROM expenses") > 0);
+    }
+
+    public void testGeneratedUsersCanLogIn() throws Exception {
+        generate("generator.password=letmein");
+        AuthService auth = new AuthService(new AuthDAO(db));
+        assertNotNull(auth.login("gen-user-0", "letmein"));
+        assertNull(auth.login("gen-user-0", "password"));
+    }
+
+    public void testInvalidSettingsAreRejected() throws Exception {
+        try {
+            generate("generator.seasonality=2");
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
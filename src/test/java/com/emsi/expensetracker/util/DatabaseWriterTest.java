@@ -0,0 +1,183 @@
+package com.emsi.expensetracker.util;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.sqlite.SQLiteDataSource;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that every write submitted to a DatabaseWriter completes, including
+ * writes racing its shutdown.
+ */
+public class DatabaseWriterTest extends TestCase {
+
+    private static final int SUBMITTERS = 4;
+    private static final int WRITES_PER_PHASE = 250;
+
+    private File dbFile;
+    private SQLiteDataSource dataSource;
+
+    @Override
+    protected void setUp() throws Exception {
+        dbFile = File.createTempFile("writer", ".db");
+        dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + dbFile.getAbsolutePath());
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE t (v INTEGER)");
+        }
+    }
+
+    @Override
+    protected void tearDown() {
+        dbFile.delete();
+    }
+
+    private static WriteTask<Integer> insert(int value) {
+        return conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                return stmt.executeUpdate("INSERT INTO t VALUES (" + value + ")");
+            }
+        };
+    }
+
+    // Blocks the writer thread until the test releases it
+    private static void await(CountDownLatch latch) throws SQLException {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(e);
+        }
+    }
+
+    public void testWritesAfterShutdownFailFast() throws Exception {
+        DatabaseWriter writer = new DatabaseWriter(dataSource, 0, 16);
+        assertEquals(Integer.valueOf(1), writer.submit(insert(1)).get(5, TimeUnit.SECONDS));
+        writer.shutdown();
+        CompletableFuture<Integer> late = writer.submit(insert(2));
+        assertTrue(late.isCompletedExceptionally());
+    }
+
+    public void testShutdownPastDrainTimeoutFailsQueuedWrites() throws Exception {
+        DatabaseWriter writer = new DatabaseWriter(dataSource, 0, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> busy = writer.submit(conn -> {
+            await(release);
+            return insert(1).execute(conn);
+        });
+        List<CompletableFuture<Integer>> queued = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            queued.add(writer.submit(insert(2)));
+        }
+        Thread stopping = new Thread(() -> writer.shutdown(50));
+        stopping.start();
+        for (CompletableFuture<Integer> write : queued) {
+            try {
+                write.get(5, TimeUnit.SECONDS);
+                fail("Queued write outlived the drain timeout");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SQLException);
+            }
+        }
+        // Shutdown still waits for the write in progress
+        stopping.join(200);
+        assertTrue(stopping.isAlive());
+        release.countDown();
+        stopping.join(5_000);
+        assertFalse(stopping.isAlive());
+        assertEquals(Integer.valueOf(1), busy.get(5, TimeUnit.SECONDS));
+    }
+
+    public void testWritesRacingShutdownAllComplete() throws Exception {
+        DatabaseWriter writer = new DatabaseWriter(dataSource, 0, 256);
+        // The writer is held on the first task, so every write below is queued or refused, never run early
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> busy = writer.submit(conn -> {
+            await(release);
+            return 0;
+        });
+        CountDownLatch queued = new CountDownLatch(SUBMITTERS);
+        CountDownLatch stopped = new CountDownLatch(1);
+        List<List<CompletableFuture<Integer>>> before = new ArrayList<>();
+        List<List<CompletableFuture<Integer>>> after = new ArrayList<>();
+        List<Thread> submitters = new ArrayList<>();
+        for (int t = 0; t < SUBMITTERS; t++) {
+            List<CompletableFuture<Integer>> early = new ArrayList<>();
+            List<CompletableFuture<Integer>> late = new ArrayList<>();
+            before.add(early);
+            after.add(late);
+            Thread submitter = new Thread(() -> {
+                for (int i = 0; i < WRITES_PER_PHASE; i++) {
+                    early.add(writer.submit(insert(i)));
+                }
+                queued.countDown();
+                try {
+                    stopped.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < WRITES_PER_PHASE; i++) {
+                    late.add(writer.submit(insert(i)));
+                }
+            });
+            submitter.start();
+            submitters.add(submitter);
+        }
+        assertTrue(queued.await(5, TimeUnit.SECONDS));
+
+        Thread stopping = new Thread(writer::shutdown);
+        stopping.start();
+        // Probe until shutdown has begun; probes queued before that still commit
+        List<CompletableFuture<Integer>> probes = new ArrayList<>();
+        CompletableFuture<Integer> probe;
+        do {
+            probe = writer.submit(insert(-1));
+            probes.add(probe);
+        } while (!probe.isDone());
+        stopped.countDown();
+        for (Thread submitter : submitters) {
+            submitter.join(5_000);
+        }
+        release.countDown();
+        stopping.join(5_000);
+        assertFalse(stopping.isAlive());
+        assertEquals(Integer.valueOf(0), busy.get());
+
+        int committed = 0;
+        for (int t = 0; t < SUBMITTERS; t++) {
+            for (CompletableFuture<Integer> write : before.get(t)) {
+                assertEquals(Integer.valueOf(1), write.get(5, TimeUnit.SECONDS));
+                committed++;
+            }
+            assertEquals(WRITES_PER_PHASE, after.get(t).size());
+            for (CompletableFuture<Integer> write : after.get(t)) {
+                assertTrue(write.isCompletedExceptionally());
+            }
+        }
+        for (CompletableFuture<Integer> write : probes) {
+            try {
+                write.get(5, TimeUnit.SECONDS);
+                committed++;
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof SQLException);
+            }
+        }
+        assertTrue(probes.get(probes.size() - 1).isCompletedExceptionally());
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t")) {
+            assertTrue(rs.next());
+            assertEquals(committed, rs.getInt(1));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.emsi.expensetracker.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * A migrated database in a temporary file, for tests and benchmarks.
+ * Settings are given as key=value strings that override config.properties;
+ * {@link #close()} shuts the pools down and deletes the file.
+ */
+public class TestDatabase implements AutoCloseable {
+
+    private final File file;
+    private final DatabaseConnection connection;
+
+    private TestDatabase(File file, DatabaseConnection connection) {
+        this.file = file;
+        this.connection = connection;
+    }
+
+    /**
+     * Creates the file, opens the pools and applies the migrations.
+     *
+     * @param prefix Prefix of the temporary file name
+     * @param settings Configuration overrides as key=value
+     * @return The open database
+     * @throws IOException if the temporary file cannot be created
+     */
+    public static TestDatabase open(String prefix, String... settings) throws IOException {
+        File file = File.createTempFile(prefix, ".db");
+        DatabaseConnection connection = new DatabaseConnection(properties(file, settings));
+        try {
+            connection.initialize();
+        } catch (RuntimeException e) {
+            connection.shutdown();
+            file.delete();
+            throw e;
+        }
+        return new TestDatabase(file, connection);
+    }
+
+    /**
+     * Opens a second, uninitialized connection on the same file; the caller
+     * shuts it down.
+     *
+     * @param settings Configuration overrides as key=value
+     * @return The new connection
+     */
+    public DatabaseConnection connect(String... settings) {
+        return new DatabaseConnection(properties(file, settings));
+    }
+
+    private static Properties properties(File file, String... settings) {
+        Properties props = new Properties();
+        props.setProperty("db.url", "jdbc:sqlite:" + file.getAbsolutePath());
+        for (String setting : settings) {
+            int separator = setting.indexOf('=');
+            props.setProperty(setting.substring(0, separator), setting.substring(separator + 1));
+        }
+        return props;
+    }
+
+    public DatabaseConnection getConnection() {
+        return connection;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() {
+        connection.shutdown();
+        file.delete();
+    }
+}